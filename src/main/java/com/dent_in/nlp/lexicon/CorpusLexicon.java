@@ -34,6 +34,32 @@ public interface CorpusLexicon extends Lexicon {
      */
     public Long getFrequency(String token);
 
+    /**
+     * Returns the frequency of a token in the corpus as a primitive, in a single lookup (i.e., no containsWord() first).
+     * Implementations backed by primitive storage neither box nor allocate.
+     *
+     * @param token The query token
+     * @param defaultFrequency The value returned if the token is not in the lexicon (e.g., -1)
+     * @return The frequency for the token in the corpus, or the default frequency
+     */
+    default long getFrequency(String token, long defaultFrequency) {
+        return containsWord(token) ? getFrequency(token) : defaultFrequency;
+    }
+
+    /**
+     * Returns the frequency of a region of a longer text (e.g., a candidate word of a string being segmented).
+     * Implementations that can look the region up in place do so without creating a substring.
+     *
+     * @param text The text containing the query token
+     * @param start The offset of the first character of the token
+     * @param end The offset after the last character of the token
+     * @param defaultFrequency The value returned if the token is not in the lexicon (e.g., -1)
+     * @return The frequency for the token in the corpus, or the default frequency
+     */
+    default long getFrequency(CharSequence text, int start, int end, long defaultFrequency) {
+        return getFrequency(text.subSequence(start, end).toString(), defaultFrequency);
+    }
+
     /**
      * Returns a Map of {word, frequency} representing the whole corpus.
      * @return The Map of {word, frequency} representing the whole corpus.
@@ -62,4 +88,23 @@ public interface CorpusLexicon extends Lexicon {
      */
     public Double getLogLikelihood(String token);
 
+    /**
+     * Returns the number of entries left out of the lexicon while it was loaded (see PruningOptions).
+     *
+     * @return The number of pruned entries
+     */
+    default long getPrunedCount() {
+        return 0;
+    }
+
+    /**
+     * Returns the total of the frequencies left out of the lexicon while it was loaded, so that probabilities can
+     * still be normalised by the size of the whole corpus (i.e., getCorpusSize() + getPrunedMass()).
+     *
+     * @return The total frequency of the pruned entries
+     */
+    default long getPrunedMass() {
+        return 0;
+    }
+
 }
@@ -22,7 +22,8 @@ import java.util.Set;
 public interface Lexicon {
 
     enum TYPE {
-        DEFAULT, CORPUSLEXICON, NGRAMCORPUSLEXICON, DICTIONARYLEXICON, THESAURUSLEXICON
+        DEFAULT, CORPUSLEXICON, NGRAMCORPUSLEXICON, DICTIONARYLEXICON, THESAURUSLEXICON, MAPPEDCORPUSLEXICON, PRIMITIVECORPUSLEXICON,
+        PERFECTHASHCORPUSLEXICON, DAWGCORPUSLEXICON
     }
 
     /**
@@ -40,6 +41,19 @@ public interface Lexicon {
      */
     public Boolean containsWord(String word);
 
+    /**
+     * Tells whether a region of a longer text (e.g., a candidate word of a string being segmented) is in this lexicon.
+     * Implementations that can look the region up in place do so without creating a substring.
+     *
+     * @param text The text containing the query word
+     * @param start The offset of the first character of the word
+     * @param end The offset after the last character of the word
+     * @return True if the word is contained in this lexicon, false otherwise
+     */
+    default boolean containsWord(CharSequence text, int start, int end) {
+        return containsWord(text.subSequence(start, end).toString());
+    }
+
     /**
      * XXX: It might be better (or in addition to) to provide an Iterator over the Collection of words.
      * @return The lexicon as a set of words
@@ -19,7 +19,11 @@ package com.dent_in.nlp.lexicon;
 
 import com.dent_in.nlp.lexicon.exception.UnsupportedLexiconException;
 import com.dent_in.nlp.lexicon.impl.CorpusLexiconImpl;
+import com.dent_in.nlp.lexicon.impl.DawgCorpusLexiconImpl;
+import com.dent_in.nlp.lexicon.impl.MappedCorpusLexiconImpl;
 import com.dent_in.nlp.lexicon.impl.NgramCorpusLexiconImpl;
+import com.dent_in.nlp.lexicon.impl.PerfectHashCorpusLexiconImpl;
+import com.dent_in.nlp.lexicon.impl.PrimitiveCorpusLexiconImpl;
 
 public class LexiconFactory {
 
@@ -48,6 +52,18 @@ public class LexiconFactory {
             case NGRAMCORPUSLEXICON:
                 lexicon = new NgramCorpusLexiconImpl();
                 break;
+            case PRIMITIVECORPUSLEXICON:
+                lexicon = new PrimitiveCorpusLexiconImpl();
+                break;
+            case MAPPEDCORPUSLEXICON:
+                lexicon = new MappedCorpusLexiconImpl();
+                break;
+            case PERFECTHASHCORPUSLEXICON:
+                lexicon = new PerfectHashCorpusLexiconImpl();
+                break;
+            case DAWGCORPUSLEXICON:
+                lexicon = new DawgCorpusLexiconImpl();
+                break;
             case DICTIONARYLEXICON:
                 throw new UnsupportedLexiconException();
             case THESAURUSLEXICON:
@@ -0,0 +1,166 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dent_in.nlp.lexicon.impl;
+
+import com.dent_in.nlp.lexicon.CorpusLexicon;
+import com.dent_in.nlp.lexicon.index.BigramTable;
+import com.dent_in.nlp.lexicon.index.SuccessorIndex;
+import com.dent_in.nlp.lexicon.index.WordFrequencyTable;
+import com.dent_in.nlp.lexicon.utils.LoadErrorCollector;
+
+import java.util.Map;
+
+/**
+ * A bigram lexicon backed by a BigramTable, i.e., each bigram kept as the pair of the int ids of its words rather than
+ * as a "first second" string, which takes a fraction of the memory and looks bigrams up without putting them together.
+ *
+ * The ids come from a vocabulary seeded with the words of a unigram lexicon, so that a scorer can map each word to its
+ * id once and then look up its unigram frequency and its bigrams by id (see ProbabilityDistribution). Words found in
+ * the bigrams only are added to the vocabulary with a frequency of -1.
+ *
+ * Once loaded, the bigrams are indexed by their first word (see SuccessorIndex): a bigram is found by a binary search
+ * of the successors of its first word, and the successors of a word can be walked from the most frequent down.
+ */
+public class BigramCorpusLexiconImpl extends NgramCorpusLexiconImpl {
+
+    private final BigramTable table;
+
+    /**
+     * Creates a bigram lexicon whose vocabulary starts out empty.
+     */
+    public BigramCorpusLexiconImpl() {
+        this(new BigramTable(new WordFrequencyTable()));
+    }
+
+    /**
+     * Creates a bigram lexicon whose vocabulary is seeded with the words and frequencies of a unigram lexicon.
+     *
+     * @param unigramLexicon The unigram counts, loaded beforehand
+     */
+    public BigramCorpusLexiconImpl(CorpusLexicon unigramLexicon) {
+        this(new BigramTable(newVocabulary(unigramLexicon)));
+    }
+
+    private BigramCorpusLexiconImpl(BigramTable table) {
+        super(NGRAMSIZE.BIGRAM, table);
+        this.table = table;
+    }
+
+    /**
+     * Creates a vocabulary seeded with the words of a unigram lexicon: the table of a PrimitiveCorpusLexiconImpl is
+     * extended rather than copied (hence it must not be loaded into again), the words of any other lexicon are copied.
+     */
+    static WordFrequencyTable newVocabulary(CorpusLexicon unigramLexicon) {
+        if (unigramLexicon instanceof PrimitiveCorpusLexiconImpl) {
+            return new WordFrequencyTable(((PrimitiveCorpusLexiconImpl) unigramLexicon).getTable());
+        }
+        WordFrequencyTable vocabulary = new WordFrequencyTable();
+        for (Map.Entry<String, Long> entry : unigramLexicon.getFrequencies().entrySet()) {
+            vocabulary.putFrequency(entry.getKey(), entry.getValue());
+        }
+        return vocabulary;
+    }
+
+    /**
+     * Returns the ids of the words (i.e., their entry numbers) along with their unigram frequencies.
+     *
+     * @return The vocabulary of this lexicon
+     */
+    public WordFrequencyTable getVocabulary() {
+        return this.table.getVocabulary();
+    }
+
+    /**
+     * Returns the id of a region of a longer text.
+     *
+     * @param text The text containing the word
+     * @param start The offset of the first character of the word
+     * @param end The offset after the last character of the word
+     * @return The id of the word, or -1 if it is not in the vocabulary
+     */
+    public int getWordId(CharSequence text, int start, int end) {
+        return this.table.getVocabulary().indexOf(text, start, end);
+    }
+
+    /**
+     * Returns the frequency of a bigram given by the ids of its words.
+     *
+     * @param first The id of the first word (negative if unknown)
+     * @param second The id of the second word (negative if unknown)
+     * @param defaultFrequency The value returned if the bigram is not in the lexicon
+     * @return The frequency of the bigram, or the default frequency
+     */
+    public long getFrequency(int first, int second, long defaultFrequency) {
+        return this.table.getFrequency(first, second, defaultFrequency);
+    }
+
+    /**
+     * Returns the index of the bigrams by their first word.
+     *
+     * @return The index, or null if nothing has been loaded yet
+     */
+    public SuccessorIndex getSuccessorIndex() {
+        return this.table.getSuccessorIndex();
+    }
+
+    @Override
+    public void load(String lexiconFilePath) {
+        super.load(lexiconFilePath);
+        this.table.indexSuccessors();
+    }
+
+    @Override
+    public LoadErrorCollector load(String lexiconFilePath, int parallelism) {
+        LoadErrorCollector errors = super.load(lexiconFilePath, parallelism);
+        this.table.indexSuccessors();
+        return errors;
+    }
+
+    @Override
+    public LoadErrorCollector loadShards(String directory, String glob, int parallelism) {
+        LoadErrorCollector errors = super.loadShards(directory, glob, parallelism);
+        this.table.indexSuccessors();
+        return errors;
+    }
+
+    @Override
+    public Long getFrequency(String token) {
+        return mightContain(token, 0, token.length()) ? this.table.getFrequency(token, 0, token.length(), this.getMinFrequency()) : this.getMinFrequency();
+    }
+
+    @Override
+    public long getFrequency(String token, long defaultFrequency) {
+        return mightContain(token, 0, token.length()) ? this.table.getFrequency(token, 0, token.length(), defaultFrequency) : defaultFrequency;
+    }
+
+    @Override
+    public long getFrequency(CharSequence text, int start, int end, long defaultFrequency) {
+        return mightContain(text, start, end) ? this.table.getFrequency(text, start, end, defaultFrequency) : defaultFrequency;
+    }
+
+    @Override
+    public Boolean containsWord(String word) {
+        return mightContain(word, 0, word.length()) && this.table.getFrequency(word, 0, word.length(), -1) >= 0;
+    }
+
+    @Override
+    public boolean containsWord(CharSequence text, int start, int end) {
+        return mightContain(text, start, end) && this.table.getFrequency(text, start, end, -1) >= 0;
+    }
+}
@@ -20,14 +20,34 @@ package com.dent_in.nlp.lexicon.impl;
 import com.dent_in.nlp.lexicon.AbstractLexicon;
 import com.dent_in.nlp.lexicon.CorpusLexicon;
 import com.dent_in.nlp.lexicon.Lexicon;
+import com.dent_in.nlp.lexicon.index.BloomFilter;
+import com.dent_in.nlp.lexicon.utils.FrequencyStatistics;
 import com.dent_in.nlp.lexicon.utils.LexiconReader;
+import com.dent_in.nlp.lexicon.utils.LoadErrorCollector;
+import com.dent_in.nlp.lexicon.utils.PruningOptions;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Set;
 import java.util.Map;
 
 import static com.dent_in.nlp.lexicon.Lexicon.TYPE.CORPUSLEXICON;
+import static com.dent_in.nlp.lexicon.Lexicon.TYPE.NGRAMCORPUSLEXICON;
+import static com.dent_in.nlp.lexicon.Lexicon.TYPE.PRIMITIVECORPUSLEXICON;
 
+/**
+ * A corpus lexicon backed by a HashMap of word frequencies.
+ *
+ * Not thread-safe while loading. Once loaded, any number of threads may read it concurrently as long as nothing is
+ * loaded into it any more and it is handed over to them safely (e.g., through a final field, see LanguageModel).
+ *
+ * Lookups may be fronted by a Bloom filter of the words, built at load time (see setBloomFilterFalsePositiveRate()),
+ * which rejects most words not in the lexicon without probing the map.
+ */
 public class CorpusLexiconImpl extends AbstractLexicon
         implements CorpusLexicon {
 
@@ -35,6 +55,11 @@ public class CorpusLexiconImpl extends AbstractLexicon
     private Long corpusSize = null;
     private Long minFrequency = null;
     private Long maxFrequency = null;
+    private PruningOptions pruning = null;
+    private long prunedCount = 0;
+    private long prunedMass = 0;
+    private double falsePositiveRate = 0;
+    private BloomFilter filter = null;
 
 
     public CorpusLexiconImpl() {
@@ -48,6 +73,69 @@ public class CorpusLexiconImpl extends AbstractLexicon
         this.setType(type);
     }
 
+    /**
+     * Creates a lexicon backed by a given (empty) map of word frequencies.
+     *
+     * @param wordFrequencies The map where the words and frequencies will be loaded
+     */
+    protected CorpusLexiconImpl(Map<String, Long> wordFrequencies) {
+        this();
+        this.wordFrequencies = wordFrequencies;
+    }
+
+    public PruningOptions getPruningOptions() {
+        return this.pruning;
+    }
+
+    /**
+     * Sets what to prune from the frequency lists loaded from now on (see load() and loadShards()).
+     *
+     * @param pruning What to prune, or null to load every entry
+     */
+    public void setPruningOptions(PruningOptions pruning) {
+        this.pruning = pruning;
+    }
+
+    public double getBloomFilterFalsePositiveRate() {
+        return this.falsePositiveRate;
+    }
+
+    /**
+     * Sets the false positive rate of a Bloom filter of the words in front of the lookups, built over the words loaded
+     * so far and again by every load, or removes the filter.
+     *
+     * @param falsePositiveRate The rate of lookups of words not in the lexicon let through (e.g., 0.01), or 0 for no filter
+     */
+    public void setBloomFilterFalsePositiveRate(double falsePositiveRate) {
+        this.falsePositiveRate = falsePositiveRate;
+        buildFilter();
+    }
+
+    /**
+     * Returns the Bloom filter in front of the lookups, e.g., for its hit and miss counters.
+     *
+     * @return The filter, or null if there is none
+     */
+    public BloomFilter getBloomFilter() {
+        return this.filter;
+    }
+
+    private void buildFilter() {
+        this.filter = this.falsePositiveRate > 0 ? BloomFilter.of(this.getWords(), this.falsePositiveRate) : null;
+    }
+
+    /**
+     * Tells whether a region of a longer text may be in this lexicon, i.e., it is let through by the Bloom filter, if any.
+     *
+     * @param text The text containing the query word
+     * @param start The offset of the first character of the word
+     * @param end The offset after the last character of the word
+     * @return False if the word is not in this lexicon, true if it may be
+     */
+    protected boolean mightContain(CharSequence text, int start, int end) {
+        return this.filter == null || this.filter.mightContain(text, start, end);
+    }
+
     /**
      * Loads a lexicon file.
      * Called multiple times has a cumulative effect, that is, aggregates frequencies from various lists.
@@ -55,10 +143,80 @@ public class CorpusLexiconImpl extends AbstractLexicon
      * @param lexiconFilePath The path to the input file
      */
     public void load(String lexiconFilePath) {
-        LexiconReader.loadLexicon(lexiconFilePath, this);
-        //This could be done on the fly within the loading,
-        //but like this it's neater albeit the need for an extra sweep over the frequency map
-        recomputeStats();
+        load(lexiconFilePath, 1, new LoadErrorCollector(System.out));
+    }
+
+    /**
+     * Loads a (large) lexicon file on a number of threads. The file may be gzipped (i.e., *.gz), or a directory whose
+     * files are the shards of the lexicon.
+     *
+     * @param lexiconFilePath The path to the input file
+     * @param parallelism The number of threads parsing the file
+     * @return The ill-formatted lines found in the file
+     */
+    public LoadErrorCollector load(String lexiconFilePath, int parallelism) {
+        LoadErrorCollector errors = new LoadErrorCollector();
+        load(lexiconFilePath, parallelism, errors);
+        return errors;
+    }
+
+    /**
+     * Loads a lexicon file, with the stats computed by the reader on the fly whenever they are exact (i.e., the
+     * lexicon was empty and no word is listed twice), or else by an extra sweep over the frequency map.
+     */
+    private void load(String lexiconFilePath, int parallelism, LoadErrorCollector errors) {
+        Lexicon.TYPE type = this.getType();
+        //no filter while the map is being filled
+        this.filter = null;
+        if (type != CORPUSLEXICON && type != PRIMITIVECORPUSLEXICON && type != NGRAMCORPUSLEXICON) {
+            LexiconReader.loadLexicon(lexiconFilePath, this);
+            recomputeStats();
+        } else {
+            boolean wasEmpty = this.wordFrequencies.isEmpty();
+            setStats(wasEmpty, LexiconReader.readFrequencyList(FileSystems.getDefault().getPath(lexiconFilePath),
+                    this, StandardCharsets.UTF_8, parallelism, type == NGRAMCORPUSLEXICON, this.pruning, errors));
+        }
+        buildFilter();
+    }
+
+    /**
+     * Loads the shards of a lexicon (e.g., the gzipped files of a Google n-gram distribution), decompressing and
+     * parsing a number of them at once.
+     *
+     * @param directory The directory of the shards
+     * @param glob The pattern of the names of the shards (e.g., "*.gz")
+     * @param parallelism The number of shards decompressed and parsed at once
+     * @return The ill-formatted lines found in the shards
+     */
+    public LoadErrorCollector loadShards(String directory, String glob, int parallelism) {
+        LoadErrorCollector errors = new LoadErrorCollector();
+        boolean wasEmpty = this.wordFrequencies.isEmpty();
+        this.filter = null;
+        try {
+            List<Path> shards = LexiconReader.listShards(FileSystems.getDefault().getPath(directory), glob);
+            setStats(wasEmpty, LexiconReader.readShards(shards, this, StandardCharsets.UTF_8, parallelism,
+                    this.getType() == NGRAMCORPUSLEXICON, this.pruning, errors));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        buildFilter();
+        return errors;
+    }
+
+    /**
+     * Sets the stats computed by the reader whenever they are exact, or else recomputes them.
+     */
+    private void setStats(boolean wasEmpty, FrequencyStatistics statistics) {
+        this.prunedCount += statistics.getPrunedCount();
+        this.prunedMass += statistics.getPrunedMass();
+        if (wasEmpty && statistics.isExact()) {
+            //same bounds as recomputeStats()
+            this.corpusSize = statistics.getTotal();
+            this.minFrequency = Math.min(1000000, statistics.getMin());
+            this.maxFrequency = Math.max(0, statistics.getMax());
+        } else {
+            recomputeStats();
+        }
     }
 
     /**
@@ -91,6 +249,16 @@ public class CorpusLexiconImpl extends AbstractLexicon
         return this.corpusSize;
     }
 
+    @Override
+    public long getPrunedCount() {
+        return this.prunedCount;
+    }
+
+    @Override
+    public long getPrunedMass() {
+        return this.prunedMass;
+    }
+
     /**
      * Returns the frequency of a given word, or min frequency if word not found in lexicon.
      *
@@ -99,15 +267,45 @@ public class CorpusLexiconImpl extends AbstractLexicon
      */
     public Long getFrequency(String token) {
         Long result = null;
-        //normally
-        result = this.wordFrequencies.get(token);
+        //normally, in a single probe
+        if ( mightContain(token, 0, token.length()) )
+            result = this.wordFrequencies.get(token);
         //but if,
-        if ( !this.containsWord (token) )
-            result = new Long (this.getMinFrequency());
+        if ( result == null )
+            result = this.getMinFrequency();
 
         return result;
     }
 
+    /**
+     * Returns the frequency of a given word in a single lookup, and with no new Long for words not found.
+     *
+     * @param token A word whose frequency is sought
+     * @param defaultFrequency The value returned if the word is not in the lexicon
+     * @return The frequency of the given word, or the default frequency
+     */
+    @Override
+    public long getFrequency(String token, long defaultFrequency) {
+        Long result = mightContain(token, 0, token.length()) ? this.wordFrequencies.get(token) : null;
+        return result == null ? defaultFrequency : result;
+    }
+
+    /**
+     * Returns the frequency of a region of a longer text, with a substring only if the Bloom filter (if any) lets the
+     * region through.
+     *
+     * @param text The text containing the query token
+     * @param start The offset of the first character of the token
+     * @param end The offset after the last character of the token
+     * @param defaultFrequency The value returned if the token is not in the lexicon
+     * @return The frequency of the token, or the default frequency
+     */
+    @Override
+    public long getFrequency(CharSequence text, int start, int end, long defaultFrequency) {
+        Long result = mightContain(text, start, end) ? this.wordFrequencies.get(text.subSequence(start, end).toString()) : null;
+        return result == null ? defaultFrequency : result;
+    }
+
     /**
      * Returns a map of the {word, frequency} pairs.
      *
@@ -137,10 +335,9 @@ public class CorpusLexiconImpl extends AbstractLexicon
 
     @Override
     public Double getLogLikelihood(String token) {
-        Double result = null;
-        //use doubleValue() to force result to be double
-        double logLikelihood = (-1.0)*Math.log(token.length()*this.getFrequency(token).doubleValue()/this.getCorpusSize());
-        return new Double(logLikelihood);
+        //a single lookup, unknown words have the min frequency as with getFrequency()
+        double frequency = this.getFrequency(token, this.getMinFrequency());
+        return (-1.0)*Math.log(token.length()*frequency/this.getCorpusSize());
     }
 
     /**
@@ -160,7 +357,12 @@ public class CorpusLexiconImpl extends AbstractLexicon
      * @return True if this lexicon contains the given word, false otherwise
      */
     public Boolean containsWord(String word) {
-        return this.wordFrequencies.containsKey(word);
+        return mightContain(word, 0, word.length()) && this.wordFrequencies.containsKey(word);
+    }
+
+    @Override
+    public boolean containsWord(CharSequence text, int start, int end) {
+        return mightContain(text, start, end) && this.wordFrequencies.containsKey(text.subSequence(start, end).toString());
     }
 
     /**
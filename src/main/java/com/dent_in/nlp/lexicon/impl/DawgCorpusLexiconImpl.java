@@ -0,0 +1,235 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dent_in.nlp.lexicon.impl;
+
+import com.dent_in.nlp.lexicon.AbstractLexicon;
+import com.dent_in.nlp.lexicon.CorpusLexicon;
+import com.dent_in.nlp.lexicon.Lexicon;
+import com.dent_in.nlp.lexicon.LexiconFactory;
+import com.dent_in.nlp.lexicon.index.Dawg;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+import static com.dent_in.nlp.lexicon.Lexicon.TYPE.DAWGCORPUSLEXICON;
+
+/**
+ * A read-only corpus lexicon backed by a Dawg of its words, i.e., a trie with common suffixes shared as well as common
+ * prefixes: about 2 transitions (20 bytes) and a frequency (8 bytes) a word, several times less than CorpusLexiconImpl,
+ * while the words are still kept, in order, hence can be walked from any prefix (see forEachCompletion()), and those
+ * starting at an offset of a text found in a single walk (see forEachPrefix()).
+ *
+ * The automaton can be saved once built and then memory-mapped rather than rebuilt: load() maps files written by save()
+ * and reads (unigram) frequency lists otherwise. The number and mass of the pruned words are not saved.
+ *
+ * Thread-safe once loaded: the automaton is immutable and only replaced as a whole by load().
+ */
+public class DawgCorpusLexiconImpl extends AbstractLexicon
+        implements CorpusLexicon {
+
+    private Dawg dawg = new Dawg(Collections.emptyMap());
+    private long prunedCount = 0;
+    private long prunedMass = 0;
+
+    public DawgCorpusLexiconImpl() {
+        this.setType(DAWGCORPUSLEXICON);
+    }
+
+    /**
+     * Creates a lexicon of the words and frequencies of a loaded lexicon (e.g., an n-gram one), which is no longer
+     * needed afterwards.
+     *
+     * @param lexicon The loaded lexicon
+     */
+    public DawgCorpusLexiconImpl(CorpusLexicon lexicon) {
+        this();
+        build(lexicon);
+    }
+
+    /**
+     * Maps a file written by save(), or else loads a (unigram) lexicon file into primitive storage and builds the
+     * automaton of its words, replacing whatever was loaded before.
+     *
+     * @param lexiconFilePath The path to the input file
+     */
+    public void load(String lexiconFilePath) {
+        Path path = FileSystems.getDefault().getPath(lexiconFilePath);
+        try {
+            if (isSaved(path)) {
+                this.dawg = Dawg.map(path);
+                this.prunedCount = 0;
+                this.prunedMass = 0;
+                return;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        CorpusLexicon lexicon = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.PRIMITIVECORPUSLEXICON);
+        lexicon.load(lexiconFilePath);
+        build(lexicon);
+    }
+
+    private static boolean isSaved(Path path) throws IOException {
+        if (Files.size(path) < Dawg.HEADER_SIZE) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            return in.readInt() == Dawg.MAGIC;
+        }
+    }
+
+    private void build(CorpusLexicon lexicon) {
+        this.dawg = new Dawg(lexicon.getFrequencies());
+        this.prunedCount = lexicon.getPrunedCount();
+        this.prunedMass = lexicon.getPrunedMass();
+    }
+
+    /**
+     * Writes the automaton, to be mapped by load() from then on.
+     *
+     * @param path The path of the file
+     * @throws IOException If the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        this.dawg.write(path);
+    }
+
+    public Long getCorpusSize() {
+        return this.dawg.getTotal();
+    }
+
+    @Override
+    public long getPrunedCount() {
+        return this.prunedCount;
+    }
+
+    @Override
+    public long getPrunedMass() {
+        return this.prunedMass;
+    }
+
+    /**
+     * Returns the frequency of a given word, or min frequency if word not found in lexicon.
+     *
+     * @param token A word whose frequency is sought
+     * @return The frequency of the given word
+     */
+    public Long getFrequency(String token) {
+        return this.dawg.getFrequency(token, 0, token.length(), this.dawg.getMin());
+    }
+
+    @Override
+    public long getFrequency(String token, long defaultFrequency) {
+        return this.dawg.getFrequency(token, 0, token.length(), defaultFrequency);
+    }
+
+    @Override
+    public long getFrequency(CharSequence text, int start, int end, long defaultFrequency) {
+        return this.dawg.getFrequency(text, start, end, defaultFrequency);
+    }
+
+    /**
+     * Returns the {word, frequency} pairs, in the order of the words, copied out of the automaton.
+     *
+     * @return A map of the words and their frequencies
+     */
+    public Map<String, Long> getFrequencies() {
+        Map<String, Long> frequencies = new LinkedHashMap<>();
+        this.dawg.forEachCompletion("", Integer.MAX_VALUE, frequencies::put);
+        return frequencies;
+    }
+
+    public Long getMinFrequency() {
+        return this.dawg.getMin();
+    }
+
+    public Long getMaxFrequency() {
+        return this.dawg.getMax();
+    }
+
+    @Override
+    public Double getLogLikelihood(String token) {
+        double frequency = getFrequency(token, this.dawg.getMin());
+        return (-1.0)*Math.log(token.length()*frequency/this.getCorpusSize());
+    }
+
+    public Long getVocabularySize() {
+        return (long) this.dawg.size();
+    }
+
+    public Boolean containsWord(String word) {
+        return this.dawg.indexOf(word, 0, word.length()) >= 0;
+    }
+
+    @Override
+    public boolean containsWord(CharSequence text, int start, int end) {
+        return this.dawg.indexOf(text, start, end) >= 0;
+    }
+
+    /**
+     * Returns the words, in order, copied out of the automaton.
+     *
+     * @return The set of words
+     */
+    public Set<String> getWords() {
+        return getFrequencies().keySet();
+    }
+
+    /**
+     * Walks the words starting at a given offset of a text, shortest first.
+     *
+     * @param text The text
+     * @param start The offset where the words start
+     * @param end The offset past which no word may end
+     * @param endOffsets What receives the end offset of each word
+     */
+    public void forEachPrefix(CharSequence text, int start, int end, IntConsumer endOffsets) {
+        this.dawg.forEachPrefix(text, start, end, endOffsets);
+    }
+
+    /**
+     * Walks the words starting with a given prefix, in order.
+     *
+     * @param prefix The prefix
+     * @param max The max number of words walked
+     * @param listener What receives the words and their frequencies
+     * @return The number of words walked
+     */
+    public int forEachCompletion(CharSequence prefix, int max, Dawg.CompletionListener listener) {
+        return this.dawg.forEachCompletion(prefix, max, listener);
+    }
+
+    /**
+     * Returns the automaton of the words.
+     *
+     * @return The automaton
+     */
+    public Object getBackBone() {
+        return this.dawg;
+    }
+}
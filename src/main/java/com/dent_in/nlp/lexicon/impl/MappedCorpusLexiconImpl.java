@@ -0,0 +1,372 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dent_in.nlp.lexicon.impl;
+
+import com.dent_in.nlp.lexicon.AbstractLexicon;
+import com.dent_in.nlp.lexicon.CorpusLexicon;
+import com.dent_in.nlp.lexicon.exception.FrequencyListFileFormatException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static com.dent_in.nlp.lexicon.Lexicon.TYPE.MAPPEDCORPUSLEXICON;
+
+/**
+ * A read-only corpus lexicon served straight from a memory-mapped file compiled by LexiconCompiler, so loading costs
+ * no parsing at all and the words and their frequencies live off the heap (in the page cache).
+ *
+ * The compiled file (big-endian) is laid out as follows:
+ * <pre>
+ *   int  MAGIC, int VERSION, int number of words (n), int unused
+ *   long corpus size, long min frequency, long max frequency
+ *   long[n]   frequencies, in the order of the words
+ *   int[n+1]  offsets of the words in the key area (the last one is the size of the area)
+ *   byte[]    key area, the UTF-8 bytes of the words sorted in unsigned byte order
+ * </pre>
+ * A word is found by binary search over its UTF-8 bytes. A single mapping is used, hence files are limited to 2GB.
+ *
+ * Thread-safe once loaded: the mapping is only read with absolute gets.
+ */
+public class MappedCorpusLexiconImpl extends AbstractLexicon
+        implements CorpusLexicon {
+
+    public static final int MAGIC = 0x504E574C; //PNWL
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 40;
+
+    private ByteBuffer mapping = null;
+    private int size = 0;
+    private long corpusSize = 0;
+    private long minFrequency = 0;
+    private long maxFrequency = 0;
+    private int offsetsStart = 0;
+    private int keysStart = 0;
+
+    public MappedCorpusLexiconImpl() {
+        this.setType(MAPPEDCORPUSLEXICON);
+    }
+
+    /**
+     * Maps a compiled lexicon file (see LexiconCompiler), replacing whatever was mapped before.
+     *
+     * @param lexiconFilePath The path to the compiled file
+     */
+    public void load(String lexiconFilePath) {
+        load(FileSystems.getDefault().getPath(lexiconFilePath));
+    }
+
+    /**
+     * Maps a compiled lexicon file (see LexiconCompiler), replacing whatever was mapped before.
+     *
+     * @param path The path to the compiled file
+     */
+    public void load(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new FrequencyListFileFormatException("Compiled lexicon larger than 2GB: " + path);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new FrequencyListFileFormatException("Not a compiled lexicon: " + path);
+            }
+            int n = buffer.getInt(8);
+            this.corpusSize = buffer.getLong(16);
+            this.minFrequency = buffer.getLong(24);
+            this.maxFrequency = buffer.getLong(32);
+            this.offsetsStart = HEADER_SIZE + 8 * n;
+            this.keysStart = this.offsetsStart + 4 * (n + 1);
+            this.size = n;
+            this.mapping = buffer;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Finds the index of a word by binary search over the sorted keys.
+     *
+     * @param word The query word
+     * @return The index of the word, or -1 if it is not in this lexicon
+     */
+    private int indexOf(String word) {
+        if (this.mapping == null) {
+            return -1;
+        }
+        byte[] key = word.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = this.size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(mid, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the index of a region of a longer text by binary search over the sorted keys. ASCII regions (i.e., whose
+     * chars are their own UTF-8 bytes) are compared in place, any other one is encoded first.
+     *
+     * @param text The text containing the query word
+     * @param start The offset of the first character of the word
+     * @param end The offset after the last character of the word
+     * @return The index of the word, or -1 if it is not in this lexicon
+     */
+    private int indexOf(CharSequence text, int start, int end) {
+        if (this.mapping == null) {
+            return -1;
+        }
+        for (int k = start; k < end; k++) {
+            if (text.charAt(k) >= 0x80) {
+                return indexOf(text.subSequence(start, end).toString());
+            }
+        }
+        int low = 0;
+        int high = this.size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(mid, text, start, end);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the i-th key with an ASCII region of a text, in unsigned byte order.
+     */
+    private int compare(int i, CharSequence text, int start, int end) {
+        int keyStart = this.keysStart + this.mapping.getInt(this.offsetsStart + 4 * i);
+        int keyEnd = this.keysStart + this.mapping.getInt(this.offsetsStart + 4 * (i + 1));
+        int length = Math.min(keyEnd - keyStart, end - start);
+        for (int k = 0; k < length; k++) {
+            int cmp = (this.mapping.get(keyStart + k) & 0xFF) - text.charAt(start + k);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return (keyEnd - keyStart) - (end - start);
+    }
+
+    /**
+     * Compares the i-th key with the UTF-8 bytes of a word, in unsigned byte order.
+     */
+    private int compare(int i, byte[] key) {
+        int start = this.keysStart + this.mapping.getInt(this.offsetsStart + 4 * i);
+        int end = this.keysStart + this.mapping.getInt(this.offsetsStart + 4 * (i + 1));
+        int length = Math.min(end - start, key.length);
+        for (int k = 0; k < length; k++) {
+            int cmp = (this.mapping.get(start + k) & 0xFF) - (key[k] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return (end - start) - key.length;
+    }
+
+    /**
+     * Decodes the i-th word.
+     */
+    private String getWord(int i) {
+        int start = this.keysStart + this.mapping.getInt(this.offsetsStart + 4 * i);
+        int end = this.keysStart + this.mapping.getInt(this.offsetsStart + 4 * (i + 1));
+        byte[] bytes = new byte[end - start];
+        for (int k = 0; k < bytes.length; k++) {
+            bytes[k] = this.mapping.get(start + k);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long getCount(int i) {
+        return this.mapping.getLong(HEADER_SIZE + 8 * i);
+    }
+
+    public Long getCorpusSize() {
+        return this.corpusSize;
+    }
+
+    /**
+     * Returns the frequency of a given word, or min frequency if word not found in lexicon.
+     *
+     * @param token A word whose frequency is sought
+     * @return The frequency of the given word
+     */
+    public Long getFrequency(String token) {
+        int i = indexOf(token);
+        return i < 0 ? this.minFrequency : getCount(i);
+    }
+
+    @Override
+    public long getFrequency(String token, long defaultFrequency) {
+        int i = indexOf(token);
+        return i < 0 ? defaultFrequency : getCount(i);
+    }
+
+    @Override
+    public long getFrequency(CharSequence text, int start, int end, long defaultFrequency) {
+        int i = indexOf(text, start, end);
+        return i < 0 ? defaultFrequency : getCount(i);
+    }
+
+    /**
+     * Returns a read-only view of the {word, frequency} pairs, decoded from the mapping as they are iterated over.
+     *
+     * @return A map of the {word, frequency} pairs
+     */
+    public Map<String, Long> getFrequencies() {
+        return new AbstractMap<String, Long>() {
+            @Override
+            public Set<Entry<String, Long>> entrySet() {
+                return new AbstractSet<Entry<String, Long>>() {
+                    @Override
+                    public Iterator<Entry<String, Long>> iterator() {
+                        return new IndexIterator<Entry<String, Long>>() {
+                            @Override
+                            Entry<String, Long> get(int i) {
+                                return new SimpleImmutableEntry<>(getWord(i), getCount(i));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return size;
+                    }
+                };
+            }
+
+            @Override
+            public Long get(Object key) {
+                int i = key instanceof String ? indexOf((String) key) : -1;
+                return i < 0 ? null : getCount(i);
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return key instanceof String && indexOf((String) key) >= 0;
+            }
+        };
+    }
+
+    public Long getMinFrequency() {
+        return this.minFrequency;
+    }
+
+    public Long getMaxFrequency() {
+        return this.maxFrequency;
+    }
+
+    @Override
+    public Double getLogLikelihood(String token) {
+        //use doubleValue() to force result to be double
+        return (-1.0)*Math.log(token.length()*this.getFrequency(token).doubleValue()/this.getCorpusSize());
+    }
+
+    public Long getVocabularySize() {
+        return (long) this.size;
+    }
+
+    public Boolean containsWord(String word) {
+        return indexOf(word) >= 0;
+    }
+
+    @Override
+    public boolean containsWord(CharSequence text, int start, int end) {
+        return indexOf(text, start, end) >= 0;
+    }
+
+    /**
+     * Returns a read-only view of the words in this lexicon, decoded from the mapping as they are iterated over.
+     *
+     * @return All the words in this lexicon.
+     */
+    public Set<String> getWords() {
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new IndexIterator<String>() {
+                    @Override
+                    String get(int i) {
+                        return getWord(i);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof String && indexOf((String) o) >= 0;
+            }
+        };
+    }
+
+    /**
+     * Returns the mapping of the compiled file.
+     *
+     * @return The read-only mapping of the compiled file
+     */
+    public Object getBackBone() {
+        return this.mapping;
+    }
+
+    /**
+     * Iterates over the words of this lexicon in the order they are stored.
+     */
+    private abstract class IndexIterator<T> implements Iterator<T> {
+        private int next = 0;
+
+        abstract T get(int i);
+
+        public boolean hasNext() {
+            return this.next < size;
+        }
+
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return get(this.next++);
+        }
+    }
+}
@@ -19,6 +19,8 @@ package com.dent_in.nlp.lexicon.impl;
 
 import com.dent_in.nlp.lexicon.NgramCorpusLexicon;
 
+import java.util.Map;
+
 import static com.dent_in.nlp.lexicon.Lexicon.TYPE.NGRAMCORPUSLEXICON;
 
 public class NgramCorpusLexiconImpl extends CorpusLexiconImpl
@@ -38,6 +40,18 @@ public class NgramCorpusLexiconImpl extends CorpusLexiconImpl
         this.setType(NGRAMCORPUSLEXICON);
     }
 
+    /**
+     * Creates an n-gram lexicon backed by a given (empty) map of n-gram frequencies.
+     *
+     * @param nsize The value of n
+     * @param ngramFrequencies The map where the n-grams and frequencies will be loaded
+     */
+    protected NgramCorpusLexiconImpl (NGRAMSIZE nsize, Map<String, Long> ngramFrequencies) {
+        super(ngramFrequencies);
+        this.nsize = nsize;
+        this.setType(NGRAMCORPUSLEXICON);
+    }
+
     /**
      * Returns the value of n of this n-gram corpus lexicon.
      * @return The value of n of this n-gram corpus lexicon
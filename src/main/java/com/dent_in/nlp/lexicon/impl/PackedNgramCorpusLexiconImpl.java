@@ -0,0 +1,152 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dent_in.nlp.lexicon.impl;
+
+import com.dent_in.nlp.lexicon.CorpusLexicon;
+import com.dent_in.nlp.lexicon.index.NgramTable;
+import com.dent_in.nlp.lexicon.index.WordFrequencyTable;
+import com.dent_in.nlp.lexicon.utils.LoadErrorCollector;
+
+/**
+ * An n-gram lexicon of every order from bigrams up to its n-gram size (e.g., the count_2w to count_5w lists, loaded
+ * one after the other), backed by an NgramTable, i.e., each n-gram kept as the entry of its context and the id of its
+ * last word rather than as a string, and looked up by the ids of its words.
+ *
+ * As for BigramCorpusLexiconImpl, the ids come from a vocabulary seeded with the words of a unigram lexicon, the words
+ * found in the n-grams only being added with a frequency of -1.
+ */
+public class PackedNgramCorpusLexiconImpl extends NgramCorpusLexiconImpl {
+
+    private final NgramTable table;
+
+    /**
+     * Creates an n-gram lexicon whose vocabulary is seeded with the words and frequencies of a unigram lexicon.
+     *
+     * @param unigramLexicon The unigram counts, loaded beforehand
+     * @param nsize The highest order of the n-grams to be loaded
+     */
+    public PackedNgramCorpusLexiconImpl(CorpusLexicon unigramLexicon, NGRAMSIZE nsize) {
+        this(new NgramTable(BigramCorpusLexiconImpl.newVocabulary(unigramLexicon), nsize.ordinal() + 2), nsize);
+    }
+
+    private PackedNgramCorpusLexiconImpl(NgramTable table, NGRAMSIZE nsize) {
+        super(nsize, table);
+        this.table = table;
+    }
+
+    /**
+     * Returns the ids of the words (i.e., their entry numbers) along with their unigram frequencies.
+     *
+     * @return The vocabulary of this lexicon
+     */
+    public WordFrequencyTable getVocabulary() {
+        return this.table.getVocabulary();
+    }
+
+    /**
+     * Returns the highest order of the n-grams of this lexicon (i.e., n).
+     *
+     * @return The max order
+     */
+    public int getMaxOrder() {
+        return this.table.getMaxOrder();
+    }
+
+    /**
+     * Returns the id of a region of a longer text.
+     *
+     * @param text The text containing the word
+     * @param start The offset of the first character of the word
+     * @param end The offset after the last character of the word
+     * @return The id of the word, or -1 if it is not in the vocabulary
+     */
+    public int getWordId(CharSequence text, int start, int end) {
+        return this.table.getVocabulary().indexOf(text, start, end);
+    }
+
+    /**
+     * Returns the count of the n-gram of a sequence of word ids (the unigram frequency for a single word).
+     *
+     * @param wordIds The ids of the words (negative for unknown words)
+     * @param start The index of the first word of the n-gram
+     * @param end The index after the last word of the n-gram
+     * @param defaultCount The value returned if the n-gram has no count
+     * @return The count of the n-gram, or the default count
+     */
+    public long getCount(int[] wordIds, int start, int end, long defaultCount) {
+        return this.table.getCount(wordIds, start, end, defaultCount);
+    }
+
+    /**
+     * Returns the count of the bigram of two word ids.
+     *
+     * @param first The id of the first word (negative if unknown)
+     * @param second The id of the second word (negative if unknown)
+     * @param defaultCount The value returned if the bigram has no count
+     * @return The count of the bigram, or the default count
+     */
+    public long getCount(int first, int second, long defaultCount) {
+        return this.table.getCount(first, second, defaultCount);
+    }
+
+    @Override
+    public void load(String lexiconFilePath) {
+        super.load(lexiconFilePath);
+        this.table.trimToSize();
+    }
+
+    @Override
+    public LoadErrorCollector load(String lexiconFilePath, int parallelism) {
+        LoadErrorCollector errors = super.load(lexiconFilePath, parallelism);
+        this.table.trimToSize();
+        return errors;
+    }
+
+    @Override
+    public LoadErrorCollector loadShards(String directory, String glob, int parallelism) {
+        LoadErrorCollector errors = super.loadShards(directory, glob, parallelism);
+        this.table.trimToSize();
+        return errors;
+    }
+
+    @Override
+    public Long getFrequency(String token) {
+        return mightContain(token, 0, token.length()) ? this.table.getCount(token, 0, token.length(), this.getMinFrequency()) : this.getMinFrequency();
+    }
+
+    @Override
+    public long getFrequency(String token, long defaultFrequency) {
+        return mightContain(token, 0, token.length()) ? this.table.getCount(token, 0, token.length(), defaultFrequency) : defaultFrequency;
+    }
+
+    @Override
+    public long getFrequency(CharSequence text, int start, int end, long defaultFrequency) {
+        return mightContain(text, start, end) ? this.table.getCount(text, start, end, defaultFrequency) : defaultFrequency;
+    }
+
+    @Override
+    public Boolean containsWord(String word) {
+        return mightContain(word, 0, word.length()) && this.table.getCount(word, 0, word.length(), -1) >= 0;
+    }
+
+    @Override
+    public boolean containsWord(CharSequence text, int start, int end) {
+        return mightContain(text, start, end) && this.table.getCount(text, start, end, -1) >= 0;
+    }
+}
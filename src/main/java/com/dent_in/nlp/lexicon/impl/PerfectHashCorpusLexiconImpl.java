@@ -0,0 +1,176 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dent_in.nlp.lexicon.impl;
+
+import com.dent_in.nlp.lexicon.AbstractLexicon;
+import com.dent_in.nlp.lexicon.CorpusLexicon;
+import com.dent_in.nlp.lexicon.Lexicon;
+import com.dent_in.nlp.lexicon.LexiconFactory;
+import com.dent_in.nlp.lexicon.index.PerfectHashTable;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import static com.dent_in.nlp.lexicon.Lexicon.TYPE.PERFECTHASHCORPUSLEXICON;
+
+/**
+ * A read-only corpus lexicon for serving, backed by a PerfectHashTable built over the words of a loaded lexicon: one
+ * probe a lookup, no load factor, no nodes and no words kept (only a 16-bit fingerprint and the frequency a word), i.e.,
+ * about 10 bytes a word all told.
+ *
+ * Since the words are not kept, getWords() and getFrequencies() are empty, and about 1 in 65536 lookups of words not
+ * in the lexicon find the frequency of another word instead.
+ *
+ * Thread-safe once loaded: the table is immutable and only replaced as a whole by load().
+ */
+public class PerfectHashCorpusLexiconImpl extends AbstractLexicon
+        implements CorpusLexicon {
+
+    private PerfectHashTable table = new PerfectHashTable(Collections.emptyMap());
+    private long corpusSize = 0;
+    private long minFrequency = 0;
+    private long maxFrequency = 0;
+    private long prunedCount = 0;
+    private long prunedMass = 0;
+
+    public PerfectHashCorpusLexiconImpl() {
+        this.setType(PERFECTHASHCORPUSLEXICON);
+    }
+
+    /**
+     * Creates a lexicon of the words and frequencies of a loaded lexicon (e.g., an n-gram one), which is no longer
+     * needed afterwards.
+     *
+     * @param lexicon The loaded lexicon
+     */
+    public PerfectHashCorpusLexiconImpl(CorpusLexicon lexicon) {
+        this();
+        build(lexicon);
+    }
+
+    /**
+     * Loads a (unigram) lexicon file into primitive storage and builds the perfect hash table of its words, replacing
+     * whatever was loaded before.
+     *
+     * @param lexiconFilePath The path to the input file
+     */
+    public void load(String lexiconFilePath) {
+        CorpusLexicon lexicon = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.PRIMITIVECORPUSLEXICON);
+        lexicon.load(lexiconFilePath);
+        build(lexicon);
+    }
+
+    private void build(CorpusLexicon lexicon) {
+        this.table = new PerfectHashTable(lexicon.getFrequencies());
+        this.corpusSize = lexicon.getCorpusSize();
+        this.minFrequency = lexicon.getMinFrequency();
+        this.maxFrequency = lexicon.getMaxFrequency();
+        this.prunedCount = lexicon.getPrunedCount();
+        this.prunedMass = lexicon.getPrunedMass();
+    }
+
+    public Long getCorpusSize() {
+        return this.corpusSize;
+    }
+
+    @Override
+    public long getPrunedCount() {
+        return this.prunedCount;
+    }
+
+    @Override
+    public long getPrunedMass() {
+        return this.prunedMass;
+    }
+
+    /**
+     * Returns the frequency of a given word, or min frequency if word not found in lexicon.
+     *
+     * @param token A word whose frequency is sought
+     * @return The frequency of the given word
+     */
+    public Long getFrequency(String token) {
+        return this.table.getFrequency(token, 0, token.length(), this.minFrequency);
+    }
+
+    @Override
+    public long getFrequency(String token, long defaultFrequency) {
+        return this.table.getFrequency(token, 0, token.length(), defaultFrequency);
+    }
+
+    @Override
+    public long getFrequency(CharSequence text, int start, int end, long defaultFrequency) {
+        return this.table.getFrequency(text, start, end, defaultFrequency);
+    }
+
+    /**
+     * The words are not kept, hence there are no {word, frequency} pairs to return.
+     *
+     * @return An empty map
+     */
+    public Map<String, Long> getFrequencies() {
+        return Collections.emptyMap();
+    }
+
+    public Long getMinFrequency() {
+        return this.minFrequency;
+    }
+
+    public Long getMaxFrequency() {
+        return this.maxFrequency;
+    }
+
+    @Override
+    public Double getLogLikelihood(String token) {
+        double frequency = getFrequency(token, this.minFrequency);
+        return (-1.0)*Math.log(token.length()*frequency/this.corpusSize);
+    }
+
+    public Long getVocabularySize() {
+        return (long) this.table.size();
+    }
+
+    public Boolean containsWord(String word) {
+        return this.table.indexOf(word, 0, word.length()) >= 0;
+    }
+
+    @Override
+    public boolean containsWord(CharSequence text, int start, int end) {
+        return this.table.indexOf(text, start, end) >= 0;
+    }
+
+    /**
+     * The words are not kept, hence there are none to return.
+     *
+     * @return An empty set
+     */
+    public Set<String> getWords() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * Returns the perfect hash table of the words.
+     *
+     * @return The perfect hash table
+     */
+    public Object getBackBone() {
+        return this.table;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dent_in.nlp.lexicon.impl;
+
+import com.dent_in.nlp.lexicon.index.LogProbabilityTable;
+import com.dent_in.nlp.lexicon.index.WordFrequencyTable;
+import com.dent_in.nlp.lexicon.utils.LoadErrorCollector;
+
+import static com.dent_in.nlp.lexicon.Lexicon.TYPE.PRIMITIVECORPUSLEXICON;
+
+/**
+ * A corpus lexicon backed by a WordFrequencyTable instead of a HashMap, i.e., words packed in a char arena and
+ * frequencies in a long[], which takes several times less memory and looks words up without boxing.
+ *
+ * Loaded by LexiconReader like any other corpus lexicon (the table is also a Map).
+ *
+ * The log-probabilities of the words may also be precomputed at load time (see setPrecomputeLogProbabilities()), in a
+ * LogProbabilityTable aligned with the entries of the table, so that getLogProbability() is a lookup and an array read.
+ */
+public class PrimitiveCorpusLexiconImpl extends CorpusLexiconImpl {
+
+    private final WordFrequencyTable table;
+    private boolean precomputeLogProbabilities = false;
+    private LogProbabilityTable logProbabilities = null;
+
+    public PrimitiveCorpusLexiconImpl() {
+        this(new WordFrequencyTable());
+    }
+
+    private PrimitiveCorpusLexiconImpl(WordFrequencyTable table) {
+        super(table);
+        this.table = table;
+        this.setType(PRIMITIVECORPUSLEXICON);
+    }
+
+    /**
+     * Returns the table of the words (e.g., for a vocabulary of n-grams to extend rather than copy it).
+     *
+     * @return The table of the words and their frequencies
+     */
+    public WordFrequencyTable getTable() {
+        return this.table;
+    }
+
+    public boolean getPrecomputeLogProbabilities() {
+        return this.precomputeLogProbabilities;
+    }
+
+    /**
+     * Sets whether the log-probabilities of the words are precomputed by the lists loaded from now on, relative to the
+     * size of the corpus plus the mass of any pruned words (see precomputeLogProbabilities() for another total).
+     *
+     * @param precomputeLogProbabilities True to precompute the log-probabilities at load time, false otherwise
+     */
+    public void setPrecomputeLogProbabilities(boolean precomputeLogProbabilities) {
+        this.precomputeLogProbabilities = precomputeLogProbabilities;
+    }
+
+    /**
+     * Loads a lexicon file and trims the table to its number of words.
+     *
+     * @param lexiconFilePath The path to the input file
+     */
+    @Override
+    public void load(String lexiconFilePath) {
+        super.load(lexiconFilePath);
+        loaded();
+    }
+
+    @Override
+    public LoadErrorCollector load(String lexiconFilePath, int parallelism) {
+        LoadErrorCollector errors = super.load(lexiconFilePath, parallelism);
+        loaded();
+        return errors;
+    }
+
+    @Override
+    public LoadErrorCollector loadShards(String directory, String glob, int parallelism) {
+        LoadErrorCollector errors = super.loadShards(directory, glob, parallelism);
+        loaded();
+        return errors;
+    }
+
+    /**
+     * Trims the table, and precomputes the log-probabilities if asked to (any earlier ones are out of date).
+     */
+    private void loaded() {
+        this.table.trimToSize();
+        this.logProbabilities = null;
+        if (this.precomputeLogProbabilities) {
+            precomputeLogProbabilities(this.getCorpusSize() + this.getPrunedMass());
+        }
+    }
+
+    /**
+     * Precomputes the log-probabilities of the words loaded so far relative to a given total (e.g., the number of
+     * tokens of a corpus whose counts were cut off before they were listed).
+     *
+     * @param numberOfTokens The total number of tokens the frequencies are relative to
+     * @return The precomputed log-probabilities
+     */
+    public LogProbabilityTable precomputeLogProbabilities(long numberOfTokens) {
+        this.logProbabilities = new LogProbabilityTable(this.table, numberOfTokens);
+        return this.logProbabilities;
+    }
+
+    /**
+     * Returns the precomputed log-probabilities of the words.
+     *
+     * @return The log-probabilities, or null if they were not precomputed
+     */
+    public LogProbabilityTable getLogProbabilities() {
+        return this.logProbabilities;
+    }
+
+    /**
+     * Returns the log-probability of a region of a longer text, read from the precomputed log-probabilities if any, or
+     * else computed from its frequency relative to the size of the corpus plus the mass of any pruned words.
+     *
+     * @param text The text containing the query token
+     * @param start The offset of the first character of the token
+     * @param end The offset after the last character of the token
+     * @param defaultLogProbability The value returned if the token is not in the lexicon
+     * @return The log-probability of the token, or the default log-probability
+     */
+    public double getLogProbability(CharSequence text, int start, int end, double defaultLogProbability) {
+        int i = mightContain(text, start, end) ? this.table.indexOf(text, start, end) : -1;
+        if (i < 0) {
+            return defaultLogProbability;
+        }
+        if (this.logProbabilities != null) {
+            return this.logProbabilities.getLogProbability(i, defaultLogProbability);
+        }
+        return Math.log(this.table.getFrequency(i)) - Math.log(this.getCorpusSize() + this.getPrunedMass());
+    }
+
+    /**
+     * Returns the frequency of a given word, or min frequency if word not found in lexicon.
+     *
+     * @param token A word whose frequency is sought
+     * @return The frequency of the given word
+     */
+    @Override
+    public Long getFrequency(String token) {
+        return mightContain(token, 0, token.length()) ? this.table.getFrequency(token, this.getMinFrequency()) : this.getMinFrequency();
+    }
+
+    @Override
+    public long getFrequency(String token, long defaultFrequency) {
+        return mightContain(token, 0, token.length()) ? this.table.getFrequency(token, defaultFrequency) : defaultFrequency;
+    }
+
+    @Override
+    public long getFrequency(CharSequence text, int start, int end, long defaultFrequency) {
+        int i = mightContain(text, start, end) ? this.table.indexOf(text, start, end) : -1;
+        return i < 0 ? defaultFrequency : this.table.getFrequency(i);
+    }
+
+    @Override
+    public Boolean containsWord(String word) {
+        return mightContain(word, 0, word.length()) && this.table.indexOf(word, 0, word.length()) >= 0;
+    }
+
+    @Override
+    public boolean containsWord(CharSequence text, int start, int end) {
+        return mightContain(text, start, end) && this.table.indexOf(text, start, end) >= 0;
+    }
+}
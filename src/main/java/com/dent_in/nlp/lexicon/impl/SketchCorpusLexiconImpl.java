@@ -0,0 +1,121 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dent_in.nlp.lexicon.impl;
+
+import com.dent_in.nlp.lexicon.index.CountMinSketch;
+
+/**
+ * An approximate n-gram corpus lexicon in a fixed memory budget, backed by a CountMinSketch instead of a map: the
+ * n-grams themselves are not kept, only counters, so the memory taken does not grow with the number of n-grams loaded.
+ *
+ * Frequencies may be overestimated (never underestimated), and an n-gram never loaded is taken for a known one if all
+ * its counters were raised by others, which matters less the larger the budget (see CountMinSketch.getErrorBound()).
+ * The words of the lexicon cannot be enumerated, i.e., getWords() and getFrequencies() are empty, and since the words
+ * are not kept there is no Bloom filter in front of the lookups either.
+ *
+ * Loaded by LexiconReader like any other n-gram corpus lexicon (the sketch is also a Map), from the very same files,
+ * with one difference: an n-gram found more than once (within a list, or in several lists loaded one after the other)
+ * has its frequencies summed rather than the last one kept, since counters can only be added to. Lists with repeated
+ * n-grams therefore diverge from the exact lexicons by more than the collisions.
+ */
+public class SketchCorpusLexiconImpl extends NgramCorpusLexiconImpl {
+
+    private final CountMinSketch sketch;
+
+    /**
+     * Creates a bigram lexicon in a memory budget.
+     *
+     * @param memoryBudget The memory taken by the counters of the sketch, in bytes
+     */
+    public SketchCorpusLexiconImpl(long memoryBudget) {
+        this(NGRAMSIZE.BIGRAM, memoryBudget, CountMinSketch.DEFAULT_DEPTH);
+    }
+
+    /**
+     * Creates an n-gram lexicon in a memory budget.
+     *
+     * @param nsize The value of n
+     * @param memoryBudget The memory taken by the counters of the sketch, in bytes
+     * @param depth The number of rows of the sketch
+     */
+    public SketchCorpusLexiconImpl(NGRAMSIZE nsize, long memoryBudget, int depth) {
+        this(nsize, new CountMinSketch(memoryBudget, depth));
+    }
+
+    private SketchCorpusLexiconImpl(NGRAMSIZE nsize, CountMinSketch sketch) {
+        super(nsize, sketch);
+        this.sketch = sketch;
+    }
+
+    /**
+     * Returns the sketch of the n-gram frequencies (e.g., for its size and error bound).
+     *
+     * @return The sketch
+     */
+    public CountMinSketch getSketch() {
+        return this.sketch;
+    }
+
+    /**
+     * Returns the total of all the frequencies loaded, kept by the sketch whatever the number of lists loaded.
+     *
+     * @return The size of the corpus
+     */
+    @Override
+    public Long getCorpusSize() {
+        return this.sketch.getTotal();
+    }
+
+    /**
+     * Returns the number of n-grams loaded (i.e., of lines read, n-grams listed twice counting twice).
+     *
+     * @return The size of the vocabulary
+     */
+    @Override
+    public Long getVocabularySize() {
+        return (long) this.sketch.size();
+    }
+
+    @Override
+    public Long getFrequency(String token) {
+        long estimate = this.sketch.estimate(token, 0, token.length());
+        return estimate > 0 ? estimate : this.getMinFrequency();
+    }
+
+    @Override
+    public long getFrequency(String token, long defaultFrequency) {
+        return getFrequency(token, 0, token.length(), defaultFrequency);
+    }
+
+    @Override
+    public long getFrequency(CharSequence text, int start, int end, long defaultFrequency) {
+        long estimate = this.sketch.estimate(text, start, end);
+        return estimate > 0 ? estimate : defaultFrequency;
+    }
+
+    @Override
+    public Boolean containsWord(String word) {
+        return this.sketch.estimate(word, 0, word.length()) > 0;
+    }
+
+    @Override
+    public boolean containsWord(CharSequence text, int start, int end) {
+        return this.sketch.estimate(text, start, end) > 0;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dent_in.nlp.lexicon.index;
+
+import java.util.Collection;
+
+/**
+ * An Aho-Corasick automaton over the words of a lexicon: the character trie of the words plus, for every node, a
+ * failure link to the node of its longest proper suffix in the trie and a dictionary link to the nearest such suffix
+ * which is a word.
+ *
+ * Scanning a string once from left to right finds every occurrence of every word in it (overlapping ones included),
+ * in time linear in the length of the string plus the number of matches, however large the lexicon.
+ */
+public class AhoCorasickAutomaton extends CharTrie {
+
+    /**
+     * Receives the occurrences of the words found in a string.
+     */
+    @FunctionalInterface
+    public interface MatchListener {
+        /**
+         * Called once per occurrence of a word.
+         *
+         * @param start The start offset of the word in the string
+         * @param end The end offset (exclusive) of the word in the string
+         */
+        void match(int start, int end);
+    }
+
+    //longest proper suffix of a node present in the trie, and the longest such suffix which is a word (-1 if none)
+    private int[] failure;
+    private int[] dictionary;
+    private int[] depth;
+
+    /**
+     * Builds the automaton of a collection of words.
+     *
+     * @param words The words to be indexed
+     */
+    public AhoCorasickAutomaton(Collection<String> words) {
+        super(words);
+        this.failure = new int[this.size];
+        this.dictionary = new int[this.size];
+        this.depth = new int[this.size];
+        this.dictionary[ROOT] = -1;
+
+        //breadth-first, so the failure link of a node is set before the ones of its children
+        int[] queue = new int[this.size];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = ROOT;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int child = this.firstChild[node]; child < this.firstChild[node] + this.childCount[node]; child++) {
+                this.depth[child] = this.depth[node] + 1;
+                int suffix = node == ROOT ? ROOT : next(this.failure[node], this.label[child]);
+                this.failure[child] = suffix;
+                this.dictionary[child] = this.isWord[suffix] ? suffix : this.dictionary[suffix];
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    /**
+     * Moves from a node following a given char, falling back along failure links when the trie has no such child.
+     *
+     * @param node The current node
+     * @param c The char to follow
+     * @return The node of the longest suffix of the text read so far which is present in the trie
+     */
+    private int next(int node, char c) {
+        while (true) {
+            int child = child(node, c);
+            if (child >= 0) {
+                return child;
+            }
+            if (node == ROOT) {
+                return ROOT;
+            }
+            node = this.failure[node];
+        }
+    }
+
+    /**
+     * Finds every occurrence of every word in a region of a string in a single pass. Occurrences are reported in
+     * ascending order of their end offset, longest first for the same end offset.
+     *
+     * @param text The string
+     * @param start The start offset of the region
+     * @param end The end offset (exclusive) of the region
+     * @param listener The receiver of the occurrences found
+     */
+    public void forEachMatch(CharSequence text, int start, int end, MatchListener listener) {
+        int node = ROOT;
+        for (int i = start; i < end; i++) {
+            node = next(node, text.charAt(i));
+            for (int match = this.isWord[node] ? node : this.dictionary[node]; match > 0; match = this.dictionary[match]) {
+                listener.match(i + 1 - this.depth[match], i + 1);
+            }
+        }
+    }
+
+    /**
+     * Finds every occurrence of every word in a string in a single pass.
+     *
+     * @param text The string
+     * @param listener The receiver of the occurrences found
+     */
+    public void forEachMatch(CharSequence text, MatchListener listener) {
+        forEachMatch(text, 0, text.length(), listener);
+    }
+}
@@ -0,0 +1,391 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dent_in.nlp.lexicon.index;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An open-addressing hash table from bigrams to frequencies where a bigram is the pair of the ids of its two words
+ * packed in a long (first << 32 | second), the ids being the entry numbers of the words in a vocabulary (i.e., a
+ * WordFrequencyTable). A bigram costs a long key and a long frequency, i.e., 16 bytes per slot, against a String of both
+ * words for concatenated keys, and is looked up by ids with no string put together.
+ *
+ * The table is also a Map keyed by "first second" (e.g., for LexiconReader to load it through put), the words being
+ * added to the vocabulary as needed with a frequency of -1 (i.e., not a unigram). Entries cannot be removed.
+ *
+ * Once loaded, the table can be turned into a SuccessorIndex (see indexSuccessors()), which then serves all lookups
+ * from sorted rows with no empty slots; putting a bigram afterwards turns it back into a hash table.
+ *
+ * Not thread-safe while loading; safe to read from any number of threads once loaded and safely published.
+ */
+public class BigramTable extends AbstractMap<String, Long> implements KeyValidator {
+
+    //no word has id -1, hence no bigram has this key
+    private static final long EMPTY = -1L;
+
+    private final WordFrequencyTable vocabulary;
+    //linear probing table, at most three quarters full
+    private long[] keys = newKeys(64);
+    private long[] frequencies = new long[64];
+    private int size = 0;
+    //the same bigrams by their first word, instead of the hashed keys once indexed
+    private SuccessorIndex successors = null;
+
+    /**
+     * Creates an empty table whose words are interned in a vocabulary.
+     *
+     * @param vocabulary The ids of the words (e.g., the unigrams, with their frequencies)
+     */
+    public BigramTable(WordFrequencyTable vocabulary) {
+        this.vocabulary = vocabulary;
+    }
+
+    private static long[] newKeys(int capacity) {
+        long[] result = new long[capacity];
+        Arrays.fill(result, EMPTY);
+        return result;
+    }
+
+    /**
+     * Packs the ids of the two words of a bigram into a key.
+     *
+     * @param first The id of the first word
+     * @param second The id of the second word
+     * @return The key of the bigram
+     */
+    public static long key(int first, int second) {
+        return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int slotOf(long key) {
+        int mask = this.keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long k = this.keys[slot];
+            if (k == key || k == EMPTY) {
+                return slot;
+            }
+        }
+    }
+
+    public WordFrequencyTable getVocabulary() {
+        return this.vocabulary;
+    }
+
+    /**
+     * Returns the frequency of a bigram given by the ids of its words, without boxing.
+     *
+     * @param first The id of the first word (negative if it is not in the vocabulary)
+     * @param second The id of the second word (negative if it is not in the vocabulary)
+     * @param defaultFrequency The value returned if the bigram is not in the table
+     * @return The frequency of the bigram, or the default frequency
+     */
+    public long getFrequency(int first, int second, long defaultFrequency) {
+        if (this.successors != null) {
+            return this.successors.getCount(first, second, defaultFrequency);
+        }
+        if (first < 0 || second < 0) {
+            return defaultFrequency;
+        }
+        int slot = slotOf(key(first, second));
+        return this.keys[slot] == EMPTY ? defaultFrequency : this.frequencies[slot];
+    }
+
+    /**
+     * Returns the frequency of a bigram given as two regions of chars (e.g., two words of a string being segmented).
+     *
+     * @param text The text containing the words
+     * @param firstStart The start offset of the first word
+     * @param firstEnd The end offset (exclusive) of the first word
+     * @param secondStart The start offset of the second word
+     * @param secondEnd The end offset (exclusive) of the second word
+     * @param defaultFrequency The value returned if the bigram is not in the table
+     * @return The frequency of the bigram, or the default frequency
+     */
+    public long getFrequency(CharSequence text, int firstStart, int firstEnd, int secondStart, int secondEnd,
+                             long defaultFrequency) {
+        int first = this.vocabulary.indexOf(text, firstStart, firstEnd);
+        return first < 0 ? defaultFrequency
+                : getFrequency(first, this.vocabulary.indexOf(text, secondStart, secondEnd), defaultFrequency);
+    }
+
+    /**
+     * Sets the frequency of a bigram given by the ids of its words, adding it if needed.
+     *
+     * @param first The id of the first word
+     * @param second The id of the second word
+     * @param frequency The frequency
+     * @return The previous frequency of the bigram, or -1 if it was not in the table
+     */
+    public long putFrequency(int first, int second, long frequency) {
+        if (this.successors != null) {
+            unindex();
+        }
+        long key = key(first, second);
+        int slot = slotOf(key);
+        if (this.keys[slot] != EMPTY) {
+            long previous = this.frequencies[slot];
+            this.frequencies[slot] = frequency;
+            return previous;
+        }
+        this.keys[slot] = key;
+        this.frequencies[slot] = frequency;
+        if (4 * ++this.size > 3 * this.keys.length) {
+            rehash(2 * this.keys.length);
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = this.keys;
+        long[] oldFrequencies = this.frequencies;
+        this.keys = newKeys(capacity);
+        this.frequencies = new long[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                this.keys[slot] = oldKeys[i];
+                this.frequencies[slot] = oldFrequencies[i];
+            }
+        }
+    }
+
+    /**
+     * Shrinks the table to the smallest capacity holding its bigrams, once everything has been loaded.
+     */
+    public void trimToSize() {
+        if (this.successors != null) {
+            return;
+        }
+        int capacity = 64;
+        while (4 * this.size > 3 * capacity) {
+            capacity *= 2;
+        }
+        if (capacity < this.keys.length) {
+            rehash(capacity);
+        }
+    }
+
+    /**
+     * Turns the table into an index of the bigrams by their first word, in place of the hashed keys.
+     *
+     * @return The index, which serves every lookup from now on (until a bigram is put)
+     */
+    public SuccessorIndex indexSuccessors() {
+        if (this.successors == null) {
+            long[] sortedKeys = new long[this.size];
+            int n = 0;
+            for (long key : this.keys) {
+                if (key != EMPTY) {
+                    sortedKeys[n++] = key;
+                }
+            }
+            Arrays.sort(sortedKeys);
+            long[] counts = new long[this.size];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = this.frequencies[slotOf(sortedKeys[i])];
+            }
+            this.successors = new SuccessorIndex(sortedKeys, counts, this.vocabulary.size());
+            this.keys = null;
+            this.frequencies = null;
+        }
+        return this.successors;
+    }
+
+    /**
+     * Returns the index of the bigrams by their first word.
+     *
+     * @return The index, or null if the table has not been indexed (see indexSuccessors())
+     */
+    public SuccessorIndex getSuccessorIndex() {
+        return this.successors;
+    }
+
+    /**
+     * Puts the bigrams of the index back into a hash table, e.g., to load more of them.
+     */
+    private void unindex() {
+        SuccessorIndex index = this.successors;
+        int capacity = 64;
+        while (4 * this.size > 3 * capacity) {
+            capacity *= 2;
+        }
+        this.keys = newKeys(2 * capacity);
+        this.frequencies = new long[2 * capacity];
+        this.successors = null;
+        int previous = 0;
+        for (int position = 0; position < index.size(); position++) {
+            while (index.offsetOf(previous + 1) <= position) {
+                previous++;
+            }
+            int slot = slotOf(key(previous, index.successorAt(position)));
+            this.keys[slot] = key(previous, index.successorAt(position));
+            this.frequencies[slot] = index.countAt(position);
+        }
+    }
+
+    /**
+     * Finds the space between the two words of a bigram, or -1 if there is none.
+     */
+    private static int separator(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == ' ') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the frequency of a bigram given as "first second", looked up in place.
+     *
+     * @param text The text containing the bigram
+     * @param start The offset of the first character of the bigram
+     * @param end The offset after the last character of the bigram
+     * @param defaultFrequency The value returned if the bigram is not in the table
+     * @return The frequency of the bigram, or the default frequency
+     */
+    public long getFrequency(CharSequence text, int start, int end, long defaultFrequency) {
+        int space = separator(text, start, end);
+        return space < 0 ? defaultFrequency : getFrequency(text, start, space, space + 1, end, defaultFrequency);
+    }
+
+    /**
+     * Tells whether a key is a bigram, i.e., two words separated by a space.
+     *
+     * @param key The key
+     * @return True if the key may be put, false otherwise
+     */
+    @Override
+    public boolean isValidKey(CharSequence key) {
+        return separator(key, 0, key.length()) >= 0;
+    }
+
+    private int intern(String word) {
+        int id = this.vocabulary.indexOf(word, 0, word.length());
+        return id < 0 ? this.vocabulary.putFrequency(word, -1) : id;
+    }
+
+    ////////////// MAP VIEW /////////////////////////////
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof CharSequence && getFrequency((CharSequence) key, 0, ((CharSequence) key).length(), -1) >= 0;
+    }
+
+    @Override
+    public Long get(Object key) {
+        if (!(key instanceof CharSequence)) {
+            return null;
+        }
+        long frequency = getFrequency((CharSequence) key, 0, ((CharSequence) key).length(), -1);
+        return frequency < 0 ? null : frequency;
+    }
+
+    @Override
+    public Long put(String key, Long value) {
+        int space = separator(key, 0, key.length());
+        if (space < 0) {
+            throw new IllegalArgumentException("Not a bigram: " + key);
+        }
+        long previous = putFrequency(intern(key.substring(0, space)), intern(key.substring(space + 1)), value);
+        return previous < 0 ? null : previous;
+    }
+
+    @Override
+    public Set<Entry<String, Long>> entrySet() {
+        return new AbstractSet<Entry<String, Long>>() {
+            @Override
+            public Iterator<Entry<String, Long>> iterator() {
+                if (successors != null) {
+                    return indexIterator(successors);
+                }
+                return new Iterator<Entry<String, Long>>() {
+                    private int slot = advance(0);
+
+                    private int advance(int from) {
+                        while (from < keys.length && keys[from] == EMPTY) {
+                            from++;
+                        }
+                        return from;
+                    }
+
+                    public boolean hasNext() {
+                        return this.slot < keys.length;
+                    }
+
+                    public Entry<String, Long> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        long key = keys[this.slot];
+                        long frequency = frequencies[this.slot];
+                        this.slot = advance(this.slot + 1);
+                        return entry((int) (key >>> 32), (int) key, frequency);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private Iterator<Entry<String, Long>> indexIterator(SuccessorIndex index) {
+        return new Iterator<Entry<String, Long>>() {
+            private int position = 0;
+            private int previous = 0;
+
+            public boolean hasNext() {
+                return this.position < index.size();
+            }
+
+            public Entry<String, Long> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                while (index.offsetOf(this.previous + 1) <= this.position) {
+                    this.previous++;
+                }
+                int p = this.position++;
+                return entry(this.previous, index.successorAt(p), index.countAt(p));
+            }
+        };
+    }
+
+    private Entry<String, Long> entry(int first, int second, long frequency) {
+        return new SimpleImmutableEntry<>(this.vocabulary.getWord(first) + ' ' + this.vocabulary.getWord(second), frequency);
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dent_in.nlp.lexicon.index;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A blocked Bloom filter of words, to reject most lookups of words that are not in a lexicon before they reach its
+ * hash table (during segmentation most of the substrings looked up are not words).
+ *
+ * Each word is hashed once, in place in its text (i.e., a region of a longer text needs no substring), and all its bits
+ * are set in the same 512-bit block, so a lookup reads a single cache line whatever the number of hash functions.
+ * Blocks cost a little accuracy, made up for by sizing the filter for half the false positive rate asked for.
+ *
+ * The filter counts the lookups it lets through (hits, i.e., maybe in the lexicon) and the ones it rejects (misses).
+ * Thread-safe once built: the bits are never written again and the counters are LongAdders.
+ */
+public final class BloomFilter {
+
+    private static final int BLOCK_BITS = 512;
+    private static final int LONGS_PER_BLOCK = BLOCK_BITS / Long.SIZE;
+    private static final int MAX_HASHES = 16;
+    private static final double LOG_2 = Math.log(2);
+
+    private final long[] bits;
+    private final int numberOfBlocks;
+    private final int numberOfHashes;
+    private final double falsePositiveRate;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates an empty filter sized for a number of words.
+     *
+     * @param expectedSize The number of words to be added
+     * @param falsePositiveRate The rate of lookups of words not added which are let through (e.g., 0.01)
+     */
+    public BloomFilter(int expectedSize, double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False positive rate not in (0, 1): " + falsePositiveRate);
+        }
+        this.falsePositiveRate = falsePositiveRate;
+        //optimal bits per word and hashes of a standard filter, for half the rate to make up for the blocks
+        double bitsPerWord = -Math.log(falsePositiveRate / 2) / (LOG_2 * LOG_2);
+        this.numberOfHashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round(bitsPerWord * LOG_2)));
+        long numberOfBits = (long) Math.ceil(Math.max(1, expectedSize) * bitsPerWord);
+        this.numberOfBlocks = (int) Math.min(Integer.MAX_VALUE / LONGS_PER_BLOCK, (numberOfBits + BLOCK_BITS - 1) / BLOCK_BITS);
+        this.bits = new long[this.numberOfBlocks * LONGS_PER_BLOCK];
+    }
+
+    /**
+     * Creates a filter of a collection of words.
+     *
+     * @param words The words
+     * @param falsePositiveRate The rate of lookups of other words which are let through (e.g., 0.01)
+     * @return The filter
+     */
+    public static BloomFilter of(Collection<? extends CharSequence> words, double falsePositiveRate) {
+        BloomFilter filter = new BloomFilter(words.size(), falsePositiveRate);
+        for (CharSequence word : words) {
+            filter.add(word, 0, word.length());
+        }
+        return filter;
+    }
+
+    /**
+     * Returns the first long of the block of a hash (from its high 32 bits, with a multiply rather than a modulo).
+     */
+    private int blockOf(long hash) {
+        return (int) (((hash >>> 32) * this.numberOfBlocks) >>> 32) * LONGS_PER_BLOCK;
+    }
+
+    /**
+     * Adds a region of a longer text.
+     *
+     * @param text The text containing the word
+     * @param start The offset of the first character of the word
+     * @param end The offset after the last character of the word
+     */
+    public void add(CharSequence text, int start, int end) {
+        long hash = RegionHash.hash(text, start, end);
+        int block = blockOf(hash);
+        //the bits within the block by double hashing of the low 32 bits
+        int h1 = (int) hash;
+        int h2 = (h1 >>> 16) | 1;
+        for (int i = 0; i < this.numberOfHashes; i++) {
+            int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+            this.bits[block + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Tells whether a region of a longer text may have been added: false means it was not, true means it was unless
+     * it is a false positive.
+     *
+     * @param text The text containing the word
+     * @param start The offset of the first character of the word
+     * @param end The offset after the last character of the word
+     * @return False if the word was not added, true otherwise
+     */
+    public boolean mightContain(CharSequence text, int start, int end) {
+        long hash = RegionHash.hash(text, start, end);
+        int block = blockOf(hash);
+        int h1 = (int) hash;
+        int h2 = (h1 >>> 16) | 1;
+        for (int i = 0; i < this.numberOfHashes; i++) {
+            int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+            if ((this.bits[block + (bit >>> 6)] & (1L << bit)) == 0) {
+                this.misses.increment();
+                return false;
+            }
+        }
+        this.hits.increment();
+        return true;
+    }
+
+    public double getFalsePositiveRate() {
+        return this.falsePositiveRate;
+    }
+
+    public int getNumberOfHashes() {
+        return this.numberOfHashes;
+    }
+
+    /**
+     * Returns the memory taken by the bits of the filter.
+     *
+     * @return The size of the bits in bytes
+     */
+    public long getSizeInBytes() {
+        return (long) this.bits.length * Long.BYTES;
+    }
+
+    /**
+     * Returns the number of lookups let through since the counters were last reset.
+     *
+     * @return The number of lookups of words which may be in the filter
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups rejected since the counters were last reset.
+     *
+     * @return The number of lookups of words which are not in the filter
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Resets the hit and miss counters.
+     */
+    public void resetCounters() {
+        this.hits.reset();
+        this.misses.reset();
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dent_in.nlp.lexicon.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * A character trie over the words of a lexicon, laid out in flat arrays: the children of a node are numbered
+ * consecutively and sorted by their label, so moving down the trie is a binary search over a few chars.
+ *
+ * It answers "which words of the lexicon start at this offset of a string" in a single walk, without creating a
+ * substring for every candidate prefix.
+ */
+public class CharTrie {
+
+    protected static final int ROOT = 0;
+
+    //children of node x are nodes firstChild[x] to firstChild[x]+childCount[x]-1, labelled with label[child]
+    protected int[] firstChild;
+    protected int[] childCount;
+    protected char[] label;
+    protected boolean[] isWord;
+    protected int size = 0;
+    private int maxLength = 0;
+
+    /**
+     * Builds the trie of a collection of words.
+     *
+     * @param words The words to be indexed
+     */
+    public CharTrie(Collection<String> words) {
+        List<String> sorted = new ArrayList<>(words);
+        sorted.sort(null);
+        int capacity = 16;
+        this.firstChild = new int[capacity];
+        this.childCount = new int[capacity];
+        this.label = new char[capacity];
+        this.isWord = new boolean[capacity];
+        this.size = 1; //the root
+        build(sorted, 0, sorted.size(), 0, ROOT);
+        //trim to size
+        this.firstChild = Arrays.copyOf(this.firstChild, this.size);
+        this.childCount = Arrays.copyOf(this.childCount, this.size);
+        this.label = Arrays.copyOf(this.label, this.size);
+        this.isWord = Arrays.copyOf(this.isWord, this.size);
+    }
+
+    /**
+     * Creates the children of a node from the range of sorted words sharing its prefix of a given depth.
+     *
+     * @param words The sorted words
+     * @param from The first word in the range
+     * @param to The end (exclusive) of the range
+     * @param depth The length of the prefix shared by the words in the range
+     * @param node The node of that prefix
+     */
+    private void build(List<String> words, int from, int to, int depth, int node) {
+        //the shortest word in the range (i.e., the prefix itself) comes first, duplicates are skipped
+        while (from < to && words.get(from).length() == depth) {
+            this.isWord[node] = true;
+            this.maxLength = Math.max(this.maxLength, depth);
+            from++;
+        }
+        //first pass, count the children so that they get consecutive numbers
+        int count = 0;
+        for (int i = from; i < to; ) {
+            char c = words.get(i).charAt(depth);
+            while (i < to && words.get(i).charAt(depth) == c) {
+                i++;
+            }
+            count++;
+        }
+        ensureCapacity(this.size + count);
+        this.firstChild[node] = this.size;
+        this.childCount[node] = count;
+        this.size += count;
+        //second pass, label the children and build each one of them
+        int child = this.firstChild[node];
+        for (int i = from; i < to; child++) {
+            char c = words.get(i).charAt(depth);
+            int j = i;
+            while (j < to && words.get(j).charAt(depth) == c) {
+                j++;
+            }
+            this.label[child] = c;
+            build(words, i, j, depth + 1, child);
+            i = j;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.label.length) {
+            int newCapacity = Math.max(capacity, this.label.length * 2);
+            this.firstChild = Arrays.copyOf(this.firstChild, newCapacity);
+            this.childCount = Arrays.copyOf(this.childCount, newCapacity);
+            this.label = Arrays.copyOf(this.label, newCapacity);
+            this.isWord = Arrays.copyOf(this.isWord, newCapacity);
+        }
+    }
+
+    /**
+     * Moves down from a node following a given char.
+     *
+     * @param node The current node
+     * @param c The char to follow
+     * @return The child labelled with the char, or -1 if none
+     */
+    protected int child(int node, char c) {
+        int low = this.firstChild[node];
+        int high = low + this.childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midLabel = this.label[mid];
+            if (midLabel < c) {
+                low = mid + 1;
+            } else if (midLabel > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if a region of a string is a word of the trie.
+     *
+     * @param text The string
+     * @param start The start offset of the region
+     * @param end The end offset (exclusive) of the region
+     * @return True if the region is a word, false otherwise
+     */
+    public boolean contains(CharSequence text, int start, int end) {
+        int node = ROOT;
+        for (int i = start; i < end && node >= 0; i++) {
+            node = child(node, text.charAt(i));
+        }
+        return node >= 0 && this.isWord[node];
+    }
+
+    /**
+     * Checks if a string is a word of the trie.
+     *
+     * @param word The string
+     * @return True if the string is a word, false otherwise
+     */
+    public boolean contains(CharSequence word) {
+        return contains(word, 0, word.length());
+    }
+
+    /**
+     * Walks the trie along a string from a given offset and reports the end offset of every word found on the way
+     * (i.e., every word of the trie which is a prefix of the string from that offset), shortest first.
+     *
+     * @param text The string
+     * @param start The offset where the words start
+     * @param end The offset (exclusive) beyond which words are not sought
+     * @param endOffsets The receiver of the end offsets of the words found
+     */
+    public void forEachPrefix(CharSequence text, int start, int end, IntConsumer endOffsets) {
+        int node = ROOT;
+        for (int i = start; i < end; i++) {
+            node = child(node, text.charAt(i));
+            if (node < 0) {
+                break;
+            }
+            if (this.isWord[node]) {
+                endOffsets.accept(i + 1);
+            }
+        }
+    }
+
+    /**
+     * Returns the length of the longest word in the trie.
+     *
+     * @return The length of the longest word
+     */
+    public int getMaxLength() {
+        return this.maxLength;
+    }
+
+    /**
+     * Returns the number of nodes of the trie (i.e., of distinct prefixes of its words, including the empty one).
+     *
+     * @return The number of nodes
+     */
+    public int size() {
+        return this.size;
+    }
+}
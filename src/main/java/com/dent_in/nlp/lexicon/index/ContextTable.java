@@ -0,0 +1,142 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dent_in.nlp.lexicon.index;
+
+import java.util.Arrays;
+
+/**
+ * The n-grams of one order of an NgramTable, each one keyed by the entry number of its context (i.e., the (n-1)-gram
+ * before its last word, or the id of the word before it for a bigram) and the id of its last word, packed in a long.
+ * Entries are numbered densely so that they can be the contexts of the next order, and those only seen as contexts
+ * have a count of -1. An entry costs a long key, a long count and at most two int slots.
+ */
+final class ContextTable {
+
+    private static final int EMPTY = -1;
+
+    private long[] keys = new long[64];
+    private long[] counts = new long[64];
+    private int size = 0;
+    //linear probing table of entry numbers, at most half full
+    private int[] slots = newSlots(128);
+
+    private static int[] newSlots(int capacity) {
+        int[] result = new int[capacity];
+        Arrays.fill(result, EMPTY);
+        return result;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Finds the entry of an n-gram.
+     *
+     * @param context The entry number of the context (negative if unknown)
+     * @param word The id of the last word (negative if unknown)
+     * @return The entry number, or -1 if the n-gram is not in the table
+     */
+    int indexOf(int context, int word) {
+        if (context < 0 || word < 0) {
+            return -1;
+        }
+        long key = BigramTable.key(context, word);
+        int mask = this.slots.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int entry = this.slots[slot];
+            if (entry == EMPTY || this.keys[entry] == key) {
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * Finds the entry of an n-gram, adding it with a count of -1 if needed.
+     *
+     * @param context The entry number of the context
+     * @param word The id of the last word
+     * @return The entry number
+     */
+    int intern(int context, int word) {
+        int entry = indexOf(context, word);
+        if (entry >= 0) {
+            return entry;
+        }
+        entry = this.size++;
+        if (entry == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, Math.max(64, 2 * entry));
+            this.counts = Arrays.copyOf(this.counts, Math.max(64, 2 * entry));
+        }
+        this.keys[entry] = BigramTable.key(context, word);
+        this.counts[entry] = -1;
+        if (2 * this.size > this.slots.length) {
+            rehash(2 * this.slots.length);
+        } else {
+            insert(this.slots, entry);
+        }
+        return entry;
+    }
+
+    private void insert(int[] table, int entry) {
+        int mask = table.length - 1;
+        int slot = hash(this.keys[entry]) & mask;
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = entry;
+    }
+
+    private void rehash(int capacity) {
+        int[] table = newSlots(capacity);
+        for (int entry = 0; entry < this.size; entry++) {
+            insert(table, entry);
+        }
+        this.slots = table;
+    }
+
+    int getContext(int entry) {
+        return (int) (this.keys[entry] >>> 32);
+    }
+
+    int getWord(int entry) {
+        return (int) this.keys[entry];
+    }
+
+    long getCount(int entry) {
+        return this.counts[entry];
+    }
+
+    void setCount(int entry, long count) {
+        this.counts[entry] = count;
+    }
+
+    /**
+     * Trims the arrays to the number of entries, once everything has been loaded.
+     */
+    void trimToSize() {
+        this.keys = Arrays.copyOf(this.keys, this.size);
+        this.counts = Arrays.copyOf(this.counts, this.size);
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dent_in.nlp.lexicon.index;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * A count-min sketch of n-gram frequencies in a fixed memory budget: depth rows of width counters, each n-gram adding
+ * its frequency to one counter per row, and its frequency estimated as the least of its counters. Estimates are never
+ * below the true frequencies, and with conservative update (i.e., counters only raised as far as the new estimate) they
+ * are above by less than e/width of the total with probability 1 - e^-depth, see getErrorBound().
+ *
+ * The n-grams themselves are not kept, hence an n-gram never added is told apart only if one of its counters is 0.
+ * The sketch is also a Map (e.g., for LexiconReader to load it through put), whose put() adds to the frequency rather
+ * than replacing it (counters can only be raised), does not tell the previous frequency, and whose entrySet() is empty
+ * since the keys cannot be enumerated.
+ *
+ * Not thread-safe while loading; safe to read from any number of threads once loaded and safely published.
+ */
+public final class CountMinSketch extends AbstractMap<String, Long> {
+
+    public static final int DEFAULT_DEPTH = 4;
+
+    //row i is counters[i*width to (i+1)*width-1]
+    private final long[] counters;
+    private final int depth;
+    private final int width;
+    private long total = 0;
+    private int size = 0;
+
+    /**
+     * Creates an empty sketch of the default depth.
+     *
+     * @param memoryBudget The memory taken by the counters, in bytes
+     */
+    public CountMinSketch(long memoryBudget) {
+        this(memoryBudget, DEFAULT_DEPTH);
+    }
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param memoryBudget The memory taken by the counters, in bytes
+     * @param depth The number of rows, i.e., of counters an n-gram is added to
+     */
+    public CountMinSketch(long memoryBudget, int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth less than 1: " + depth);
+        }
+        this.depth = depth;
+        this.width = (int) Math.max(1, Math.min(Integer.MAX_VALUE / depth, memoryBudget / ((long) Long.BYTES * depth)));
+        this.counters = new long[this.depth * this.width];
+    }
+
+    /**
+     * Returns the counter of a hash in a row (double hashing of the two halves of the hash).
+     */
+    private int counterOf(long hash, int row) {
+        long h = hash + row * (Long.rotateLeft(hash, 32) | 1);
+        return row * this.width + (int) Long.remainderUnsigned(h, this.width);
+    }
+
+    /**
+     * Adds the frequency of a region of a longer text, raising its counters no further than its new estimate.
+     *
+     * @param text The text containing the n-gram
+     * @param start The offset of the first character of the n-gram
+     * @param end The offset after the last character of the n-gram
+     * @param frequency The frequency to add
+     */
+    public void add(CharSequence text, int start, int end, long frequency) {
+        long hash = RegionHash.hash(text, start, end);
+        long estimate = estimate(hash) + frequency;
+        for (int row = 0; row < this.depth; row++) {
+            int counter = counterOf(hash, row);
+            if (this.counters[counter] < estimate) {
+                this.counters[counter] = estimate;
+            }
+        }
+        this.total += frequency;
+        this.size++;
+    }
+
+    /**
+     * Estimates the frequency of a region of a longer text.
+     *
+     * @param text The text containing the n-gram
+     * @param start The offset of the first character of the n-gram
+     * @param end The offset after the last character of the n-gram
+     * @return The estimated frequency, 0 if the n-gram was never added
+     */
+    public long estimate(CharSequence text, int start, int end) {
+        return estimate(RegionHash.hash(text, start, end));
+    }
+
+    private long estimate(long hash) {
+        long result = Long.MAX_VALUE;
+        for (int row = 0; row < this.depth; row++) {
+            result = Math.min(result, this.counters[counterOf(hash, row)]);
+        }
+        return result;
+    }
+
+    public int getDepth() {
+        return this.depth;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Returns the memory taken by the counters.
+     *
+     * @return The size of the counters in bytes
+     */
+    public long getSizeInBytes() {
+        return (long) this.counters.length * Long.BYTES;
+    }
+
+    /**
+     * Returns the total of the frequencies added.
+     *
+     * @return The total frequency
+     */
+    public long getTotal() {
+        return this.total;
+    }
+
+    /**
+     * Returns how far above its true frequency an estimate may be, with probability 1 - e^-depth.
+     *
+     * @return e/width of the total frequency
+     */
+    public double getErrorBound() {
+        return Math.E / this.width * this.total;
+    }
+
+    ////////////// MAP VIEW /////////////////////////////
+
+    /**
+     * Returns the number of times a frequency was added (i.e., the number of n-grams if each is listed once).
+     *
+     * @return The number of frequencies added
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Long get(Object key) {
+        if (!(key instanceof CharSequence)) {
+            return null;
+        }
+        long estimate = estimate((CharSequence) key, 0, ((CharSequence) key).length());
+        return estimate > 0 ? estimate : null;
+    }
+
+    /**
+     * Adds the frequency of an n-gram, i.e., unlike Map.put(), the frequencies of an n-gram put more than once add up.
+     *
+     * @param key The n-gram
+     * @param value The frequency added
+     * @return null, the previous frequency is not known
+     */
+    @Override
+    public Long put(String key, Long value) {
+        add(key, 0, key.length(), value);
+        return null;
+    }
+
+    @Override
+    public Set<Entry<String, Long>> entrySet() {
+        return Collections.emptySet();
+    }
+}
@@ -0,0 +1,509 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dent_in.nlp.lexicon.index;
+
+import com.dent_in.nlp.lexicon.exception.FrequencyListFileFormatException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * A minimal deterministic acyclic automaton of words (a DAWG), i.e., a trie whose common suffixes are shared as well as
+ * its common prefixes, used as a finite-state transducer from the words to their frequencies: each transition outputs
+ * the number of words it skips, so the outputs along the path of a word add up to its rank in the sorted words, which
+ * indexes a long[] of frequencies.
+ *
+ * The automaton lives in a single (big-endian) ByteBuffer, on the heap once built, or memory-mapped from a file written
+ * by write(), laid out as follows:
+ * <pre>
+ *   int  MAGIC, int VERSION, int number of words (n), int number of states (s), int number of transitions (t), int root
+ *   long total, long min, long max of the frequencies
+ *   int[s+1]  first transition of each state shifted left by one, or'ed with 1 if the state is final
+ *   char[t]   labels of the transitions, sorted within each state
+ *   int[t]    targets of the transitions
+ *   int[t]    outputs of the transitions
+ *   long[n]   frequencies, in the order of the words (i.e., of char values)
+ * </pre>
+ * A transition costs 10 bytes and a word 8 more for its frequency; with suffixes shared, English words take about 2
+ * transitions each, against well over 100 bytes for a HashMap entry. A single buffer is used, hence files are limited
+ * to 2GB.
+ *
+ * Immutable, hence safe to read from any number of threads once safely published (the buffer is only read with
+ * absolute gets).
+ */
+public final class Dawg {
+
+    public static final int MAGIC = 0x504E5744; //PNWD
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 48;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int numberOfStates;
+    private final int numberOfTransitions;
+    private final int root;
+    private final int statesStart;
+    private final int labelsStart;
+    private final int targetsStart;
+    private final int outputsStart;
+    private final int frequenciesStart;
+
+    /**
+     * Builds the automaton of words and their frequencies.
+     *
+     * @param frequencies The words and their frequencies
+     * @throws FrequencyListFileFormatException If the automaton would be larger than 2GB
+     */
+    public Dawg(Map<String, Long> frequencies) {
+        this(build(frequencies));
+    }
+
+    private Dawg(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new FrequencyListFileFormatException("Not a compiled automaton of words");
+        }
+        this.buffer = buffer;
+        this.size = buffer.getInt(8);
+        this.numberOfStates = buffer.getInt(12);
+        this.numberOfTransitions = buffer.getInt(16);
+        this.root = buffer.getInt(20);
+        this.statesStart = HEADER_SIZE;
+        this.labelsStart = this.statesStart + 4 * (this.numberOfStates + 1);
+        this.targetsStart = this.labelsStart + 2 * this.numberOfTransitions;
+        this.outputsStart = this.targetsStart + 4 * this.numberOfTransitions;
+        this.frequenciesStart = this.outputsStart + 4 * this.numberOfTransitions;
+    }
+
+    /**
+     * Maps an automaton written by write().
+     *
+     * @param path The path of the file
+     * @return The automaton, served from the page cache rather than the heap
+     * @throws IOException If the file cannot be mapped
+     * @throws FrequencyListFileFormatException If the file is not an automaton of words
+     */
+    public static Dawg map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new FrequencyListFileFormatException("Compiled automaton larger than 2GB: " + path);
+            }
+            return new Dawg(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes the automaton, to be mapped by map().
+     *
+     * @param path The path of the file
+     * @throws IOException If the file cannot be written
+     */
+    public void write(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer contents = this.buffer.duplicate();
+            contents.clear();
+            while (contents.hasRemaining()) {
+                channel.write(contents);
+            }
+        }
+    }
+
+    ////////////// CONSTRUCTION /////////////////////////////
+
+    /**
+     * A state while the automaton is built. Its transitions only change until it is registered, hence the register may
+     * hash it by its finality and its transitions (whose targets are registered already).
+     */
+    private static final class State {
+        boolean isFinal = false;
+        char[] labels = new char[2];
+        State[] targets = new State[2];
+        int numberOfTransitions = 0;
+        int id = -1;
+        int numberOfWords = 0;
+
+        void add(char label, State target) {
+            if (this.numberOfTransitions == this.labels.length) {
+                this.labels = Arrays.copyOf(this.labels, 2 * this.labels.length);
+                this.targets = Arrays.copyOf(this.targets, 2 * this.targets.length);
+            }
+            this.labels[this.numberOfTransitions] = label;
+            this.targets[this.numberOfTransitions++] = target;
+        }
+
+        State last() {
+            return this.targets[this.numberOfTransitions - 1];
+        }
+
+        @Override
+        public int hashCode() {
+            int h = this.isFinal ? 1 : 0;
+            for (int i = 0; i < this.numberOfTransitions; i++) {
+                h = 31 * (31 * h + this.labels[i]) + this.targets[i].id;
+            }
+            return h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof State)) {
+                return false;
+            }
+            State other = (State) o;
+            if (this.isFinal != other.isFinal || this.numberOfTransitions != other.numberOfTransitions) {
+                return false;
+            }
+            for (int i = 0; i < this.numberOfTransitions; i++) {
+                if (this.labels[i] != other.labels[i] || this.targets[i] != other.targets[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Builds the minimal automaton of the sorted words incrementally (Daciuk et al.): once the next word leaves the path
+     * of the previous one, the states of that path below the common prefix are final, and each is replaced by an equal
+     * registered state, if any, or else registered.
+     */
+    private static ByteBuffer build(Map<String, Long> frequencies) {
+        List<String> words = new ArrayList<>(frequencies.keySet());
+        Collections.sort(words);
+        Map<State, State> register = new HashMap<>();
+        List<State> states = new ArrayList<>();
+        int transitions = 0;
+        State[] path = new State[16];
+        path[0] = new State();
+        String previous = "";
+        for (String word : words) {
+            int common = 0;
+            while (common < word.length() && common < previous.length() && word.charAt(common) == previous.charAt(common)) {
+                common++;
+            }
+            transitions += replaceOrRegister(path, common, previous.length(), register, states);
+            if (word.length() >= path.length) {
+                path = Arrays.copyOf(path, 2 * word.length());
+            }
+            for (int i = common; i < word.length(); i++) {
+                path[i + 1] = new State();
+                path[i].add(word.charAt(i), path[i + 1]);
+            }
+            path[word.length()].isFinal = true;
+            previous = word;
+        }
+        transitions += replaceOrRegister(path, 0, previous.length(), register, states);
+        transitions += register(path[0], states);
+
+        int n = words.size();
+        long bytes = HEADER_SIZE + 4L * (states.size() + 1) + 10L * transitions + 8L * n;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new FrequencyListFileFormatException("Compiled automaton would be larger than 2GB");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) bytes);
+        long total = 0;
+        long min = n == 0 ? 0 : Long.MAX_VALUE;
+        long max = n == 0 ? 0 : Long.MIN_VALUE;
+        int frequenciesStart = HEADER_SIZE + 4 * (states.size() + 1) + 10 * transitions;
+        for (int rank = 0; rank < n; rank++) {
+            long frequency = frequencies.get(words.get(rank));
+            total += frequency;
+            min = Math.min(min, frequency);
+            max = Math.max(max, frequency);
+            buffer.putLong(frequenciesStart + 8 * rank, frequency);
+        }
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, n).putInt(12, states.size()).putInt(16, transitions)
+                .putInt(20, path[0].id).putLong(24, total).putLong(32, min).putLong(40, max);
+
+        int labelsStart = HEADER_SIZE + 4 * (states.size() + 1);
+        int targetsStart = labelsStart + 2 * transitions;
+        int outputsStart = targetsStart + 4 * transitions;
+        int transition = 0;
+        for (State state : states) {
+            buffer.putInt(HEADER_SIZE + 4 * state.id, (transition << 1) | (state.isFinal ? 1 : 0));
+            int output = state.isFinal ? 1 : 0;
+            for (int i = 0; i < state.numberOfTransitions; i++, transition++) {
+                buffer.putChar(labelsStart + 2 * transition, state.labels[i]);
+                buffer.putInt(targetsStart + 4 * transition, state.targets[i].id);
+                buffer.putInt(outputsStart + 4 * transition, output);
+                output += state.targets[i].numberOfWords;
+            }
+        }
+        buffer.putInt(HEADER_SIZE + 4 * states.size(), transition << 1);
+        return buffer;
+    }
+
+    /**
+     * Replaces or registers the states of the path from depth to down to depth from + 1.
+     *
+     * @return The number of transitions of the states registered
+     */
+    private static int replaceOrRegister(State[] path, int from, int to, Map<State, State> register, List<State> states) {
+        int transitions = 0;
+        for (int i = to; i > from; i--) {
+            State state = path[i];
+            State registered = register.get(state);
+            if (registered != null) {
+                path[i - 1].targets[path[i - 1].numberOfTransitions - 1] = registered;
+            } else {
+                transitions += register(state, states);
+                register.put(state, state);
+            }
+        }
+        return transitions;
+    }
+
+    private static int register(State state, List<State> states) {
+        state.id = states.size();
+        state.numberOfWords = state.isFinal ? 1 : 0;
+        for (int i = 0; i < state.numberOfTransitions; i++) {
+            state.numberOfWords += state.targets[i].numberOfWords;
+        }
+        states.add(state);
+        return state.numberOfTransitions;
+    }
+
+    ////////////// LOOKUPS /////////////////////////////
+
+    private int firstTransition(int state) {
+        return this.buffer.getInt(this.statesStart + 4 * state) >>> 1;
+    }
+
+    private boolean isFinal(int state) {
+        return (this.buffer.getInt(this.statesStart + 4 * state) & 1) != 0;
+    }
+
+    private char label(int transition) {
+        return this.buffer.getChar(this.labelsStart + 2 * transition);
+    }
+
+    private int target(int transition) {
+        return this.buffer.getInt(this.targetsStart + 4 * transition);
+    }
+
+    private int output(int transition) {
+        return this.buffer.getInt(this.outputsStart + 4 * transition);
+    }
+
+    /**
+     * Finds the transition of a state on a char by binary search over its sorted labels.
+     *
+     * @return The transition, or -1 if there is none
+     */
+    private int transition(int state, char c) {
+        int low = firstTransition(state);
+        int high = firstTransition(state + 1) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char label = label(mid);
+            if (label < c) {
+                low = mid + 1;
+            } else if (label > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the rank of a region of a longer text among the sorted words.
+     *
+     * @param text The text containing the word
+     * @param start The offset of the first character of the word
+     * @param end The offset after the last character of the word
+     * @return The rank of the word, or -1 if it is not in the automaton
+     */
+    public int indexOf(CharSequence text, int start, int end) {
+        if (this.size == 0) {
+            return -1;
+        }
+        int state = this.root;
+        int rank = 0;
+        for (int i = start; i < end; i++) {
+            int transition = transition(state, text.charAt(i));
+            if (transition < 0) {
+                return -1;
+            }
+            rank += output(transition);
+            state = target(transition);
+        }
+        return isFinal(state) ? rank : -1;
+    }
+
+    /**
+     * Returns the frequency of a region of a longer text.
+     *
+     * @param text The text containing the word
+     * @param start The offset of the first character of the word
+     * @param end The offset after the last character of the word
+     * @param defaultFrequency The value returned if the word is not in the automaton
+     * @return The frequency of the word, or the default frequency
+     */
+    public long getFrequency(CharSequence text, int start, int end, long defaultFrequency) {
+        int rank = indexOf(text, start, end);
+        return rank < 0 ? defaultFrequency : getFrequency(rank);
+    }
+
+    /**
+     * Returns the frequency of the word of a given rank.
+     *
+     * @param rank The rank of the word among the sorted words
+     * @return The frequency
+     */
+    public long getFrequency(int rank) {
+        return this.buffer.getLong(this.frequenciesStart + 8 * rank);
+    }
+
+    /**
+     * Walks the words which are prefixes of a region of a longer text (i.e., the words starting at a given offset),
+     * shortest first, in a single walk of the automaton.
+     *
+     * @param text The text
+     * @param start The offset where the words start
+     * @param end The offset past which no word may end
+     * @param endOffsets What receives the end offset of each word
+     */
+    public void forEachPrefix(CharSequence text, int start, int end, IntConsumer endOffsets) {
+        if (this.size == 0) {
+            return;
+        }
+        int state = this.root;
+        for (int i = start; i < end; i++) {
+            int transition = transition(state, text.charAt(i));
+            if (transition < 0) {
+                return;
+            }
+            state = target(transition);
+            if (isFinal(state)) {
+                endOffsets.accept(i + 1);
+            }
+        }
+    }
+
+    /**
+     * Receives the words found by forEachCompletion().
+     */
+    @FunctionalInterface
+    public interface CompletionListener {
+        /**
+         * @param word The word
+         * @param frequency The frequency of the word
+         */
+        void completion(String word, long frequency);
+    }
+
+    /**
+     * Walks the words starting with a given prefix (e.g., for autocompletion), in the order of their chars.
+     *
+     * @param prefix The prefix (the empty string for all the words)
+     * @param max The max number of words walked
+     * @param listener What receives the words and their frequencies
+     * @return The number of words walked
+     */
+    public int forEachCompletion(CharSequence prefix, int max, CompletionListener listener) {
+        if (this.size == 0) {
+            return 0;
+        }
+        int state = this.root;
+        int rank = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            int transition = transition(state, prefix.charAt(i));
+            if (transition < 0) {
+                return 0;
+            }
+            rank += output(transition);
+            state = target(transition);
+        }
+        StringBuilder word = new StringBuilder(prefix);
+        return complete(state, rank, word, max, 0, listener);
+    }
+
+    private int complete(int state, int rank, StringBuilder word, int max, int walked, CompletionListener listener) {
+        if (walked < max && isFinal(state)) {
+            listener.completion(word.toString(), getFrequency(rank));
+            walked++;
+        }
+        int last = firstTransition(state + 1);
+        for (int transition = firstTransition(state); transition < last && walked < max; transition++) {
+            word.append(label(transition));
+            walked = complete(target(transition), rank + output(transition), word, max, walked, listener);
+            word.setLength(word.length() - 1);
+        }
+        return walked;
+    }
+
+    /**
+     * Returns the number of words.
+     *
+     * @return The number of words
+     */
+    public int size() {
+        return this.size;
+    }
+
+    public int getNumberOfStates() {
+        return this.numberOfStates;
+    }
+
+    public int getNumberOfTransitions() {
+        return this.numberOfTransitions;
+    }
+
+    public long getTotal() {
+        return this.buffer.getLong(24);
+    }
+
+    public long getMin() {
+        return this.buffer.getLong(32);
+    }
+
+    public long getMax() {
+        return this.buffer.getLong(40);
+    }
+
+    /**
+     * Returns the memory taken by the automaton (on the heap, or in the page cache if mapped).
+     *
+     * @return The size of the buffer in bytes
+     */
+    public long getSizeInBytes() {
+        return this.buffer.capacity();
+    }
+
+    /**
+     * Tells whether the automaton is served from a memory-mapped file.
+     *
+     * @return True if mapped, false if on the heap
+     */
+    public boolean isMapped() {
+        return this.buffer.isDirect();
+    }
+}
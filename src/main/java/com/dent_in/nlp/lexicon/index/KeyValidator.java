@@ -0,0 +1,35 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dent_in.nlp.lexicon.index;
+
+/**
+ * A table of frequencies (also a Map) which only takes keys of a given form, e.g., n-grams of a given order, and whose
+ * put() throws an IllegalArgumentException for the others. Loaders check the keys beforehand, so that ill-formed lines
+ * are reported and skipped rather than abort the load.
+ */
+public interface KeyValidator {
+
+    /**
+     * Tells whether a key may be put into the table.
+     *
+     * @param key The key
+     * @return True if the key is of the form of the table, false otherwise
+     */
+    boolean isValidKey(CharSequence key);
+}
@@ -0,0 +1,294 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dent_in.nlp.lexicon.index;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A table of the counts of n-grams from bigrams up to a max order (e.g., five-grams), hashed by context: an n-gram is
+ * the pair of the entry number of its context (the (n-1)-gram before its last word) and the id of its last word, so
+ * its key is a single long whatever n, and looking up the n-grams ending a sequence of word ids reuses the entry of
+ * each context on the way. The ids are the entry numbers of the words in a vocabulary (i.e., a WordFrequencyTable).
+ *
+ * The table is also a Map keyed by the words of an n-gram separated by single spaces (e.g., for LexiconReader to load
+ * it through put), the words being added to the vocabulary as needed with a frequency of -1 (i.e., not a unigram),
+ * and the contexts to their own order with a count of -1 (i.e., not in the Map) unless they are loaded too. Entries
+ * cannot be removed, and put() throws an IllegalArgumentException for keys of another order (see isValidKey).
+ *
+ * Not thread-safe while loading; safe to read from any number of threads once loaded and safely published.
+ */
+public class NgramTable extends AbstractMap<String, Long> implements KeyValidator {
+
+    private final WordFrequencyTable vocabulary;
+    //the n-grams of order k at k-2
+    private final ContextTable[] orders;
+    private int size = 0;
+
+    /**
+     * Creates an empty table whose words are interned in a vocabulary.
+     *
+     * @param vocabulary The ids of the words (e.g., the unigrams, with their frequencies)
+     * @param maxOrder The max value of n, at least 2
+     */
+    public NgramTable(WordFrequencyTable vocabulary, int maxOrder) {
+        if (maxOrder < 2) {
+            throw new IllegalArgumentException("maxOrder must be at least 2: " + maxOrder);
+        }
+        this.vocabulary = vocabulary;
+        this.orders = new ContextTable[maxOrder - 1];
+        for (int k = 0; k < this.orders.length; k++) {
+            this.orders[k] = new ContextTable();
+        }
+    }
+
+    public WordFrequencyTable getVocabulary() {
+        return this.vocabulary;
+    }
+
+    public int getMaxOrder() {
+        return this.orders.length + 1;
+    }
+
+    /**
+     * Finds the entry of the n-gram of a sequence of word ids, within its order.
+     *
+     * @param wordIds The ids of the words (negative for unknown words)
+     * @param start The index of the first word of the n-gram
+     * @param end The index after the last word of the n-gram
+     * @return The entry number (the word id itself for a unigram), or -1 if the n-gram is not in the table
+     */
+    public int indexOf(int[] wordIds, int start, int end) {
+        if (end - start > getMaxOrder()) {
+            return -1;
+        }
+        int entry = wordIds[start];
+        for (int i = start + 1; i < end && entry >= 0; i++) {
+            entry = this.orders[i - start - 1].indexOf(entry, wordIds[i]);
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the count of the n-gram of a sequence of word ids, without boxing.
+     *
+     * @param wordIds The ids of the words (negative for unknown words)
+     * @param start The index of the first word of the n-gram
+     * @param end The index after the last word of the n-gram
+     * @param defaultCount The value returned if the n-gram has no count
+     * @return The count of the n-gram (the frequency of the word for a unigram), or the default count
+     */
+    public long getCount(int[] wordIds, int start, int end, long defaultCount) {
+        int entry = indexOf(wordIds, start, end);
+        if (entry < 0) {
+            return defaultCount;
+        }
+        long count = end - start == 1 ? this.vocabulary.getFrequency(entry) : this.orders[end - start - 2].getCount(entry);
+        return count < 0 ? defaultCount : count;
+    }
+
+    /**
+     * Returns the count of the bigram of two word ids, without boxing.
+     *
+     * @param first The id of the first word (negative if unknown)
+     * @param second The id of the second word (negative if unknown)
+     * @param defaultCount The value returned if the bigram has no count
+     * @return The count of the bigram, or the default count
+     */
+    public long getCount(int first, int second, long defaultCount) {
+        int entry = this.orders[0].indexOf(first, second);
+        long count = entry < 0 ? -1 : this.orders[0].getCount(entry);
+        return count < 0 ? defaultCount : count;
+    }
+
+    /**
+     * Returns the count of an n-gram given as words separated by single spaces, looked up in place.
+     *
+     * @param text The text containing the n-gram
+     * @param start The offset of the first character of the n-gram
+     * @param end The offset after the last character of the n-gram
+     * @param defaultCount The value returned if the n-gram is not in the table
+     * @return The count of the n-gram, or the default count
+     */
+    public long getCount(CharSequence text, int start, int end, long defaultCount) {
+        int entry = -1;
+        int order = 0;
+        int wordStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || text.charAt(i) == ' ') {
+                int word = this.vocabulary.indexOf(text, wordStart, i);
+                if (order == getMaxOrder() || word < 0) {
+                    return defaultCount;
+                }
+                entry = order == 0 ? word : this.orders[order - 1].indexOf(entry, word);
+                if (entry < 0) {
+                    return defaultCount;
+                }
+                order++;
+                wordStart = i + 1;
+            }
+        }
+        if (order < 2) {
+            return defaultCount;
+        }
+        long count = this.orders[order - 2].getCount(entry);
+        return count < 0 ? defaultCount : count;
+    }
+
+    /**
+     * Trims the arrays to the number of entries, once everything has been loaded.
+     */
+    public void trimToSize() {
+        for (ContextTable table : this.orders) {
+            table.trimToSize();
+        }
+    }
+
+    /**
+     * Tells whether a key is an n-gram the table takes, i.e., 2 to max order words separated by single spaces.
+     *
+     * @param key The key
+     * @return True if the key may be put, false otherwise
+     */
+    @Override
+    public boolean isValidKey(CharSequence key) {
+        int words = 1;
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) == ' ') {
+                words++;
+            }
+        }
+        return words >= 2 && words <= getMaxOrder();
+    }
+
+    private int intern(String word) {
+        int id = this.vocabulary.indexOf(word, 0, word.length());
+        return id < 0 ? this.vocabulary.putFrequency(word, -1) : id;
+    }
+
+    /**
+     * Returns the words of an entry separated by single spaces.
+     */
+    private String getNgram(int order, int entry) {
+        StringBuilder ngram = new StringBuilder();
+        appendNgram(ngram, order, entry);
+        return ngram.toString();
+    }
+
+    private void appendNgram(StringBuilder ngram, int order, int entry) {
+        if (order == 1) {
+            ngram.append(this.vocabulary.getWord(entry));
+            return;
+        }
+        ContextTable table = this.orders[order - 2];
+        appendNgram(ngram, order - 1, table.getContext(entry));
+        ngram.append(' ').append(this.vocabulary.getWord(table.getWord(entry)));
+    }
+
+    ////////////// MAP VIEW /////////////////////////////
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof CharSequence && getCount((CharSequence) key, 0, ((CharSequence) key).length(), -1) >= 0;
+    }
+
+    @Override
+    public Long get(Object key) {
+        if (!(key instanceof CharSequence)) {
+            return null;
+        }
+        long count = getCount((CharSequence) key, 0, ((CharSequence) key).length(), -1);
+        return count < 0 ? null : count;
+    }
+
+    @Override
+    public Long put(String key, Long value) {
+        String[] words = key.split(" ", -1);
+        if (words.length < 2 || words.length > getMaxOrder()) {
+            throw new IllegalArgumentException("Not an n-gram of order 2 to " + getMaxOrder() + ": " + key);
+        }
+        int entry = intern(words[0]);
+        for (int i = 1; i < words.length; i++) {
+            entry = this.orders[i - 1].intern(entry, intern(words[i]));
+        }
+        ContextTable table = this.orders[words.length - 2];
+        long previous = table.getCount(entry);
+        table.setCount(entry, value);
+        if (previous < 0) {
+            this.size++;
+            return null;
+        }
+        return previous;
+    }
+
+    @Override
+    public Set<Entry<String, Long>> entrySet() {
+        return new AbstractSet<Entry<String, Long>>() {
+            @Override
+            public Iterator<Entry<String, Long>> iterator() {
+                return new Iterator<Entry<String, Long>>() {
+                    private int order = 2;
+                    private int entry = -1;
+
+                    {
+                        advance();
+                    }
+
+                    //moves on to the next entry with a count, contexts only being skipped
+                    private void advance() {
+                        do {
+                            this.entry++;
+                            while (this.order <= getMaxOrder() && this.entry >= orders[this.order - 2].size()) {
+                                this.order++;
+                                this.entry = 0;
+                            }
+                        } while (this.order <= getMaxOrder() && orders[this.order - 2].getCount(this.entry) < 0);
+                    }
+
+                    public boolean hasNext() {
+                        return this.order <= getMaxOrder();
+                    }
+
+                    public Entry<String, Long> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, Long> result = new SimpleImmutableEntry<>(getNgram(this.order, this.entry),
+                                orders[this.order - 2].getCount(this.entry));
+                        advance();
+                        return result;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
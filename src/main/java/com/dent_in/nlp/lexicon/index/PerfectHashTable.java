@@ -0,0 +1,263 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dent_in.nlp.lexicon.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A static table from words to frequencies over a minimal perfect hash function, i.e., one mapping the n words given
+ * at build time to the slots 0 to n-1 without collisions, so that the frequencies are a long[n] with no empty slots.
+ * The words themselves are not kept: each slot keeps a 16-bit fingerprint of its word instead, which rejects all but
+ * about 1 in 65536 of the lookups of other words.
+ *
+ * The hash function is built level by level (as in BBHash): at each level the remaining words are hashed into a bit
+ * array gamma times their number, the words alone in their bit keep it and the others go on to the next level. The
+ * slot of a word is the rank of its bit among all the set bits, counted from an int every 512 bits. With the default
+ * gamma of 2 the function takes about 3.5 bits a word, against several hundred for a HashMap entry, and a lookup
+ * hashes the word once and mostly reads a single level.
+ *
+ * Immutable, hence safe to read from any number of threads once safely published.
+ */
+public final class PerfectHashTable {
+
+    public static final double DEFAULT_GAMMA = 2.0;
+    private static final int MAX_LEVELS = 64;
+    private static final int LONGS_PER_RANK = 8;
+
+    //the bits of all the levels one after the other, level i taking levelSizes[i] bits from long levelStarts[i] on
+    private final long[] bits;
+    private final int[] levelStarts;
+    private final int[] levelSizes;
+    //the number of set bits before every 512 bits
+    private final int[] ranks;
+    private final short[] fingerprints;
+    private final long[] frequencies;
+
+    /**
+     * Builds a table with the default gamma.
+     *
+     * @param frequencies The words and their frequencies
+     */
+    public PerfectHashTable(Map<String, Long> frequencies) {
+        this(frequencies, DEFAULT_GAMMA);
+    }
+
+    /**
+     * Builds a table.
+     *
+     * @param frequencies The words and their frequencies
+     * @param gamma The size of the bit array of each level relative to the number of words left (at least 1, the larger
+     *              the faster to build and to look up, but the more bits a word)
+     * @throws IllegalArgumentException If gamma is below 1, or two words have the same 64-bit hash (most unlikely)
+     */
+    public PerfectHashTable(Map<String, Long> frequencies, double gamma) {
+        if (!(gamma >= 1)) {
+            throw new IllegalArgumentException("Gamma below 1: " + gamma);
+        }
+        int n = frequencies.size();
+        long[] hashes = new long[n];
+        long[] values = new long[n];
+        int i = 0;
+        for (Map.Entry<String, Long> entry : frequencies.entrySet()) {
+            hashes[i] = RegionHash.hash(entry.getKey(), 0, entry.getKey().length());
+            values[i++] = entry.getValue();
+        }
+
+        //the words placed at each level, and the bits of each level
+        List<int[]> placed = new ArrayList<>();
+        List<long[]> levels = new ArrayList<>();
+        int[] remaining = new int[n];
+        for (i = 0; i < n; i++) {
+            remaining[i] = i;
+        }
+        int left = n;
+        while (left > 0) {
+            if (levels.size() == MAX_LEVELS) {
+                throw new IllegalArgumentException("Words with the same hash, no perfect hash function of them");
+            }
+            int level = levels.size();
+            int size = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, Math.ceil(gamma * left)));
+            long[] levelBits = new long[(size + 63) >>> 6];
+            long[] collisions = new long[levelBits.length];
+            size = levelBits.length << 6;
+            for (int k = 0; k < left; k++) {
+                int position = position(hashes[remaining[k]], level, size);
+                if ((levelBits[position >>> 6] & (1L << position)) != 0) {
+                    collisions[position >>> 6] |= 1L << position;
+                } else {
+                    levelBits[position >>> 6] |= 1L << position;
+                }
+            }
+            for (int w = 0; w < levelBits.length; w++) {
+                levelBits[w] &= ~collisions[w];
+            }
+            int[] here = new int[left];
+            int numberHere = 0;
+            int numberLeft = 0;
+            for (int k = 0; k < left; k++) {
+                int position = position(hashes[remaining[k]], level, size);
+                if ((levelBits[position >>> 6] & (1L << position)) != 0) {
+                    here[numberHere++] = remaining[k];
+                } else {
+                    remaining[numberLeft++] = remaining[k];
+                }
+            }
+            levels.add(levelBits);
+            placed.add(Arrays.copyOf(here, numberHere));
+            left = numberLeft;
+        }
+
+        this.levelStarts = new int[levels.size()];
+        this.levelSizes = new int[levels.size()];
+        int numberOfLongs = 0;
+        for (int level = 0; level < levels.size(); level++) {
+            this.levelStarts[level] = numberOfLongs;
+            this.levelSizes[level] = levels.get(level).length << 6;
+            numberOfLongs += levels.get(level).length;
+        }
+        this.bits = new long[numberOfLongs];
+        for (int level = 0; level < levels.size(); level++) {
+            System.arraycopy(levels.get(level), 0, this.bits, this.levelStarts[level], levels.get(level).length);
+        }
+        this.ranks = new int[(numberOfLongs + LONGS_PER_RANK - 1) / LONGS_PER_RANK];
+        int rank = 0;
+        for (int w = 0; w < numberOfLongs; w++) {
+            if (w % LONGS_PER_RANK == 0) {
+                this.ranks[w / LONGS_PER_RANK] = rank;
+            }
+            rank += Long.bitCount(this.bits[w]);
+        }
+
+        this.fingerprints = new short[n];
+        this.frequencies = new long[n];
+        for (int level = 0; level < levels.size(); level++) {
+            for (int word : placed.get(level)) {
+                int slot = rank(this.levelStarts[level], position(hashes[word], level, this.levelSizes[level]));
+                this.fingerprints[slot] = fingerprint(hashes[word]);
+                this.frequencies[slot] = values[word];
+            }
+        }
+    }
+
+    /**
+     * Returns the bit of a hash at a level (the hash mixed with the level, then reduced with a multiply).
+     */
+    private static int position(long hash, int level, int size) {
+        long h = hash + (level + 1) * 0x9e3779b97f4a7c15L;
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) (((h >>> 32) * size) >>> 32);
+    }
+
+    private static short fingerprint(long hash) {
+        return (short) (hash >>> 48);
+    }
+
+    /**
+     * Returns the number of set bits before a bit of a level.
+     */
+    private int rank(int levelStart, int position) {
+        int word = levelStart + (position >>> 6);
+        int block = word / LONGS_PER_RANK;
+        int result = this.ranks[block];
+        for (int w = block * LONGS_PER_RANK; w < word; w++) {
+            result += Long.bitCount(this.bits[w]);
+        }
+        return result + Long.bitCount(this.bits[word] & ((1L << position) - 1));
+    }
+
+    /**
+     * Finds the slot of a region of a longer text.
+     *
+     * @param text The text containing the word
+     * @param start The offset of the first character of the word
+     * @param end The offset after the last character of the word
+     * @return The slot of the word, or -1 if it is not in the table (or, rarely, the slot of another word)
+     */
+    public int indexOf(CharSequence text, int start, int end) {
+        long hash = RegionHash.hash(text, start, end);
+        for (int level = 0; level < this.levelStarts.length; level++) {
+            int position = position(hash, level, this.levelSizes[level]);
+            if ((this.bits[this.levelStarts[level] + (position >>> 6)] & (1L << position)) != 0) {
+                int slot = rank(this.levelStarts[level], position);
+                return this.fingerprints[slot] == fingerprint(hash) ? slot : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the frequency of a region of a longer text.
+     *
+     * @param text The text containing the word
+     * @param start The offset of the first character of the word
+     * @param end The offset after the last character of the word
+     * @param defaultFrequency The value returned if the word is not in the table
+     * @return The frequency of the word, or the default frequency
+     */
+    public long getFrequency(CharSequence text, int start, int end, long defaultFrequency) {
+        int slot = indexOf(text, start, end);
+        return slot < 0 ? defaultFrequency : this.frequencies[slot];
+    }
+
+    /**
+     * Returns the frequency of a slot.
+     *
+     * @param slot The slot
+     * @return The frequency
+     */
+    public long getFrequency(int slot) {
+        return this.frequencies[slot];
+    }
+
+    /**
+     * Returns the number of words.
+     *
+     * @return The number of words
+     */
+    public int size() {
+        return this.frequencies.length;
+    }
+
+    public int getNumberOfLevels() {
+        return this.levelStarts.length;
+    }
+
+    /**
+     * Returns the bits a word takes for the hash function alone (i.e., the levels and their ranks).
+     *
+     * @return The number of bits of the hash function divided by the number of words
+     */
+    public double getBitsPerWord() {
+        return (64.0 * this.bits.length + 32.0 * this.ranks.length) / Math.max(1, size());
+    }
+
+    /**
+     * Returns the memory taken by the table.
+     *
+     * @return The size of the arrays in bytes
+     */
+    public long getSizeInBytes() {
+        return 8L * this.bits.length + 4L * this.ranks.length + 8L * this.levelStarts.length
+                + 2L * this.fingerprints.length + 8L * this.frequencies.length;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dent_in.nlp.lexicon.index;
+
+/**
+ * The 64-bit hash of a region of chars shared by the probabilistic structures of this package (e.g., BloomFilter), the
+ * same for a String and for a region of a longer CharSequence.
+ */
+final class RegionHash {
+
+    private RegionHash() {
+    }
+
+    /**
+     * Hashes a region of chars: FNV-1a over the chars, then the finalizer of MurmurHash3 to mix the bits.
+     *
+     * @param text The text
+     * @param start The start offset of the region
+     * @param end The end offset (exclusive) of the region
+     * @return The hash of the region
+     */
+    static long hash(CharSequence text, int start, int end) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            h = (h ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dent_in.nlp.lexicon.index;
+
+import java.util.Arrays;
+
+/**
+ * A compressed sparse row index of bigrams by their first word: the successors of word id w are the ids
+ * successors[offsets[w] to offsets[w+1]-1], sorted, with their counts in counts[] at the same positions. A count is
+ * found by a binary search of the row of the previous word, and the successors of a word can be walked from the most
+ * frequent down (e.g., to keep only the strongest candidates after it).
+ *
+ * An entry costs an int successor, a long count and an int rank, i.e., 16 bytes, with no empty slots, plus an int
+ * offset per word. Immutable, hence safe to read from any number of threads.
+ */
+public final class SuccessorIndex {
+
+    /**
+     * Receives the successors of a word.
+     */
+    @FunctionalInterface
+    public interface SuccessorListener {
+        /**
+         * Called once per successor.
+         *
+         * @param successor The id of the successor
+         * @param count The count of the bigram of the word and its successor
+         */
+        void successor(int successor, long count);
+    }
+
+    private final int[] offsets;
+    private final int[] successors;
+    private final long[] counts;
+    //the positions of each row from the highest count down (ties by successor id)
+    private final int[] ranks;
+
+    /**
+     * Builds the index of bigrams given as packed keys (see BigramTable.key()) along with their counts.
+     *
+     * @param keys The keys of the bigrams, each one at most once, sorted
+     * @param counts The count of each bigram
+     * @param vocabularySize The number of word ids (i.e., one more than the highest one)
+     */
+    SuccessorIndex(long[] keys, long[] counts, int vocabularySize) {
+        this.offsets = new int[vocabularySize + 1];
+        this.successors = new int[keys.length];
+        this.counts = counts;
+        for (int i = 0; i < keys.length; i++) {
+            this.offsets[(int) (keys[i] >>> 32) + 1]++;
+            this.successors[i] = (int) keys[i];
+        }
+        for (int word = 0; word < vocabularySize; word++) {
+            this.offsets[word + 1] += this.offsets[word];
+        }
+
+        this.ranks = new int[keys.length];
+        for (int i = 0; i < this.ranks.length; i++) {
+            this.ranks[i] = i;
+        }
+        int[] scratch = new int[keys.length];
+        for (int word = 0; word < vocabularySize; word++) {
+            sortByCount(this.ranks, scratch, counts, this.offsets[word], this.offsets[word + 1]);
+        }
+    }
+
+    /**
+     * Sorts a range of positions from the highest count down by a merge sort, stable (i.e., ties stay in the order of
+     * the positions, that of the successor ids), hence with no comparator and no boxing.
+     */
+    private static void sortByCount(int[] positions, int[] scratch, long[] counts, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sortByCount(positions, scratch, counts, from, middle);
+        sortByCount(positions, scratch, counts, middle, to);
+        if (counts[positions[middle - 1]] >= counts[positions[middle]]) {
+            return; //already in order
+        }
+        System.arraycopy(positions, from, scratch, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && counts[scratch[left]] >= counts[scratch[right]])) {
+                positions[i] = scratch[left++];
+            } else {
+                positions[i] = scratch[right++];
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bigrams in the index.
+     *
+     * @return The number of bigrams
+     */
+    public int size() {
+        return this.successors.length;
+    }
+
+    /**
+     * Returns the number of word ids, i.e., of rows.
+     *
+     * @return The number of word ids
+     */
+    public int getVocabularySize() {
+        return this.offsets.length - 1;
+    }
+
+    /**
+     * Returns the count of a bigram, found by a binary search of the successors of its first word.
+     *
+     * @param previous The id of the first word (negative if unknown)
+     * @param next The id of the second word (negative if unknown)
+     * @param defaultCount The value returned if the bigram is not in the index
+     * @return The count of the bigram, or the default count
+     */
+    public long getCount(int previous, int next, long defaultCount) {
+        if (previous < 0 || next < 0 || previous >= getVocabularySize()) {
+            return defaultCount;
+        }
+        int position = Arrays.binarySearch(this.successors, this.offsets[previous], this.offsets[previous + 1], next);
+        return position < 0 ? defaultCount : this.counts[position];
+    }
+
+    /**
+     * Returns the number of successors of a word.
+     *
+     * @param previous The id of the word
+     * @return The number of distinct words seen after it
+     */
+    public int getNumberOfSuccessors(int previous) {
+        if (previous < 0 || previous >= getVocabularySize()) {
+            return 0;
+        }
+        return this.offsets[previous + 1] - this.offsets[previous];
+    }
+
+    /**
+     * Returns the successor of a word at a given rank, the most frequent one being at rank 0.
+     *
+     * @param previous The id of the word
+     * @param rank The rank of the successor, from 0 to getNumberOfSuccessors(previous) - 1
+     * @return The id of the successor
+     */
+    public int getSuccessor(int previous, int rank) {
+        return this.successors[this.ranks[this.offsets[previous] + rank]];
+    }
+
+    /**
+     * Returns the count of the successor of a word at a given rank.
+     *
+     * @param previous The id of the word
+     * @param rank The rank of the successor, from 0 to getNumberOfSuccessors(previous) - 1
+     * @return The count of the bigram of the word and the successor
+     */
+    public long getSuccessorCount(int previous, int rank) {
+        return this.counts[this.ranks[this.offsets[previous] + rank]];
+    }
+
+    /**
+     * Walks the k most frequent successors of a word, from the most frequent down.
+     *
+     * @param previous The id of the word
+     * @param k The max number of successors walked
+     * @param listener What receives the successors
+     * @return The number of successors walked
+     */
+    public int forEachSuccessor(int previous, int k, SuccessorListener listener) {
+        int n = Math.min(k, getNumberOfSuccessors(previous));
+        for (int rank = 0; rank < n; rank++) {
+            int position = this.ranks[this.offsets[previous] + rank];
+            listener.successor(this.successors[position], this.counts[position]);
+        }
+        return n;
+    }
+
+    ////////////// BY POSITION (e.g., to walk every bigram in order) /////////////////////////////
+
+    int offsetOf(int previous) {
+        return this.offsets[previous];
+    }
+
+    int successorAt(int position) {
+        return this.successors[position];
+    }
+
+    long countAt(int position) {
+        return this.counts[position];
+    }
+}
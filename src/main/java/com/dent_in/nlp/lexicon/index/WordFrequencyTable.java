@@ -0,0 +1,320 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dent_in.nlp.lexicon.index;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An open-addressing hash table from words to frequencies specialised for primitives: the chars of all the words are
+ * packed one after the other in a single char[] arena, and the frequencies are kept in a long[], so an entry costs
+ * about 24 bytes plus 2 per char, against well over 100 for a HashMap.Node with its String and boxed Long.
+ *
+ * Lookups with getFrequency(word, defaultFrequency) neither box nor allocate. The table is also a Map (e.g., for
+ * LexiconReader to load it through put), whose methods box as usual. Entries cannot be removed.
+ *
+ * A table may extend a base table (e.g., the vocabulary of n-grams extending that of the unigrams) without copying it:
+ * the words of the base keep their entry numbers and frequencies, read through, and the words added get the entry
+ * numbers from base.size() up. The base must not be added to afterwards, and its frequencies cannot be set through
+ * the table extending it.
+ *
+ * Not thread-safe while loading; safe to read from any number of threads once loaded and safely published.
+ */
+public class WordFrequencyTable extends AbstractMap<String, Long> {
+
+    private static final int EMPTY = -1;
+
+    //entry i is the word arena[offsets[i] to offsets[i+1]-1] with hash hashes[i] and frequency frequencies[i]
+    private char[] arena = new char[1024];
+    private int[] offsets = new int[65];
+    private int[] hashes = new int[64];
+    private long[] frequencies = new long[64];
+    private int size = 0;
+    //linear probing table of entry numbers, at most half full
+    private int[] slots = newSlots(128);
+    //the table extended, if any, whose entries come first
+    private final WordFrequencyTable base;
+    private final int baseSize;
+
+    public WordFrequencyTable() {
+        this.base = null;
+        this.baseSize = 0;
+    }
+
+    /**
+     * Creates a table extending a base table, which is read through rather than copied.
+     *
+     * @param base The table extended, which must not be added to afterwards
+     */
+    public WordFrequencyTable(WordFrequencyTable base) {
+        this.base = base;
+        this.baseSize = base.size();
+    }
+
+    private static int[] newSlots(int capacity) {
+        int[] result = new int[capacity];
+        Arrays.fill(result, EMPTY);
+        return result;
+    }
+
+    /**
+     * Hashes a region of chars, the same for a String and for a region of a longer CharSequence.
+     */
+    private static int hash(CharSequence text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        //spread the bits, the table size being a power of two
+        return h ^ (h >>> 16) ^ (h >>> 7);
+    }
+
+    /**
+     * Finds the entry of a region of chars.
+     *
+     * @param text The string
+     * @param start The start offset of the region
+     * @param end The end offset (exclusive) of the region
+     * @return The entry number, or -1 if the region is not in the table
+     */
+    public int indexOf(CharSequence text, int start, int end) {
+        if (this.base != null) {
+            int entry = this.base.indexOf(text, start, end);
+            if (entry >= 0) {
+                return entry;
+            }
+        }
+        int entry = find(text, start, end);
+        return entry < 0 ? -1 : this.baseSize + entry;
+    }
+
+    /**
+     * Finds the entry of a region of chars among those added to this table (i.e., not in the base).
+     */
+    private int find(CharSequence text, int start, int end) {
+        int hash = hash(text, start, end);
+        int mask = this.slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = this.slots[slot];
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (this.hashes[entry] == hash && regionEquals(entry, text, start, end)) {
+                return entry;
+            }
+        }
+    }
+
+    private boolean regionEquals(int entry, CharSequence text, int start, int end) {
+        int offset = this.offsets[entry];
+        if (this.offsets[entry + 1] - offset != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (this.arena[offset++] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the frequency of a word without boxing.
+     *
+     * @param word The query word
+     * @param defaultFrequency The value returned if the word is not in the table
+     * @return The frequency of the word, or the default frequency
+     */
+    public long getFrequency(CharSequence word, long defaultFrequency) {
+        int entry = indexOf(word, 0, word.length());
+        return entry < 0 ? defaultFrequency : getFrequency(entry);
+    }
+
+    /**
+     * Sets the frequency of a word, adding it if needed.
+     *
+     * @param word The word
+     * @param frequency The frequency
+     * @return The entry number of the word
+     * @throws UnsupportedOperationException If the word is in the base table
+     */
+    public int putFrequency(CharSequence word, long frequency) {
+        if (this.base != null && this.base.indexOf(word, 0, word.length()) >= 0) {
+            throw new UnsupportedOperationException("The words of the base table cannot be set: " + word);
+        }
+        int entry = find(word, 0, word.length());
+        if (entry < 0) {
+            entry = add(word, hash(word, 0, word.length()));
+        }
+        this.frequencies[entry] = frequency;
+        return this.baseSize + entry;
+    }
+
+    private int add(CharSequence word, int hash) {
+        int entry = this.size++;
+        if (entry + 1 >= this.offsets.length) {
+            int capacity = Math.max(64, 2 * this.hashes.length);
+            this.offsets = Arrays.copyOf(this.offsets, capacity + 1);
+            this.hashes = Arrays.copyOf(this.hashes, capacity);
+            this.frequencies = Arrays.copyOf(this.frequencies, capacity);
+        }
+        int offset = this.offsets[entry];
+        if (offset + word.length() > this.arena.length) {
+            this.arena = Arrays.copyOf(this.arena, Math.max(2 * this.arena.length, offset + word.length()));
+        }
+        for (int i = 0; i < word.length(); i++) {
+            this.arena[offset + i] = word.charAt(i);
+        }
+        this.offsets[entry + 1] = offset + word.length();
+        this.hashes[entry] = hash;
+
+        if (2 * this.size > this.slots.length) {
+            rehash(2 * this.slots.length);
+        } else {
+            insert(this.slots, entry);
+        }
+        return entry;
+    }
+
+    private void insert(int[] table, int entry) {
+        int mask = table.length - 1;
+        int slot = this.hashes[entry] & mask;
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = entry;
+    }
+
+    private void rehash(int capacity) {
+        int[] table = newSlots(capacity);
+        for (int entry = 0; entry < this.size; entry++) {
+            insert(table, entry);
+        }
+        this.slots = table;
+    }
+
+    /**
+     * Returns the word of an entry.
+     *
+     * @param entry The entry number
+     * @return The word
+     */
+    public String getWord(int entry) {
+        if (entry < this.baseSize) {
+            return this.base.getWord(entry);
+        }
+        entry -= this.baseSize;
+        return new String(this.arena, this.offsets[entry], this.offsets[entry + 1] - this.offsets[entry]);
+    }
+
+    /**
+     * Returns the length of the word of an entry.
+     *
+     * @param entry The entry number
+     * @return The number of chars of the word
+     */
+    public int getLength(int entry) {
+        if (entry < this.baseSize) {
+            return this.base.getLength(entry);
+        }
+        entry -= this.baseSize;
+        return this.offsets[entry + 1] - this.offsets[entry];
+    }
+
+    /**
+     * Returns the frequency of an entry.
+     *
+     * @param entry The entry number
+     * @return The frequency
+     */
+    public long getFrequency(int entry) {
+        return entry < this.baseSize ? this.base.getFrequency(entry) : this.frequencies[entry - this.baseSize];
+    }
+
+    /**
+     * Trims the arrays to the number of entries, once everything has been loaded.
+     */
+    public void trimToSize() {
+        this.arena = Arrays.copyOf(this.arena, this.offsets[this.size]);
+        this.offsets = Arrays.copyOf(this.offsets, this.size + 1);
+        this.hashes = Arrays.copyOf(this.hashes, this.size);
+        this.frequencies = Arrays.copyOf(this.frequencies, this.size);
+    }
+
+    ////////////// MAP VIEW /////////////////////////////
+
+    @Override
+    public int size() {
+        return this.baseSize + this.size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof CharSequence && indexOf((CharSequence) key, 0, ((CharSequence) key).length()) >= 0;
+    }
+
+    @Override
+    public Long get(Object key) {
+        if (!(key instanceof CharSequence)) {
+            return null;
+        }
+        int entry = indexOf((CharSequence) key, 0, ((CharSequence) key).length());
+        return entry < 0 ? null : getFrequency(entry);
+    }
+
+    @Override
+    public Long put(String key, Long value) {
+        int entry = indexOf(key, 0, key.length());
+        Long previous = entry < 0 ? null : getFrequency(entry);
+        putFrequency(key, value);
+        return previous;
+    }
+
+    @Override
+    public Set<Entry<String, Long>> entrySet() {
+        return new AbstractSet<Entry<String, Long>>() {
+            @Override
+            public Iterator<Entry<String, Long>> iterator() {
+                return new Iterator<Entry<String, Long>>() {
+                    private int next = 0;
+
+                    public boolean hasNext() {
+                        return this.next < size();
+                    }
+
+                    public Entry<String, Long> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        int entry = this.next++;
+                        return new SimpleImmutableEntry<>(getWord(entry), getFrequency(entry));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return WordFrequencyTable.this.size();
+            }
+        };
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dent_in.nlp.lexicon.pdist;
+
+import com.dent_in.nlp.lexicon.CorpusLexicon;
+import com.dent_in.nlp.lexicon.index.SuccessorIndex;
+
+/**
+ * An immutable word-based language model (unigram and bigram counts), loaded once and meant to be shared by any number
+ * of scorers (e.g., one BAYES_UNIGRAM and one BAYES_BIGRAM scorer) and threads.
+ *
+ * Thread-safety: the underlying ProbabilityDistribution and lexicons are loaded in the constructor and never handed out,
+ * hence never written again, and they are reachable only through a final field, so any thread that sees a LanguageModel
+ * sees them fully loaded. Concurrent reads of a HashMap (or of the primitive tables) with no concurrent writes are safe,
+ * and bigrams are put together in per-thread buffers, hence all methods below can be called from any number of threads
+ * without synchronisation.
+ */
+public final class LanguageModel {
+
+    private final ProbabilityDistribution pDistribution;
+
+    /**
+     * Loads the unigram and bigram counts of the model.
+     *
+     * @param unigramDataFileName The path to the unigram counts
+     * @param bigramDataFileName The path to the bigram counts
+     * @param numberOfTokens The total number of tokens of the corpus the counts come from
+     */
+    public LanguageModel(String unigramDataFileName, String bigramDataFileName, long numberOfTokens) {
+        this.pDistribution = new ProbabilityDistribution(unigramDataFileName, bigramDataFileName, numberOfTokens);
+    }
+
+    /**
+     * Loads the unigram and bigram counts of the model, and optionally precomputes the log-probabilities of the
+     * unigrams quantized to 16 bits (see ProbabilityDistribution.quantizeLogProbabilities()).
+     *
+     * @param unigramDataFileName The path to the unigram counts
+     * @param bigramDataFileName The path to the bigram counts
+     * @param numberOfTokens The total number of tokens of the corpus the counts come from
+     * @param quantizeLogProbabilities True to read the log-probabilities of the unigrams from a quantized table
+     */
+    public LanguageModel(String unigramDataFileName, String bigramDataFileName, long numberOfTokens, boolean quantizeLogProbabilities) {
+        this(unigramDataFileName, bigramDataFileName, numberOfTokens);
+        if (quantizeLogProbabilities) {
+            this.pDistribution.quantizeLogProbabilities();
+        }
+    }
+
+    /**
+     * Creates a model over lexicons loaded beforehand (e.g., compiled ones, which are mapped rather than read).
+     * Nothing may be loaded into them afterwards.
+     *
+     * @param lexicon The unigram counts
+     * @param bigramLexicon The bigram counts
+     * @param numberOfTokens The total number of tokens of the corpus the counts come from
+     */
+    public LanguageModel(CorpusLexicon lexicon, CorpusLexicon bigramLexicon, long numberOfTokens) {
+        this.pDistribution = new ProbabilityDistribution(lexicon, bigramLexicon, numberOfTokens);
+    }
+
+    public long getNumberOfTokens() {
+        return this.pDistribution.getNumberOfTokens();
+    }
+
+    /**
+     * Checks if a word is in the unigram counts of the model.
+     *
+     * @param word The query word
+     * @return True if the word is known, false otherwise
+     */
+    public boolean containsWord(String word) {
+        return this.pDistribution.getLexicon().containsWord(word);
+    }
+
+    /**
+     * @see ProbabilityDistribution#getProbability(String)
+     */
+    public double getProbability(String word) {
+        return this.pDistribution.getProbability(word);
+    }
+
+    /**
+     * @see ProbabilityDistribution#getLogProbability(String)
+     */
+    public double getLogProbability(String word) {
+        return this.pDistribution.getLogProbability(word);
+    }
+
+    /**
+     * Checks if a region of a longer text is in the unigram counts of the model.
+     *
+     * @param text The text containing the query word
+     * @param start The offset of the first character of the word
+     * @param end The offset after the last character of the word
+     * @return True if the word is known, false otherwise
+     */
+    public boolean containsWord(CharSequence text, int start, int end) {
+        return this.pDistribution.getLexicon().containsWord(text, start, end);
+    }
+
+    /**
+     * @see ProbabilityDistribution#getLogProbability(CharSequence, int, int)
+     */
+    public double getLogProbability(CharSequence text, int start, int end) {
+        return this.pDistribution.getLogProbability(text, start, end);
+    }
+
+    /**
+     * @see ProbabilityDistribution#getConditionalProbability(String, String)
+     */
+    public double getConditionalProbability(String word, String previousWord) {
+        return this.pDistribution.getConditionalProbability(word, previousWord);
+    }
+
+    /**
+     * @see ProbabilityDistribution#getLogConditionalProbability(String, String)
+     */
+    public double getLogConditionalProbability(String word, String previousWord) {
+        return this.pDistribution.getLogConditionalProbability(word, previousWord);
+    }
+
+    /**
+     * @see ProbabilityDistribution#getLogConditionalProbability(CharSequence, int, int, int, int)
+     */
+    public double getLogConditionalProbability(CharSequence text, int start, int end, int previousStart, int previousEnd) {
+        return this.pDistribution.getLogConditionalProbability(text, start, end, previousStart, previousEnd);
+    }
+
+    /**
+     * @see ProbabilityDistribution#getWordId(CharSequence, int, int)
+     */
+    public int getWordId(CharSequence text, int start, int end) {
+        return this.pDistribution.getWordId(text, start, end);
+    }
+
+    /**
+     * @see ProbabilityDistribution#getWordIds(String[])
+     */
+    public int[] getWordIds(String[] words) {
+        return this.pDistribution.getWordIds(words);
+    }
+
+    /**
+     * @see ProbabilityDistribution#getStartWordId()
+     */
+    public int getStartWordId() {
+        return this.pDistribution.getStartWordId();
+    }
+
+    /**
+     * @see ProbabilityDistribution#getLogProbability(int)
+     */
+    public double getLogProbability(int wordId) {
+        return this.pDistribution.getLogProbability(wordId);
+    }
+
+    /**
+     * @see ProbabilityDistribution#getLogConditionalProbability(int, int)
+     */
+    public double getLogConditionalProbability(int wordId, int previousWordId) {
+        return this.pDistribution.getLogConditionalProbability(wordId, previousWordId);
+    }
+
+    /**
+     * @see ProbabilityDistribution#forEachSuccessor(int, int, SuccessorIndex.SuccessorListener)
+     */
+    public int forEachSuccessor(int previousWordId, int k, SuccessorIndex.SuccessorListener listener) {
+        return this.pDistribution.forEachSuccessor(previousWordId, k, listener);
+    }
+
+    /**
+     * @see ProbabilityDistribution#getLogProbability(int[])
+     */
+    public double getLogProbability(int[] wordIds) {
+        return this.pDistribution.getLogProbability(wordIds);
+    }
+
+    /**
+     * @see ProbabilityDistribution#getLogProbability2(int[])
+     */
+    public double getLogProbability2(int[] wordIds) {
+        return this.pDistribution.getLogProbability2(wordIds);
+    }
+
+    /**
+     * @see ProbabilityDistribution#getProbability(String[])
+     */
+    public double getProbability(String[] words) {
+        return this.pDistribution.getProbability(words);
+    }
+
+    /**
+     * @see ProbabilityDistribution#getLogProbability(String[])
+     */
+    public double getLogProbability(String[] words) {
+        return this.pDistribution.getLogProbability(words);
+    }
+
+    /**
+     * @see ProbabilityDistribution#getProbability2(String[])
+     */
+    public double getProbability2(String[] words) {
+        return this.pDistribution.getProbability2(words);
+    }
+
+    /**
+     * @see ProbabilityDistribution#getLogProbability2(String[])
+     */
+    public double getLogProbability2(String[] words) {
+        return this.pDistribution.getLogProbability2(words);
+    }
+}
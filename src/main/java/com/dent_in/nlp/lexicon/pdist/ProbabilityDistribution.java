@@ -20,7 +20,11 @@ package com.dent_in.nlp.lexicon.pdist;
 import com.dent_in.nlp.lexicon.CorpusLexicon;
 import com.dent_in.nlp.lexicon.Lexicon;
 import com.dent_in.nlp.lexicon.LexiconFactory;
-import com.dent_in.nlp.lexicon.NgramCorpusLexicon;
+import com.dent_in.nlp.lexicon.impl.BigramCorpusLexiconImpl;
+import com.dent_in.nlp.lexicon.impl.PrimitiveCorpusLexiconImpl;
+import com.dent_in.nlp.lexicon.index.LogProbabilityTable;
+import com.dent_in.nlp.lexicon.index.SuccessorIndex;
+import com.dent_in.nlp.lexicon.index.WordFrequencyTable;
 import com.dent_in.nlp.lexicon.utils.LexiconReader;
 
 import java.nio.charset.StandardCharsets;
@@ -37,45 +41,122 @@ import java.util.List;
 public class ProbabilityDistribution {
 
     private CorpusLexicon lexicon = null;
-    private NgramCorpusLexicon bigramLexicon = null;
+    private CorpusLexicon bigramLexicon = null;
+    //the bigrams keyed by word ids, if loaded as such, along with the ids of the words
+    private BigramCorpusLexiconImpl idBigramLexicon = null;
+    private WordFrequencyTable vocabulary = null;
+    private int startId = ~START.length();
     private long numberOfTokens = 0;
     private boolean isLetterNGram = false;
     private int overlap = 1; //only for letter n-grams
+    //log-space counterparts of numberOfTokens, precomputed so that log-probabilities are sums on the hot path
+    private double logNumberOfTokens = 0.0;
+    private double[] logProbabilitiesOfUnknownWords = null;
+    //the log-probabilities of the unigrams by word and by word id, if quantized (see quantizeLogProbabilities())
+    private PrimitiveCorpusLexiconImpl quantizedLexicon = null;
+    private LogProbabilityTable wordIdLogProbabilities = null;
+
+    private static final double LOG_10 = Math.log(10);
+    private static final String START = "<S>";
+    //one buffer per thread to put bigrams together in, distributions are shared between threads
+    private static final ThreadLocal<StringBuilder> BIGRAM_BUFFER = ThreadLocal.withInitial(StringBuilder::new);
+    private static final int MAX_PRECOMPUTED_LENGTH = 64;
 
     public ProbabilityDistribution(String dataFileName){
         //create unigram lexicon and load from data
-        this.lexicon = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.CORPUSLEXICON);
+        //primitive storage, so that regions of the string being segmented are looked up without substrings
+        this.lexicon = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.PRIMITIVECORPUSLEXICON);
         this.lexicon.load(dataFileName);
-        this.numberOfTokens = this.lexicon.getCorpusSize();
+        setNumberOfTokens(this.lexicon.getCorpusSize());
     }
 
     public ProbabilityDistribution(String dataFileName, long numberOfTokens){
         this(dataFileName);
-        this.numberOfTokens = numberOfTokens;
+        setNumberOfTokens(numberOfTokens);
     }
 
     public ProbabilityDistribution(String dataFileName, String bigramDataFileName, long numberOfTokens){
         this(dataFileName);
-        this.numberOfTokens = numberOfTokens;
-        this.bigramLexicon = (NgramCorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.NGRAMCORPUSLEXICON);
-        LexiconReader.loadNgramCorpusLexicon(FileSystems.getDefault().getPath(bigramDataFileName), this.bigramLexicon, StandardCharsets.UTF_8);
+        setNumberOfTokens(numberOfTokens);
+        loadBigramLexicon(bigramDataFileName);
     }
 
     public ProbabilityDistribution(String dataFileName, String bigramDataFileName, long numberOfTokens, boolean isLetterNGram){
         this(dataFileName);
-        this.numberOfTokens = numberOfTokens;
-        this.bigramLexicon = (NgramCorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.NGRAMCORPUSLEXICON);
-        LexiconReader.loadNgramCorpusLexicon(FileSystems.getDefault().getPath(bigramDataFileName), this.bigramLexicon, StandardCharsets.UTF_8);
+        setNumberOfTokens(numberOfTokens);
         this.isLetterNGram = isLetterNGram;
+        loadBigramLexicon(bigramDataFileName);
     }
 
     public ProbabilityDistribution(String dataFileName, String bigramDataFileName, long numberOfTokens, boolean isLetterNGram, int overlap){
         this(dataFileName);
-        this.numberOfTokens = numberOfTokens;
-        this.bigramLexicon = (NgramCorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.NGRAMCORPUSLEXICON);
-        LexiconReader.loadNgramCorpusLexicon(FileSystems.getDefault().getPath(bigramDataFileName), this.bigramLexicon, StandardCharsets.UTF_8);
+        setNumberOfTokens(numberOfTokens);
         this.isLetterNGram = isLetterNGram;
         this.overlap = overlap;
+        loadBigramLexicon(bigramDataFileName);
+    }
+
+    /**
+     * Creates a distribution over lexicons loaded beforehand (e.g., compiled ones, which are mapped rather than read).
+     *
+     * @param lexicon The unigram counts
+     * @param bigramLexicon The bigram counts (a space between the two words of a bigram); if it is a
+     *                      BigramCorpusLexiconImpl, its vocabulary must have been seeded with the unigram counts
+     * @param numberOfTokens The total number of tokens of the corpus
+     */
+    public ProbabilityDistribution(CorpusLexicon lexicon, CorpusLexicon bigramLexicon, long numberOfTokens){
+        this.lexicon = lexicon;
+        setBigramLexicon(bigramLexicon);
+        setNumberOfTokens(numberOfTokens);
+    }
+
+    /**
+     * Loads the bigram counts: word bigrams are keyed by the ids of their two words (see BigramCorpusLexiconImpl),
+     * letter n-grams go into primitive storage keyed by the n-grams themselves.
+     *
+     * @param bigramDataFileName The bigram data file
+     */
+    private void loadBigramLexicon(String bigramDataFileName) {
+        if(this.isLetterNGram) {
+            CorpusLexicon bigramLexicon = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.PRIMITIVECORPUSLEXICON);
+            LexiconReader.loadNgramCorpusLexicon(FileSystems.getDefault().getPath(bigramDataFileName), bigramLexicon, StandardCharsets.UTF_8);
+            setBigramLexicon(bigramLexicon);
+        } else {
+            BigramCorpusLexiconImpl bigramLexicon = new BigramCorpusLexiconImpl(this.lexicon);
+            bigramLexicon.load(bigramDataFileName);
+            setBigramLexicon(bigramLexicon);
+        }
+    }
+
+    private void setBigramLexicon(CorpusLexicon bigramLexicon) {
+        this.bigramLexicon = bigramLexicon;
+        if(bigramLexicon instanceof BigramCorpusLexiconImpl && !this.isLetterNGram) {
+            this.idBigramLexicon = (BigramCorpusLexiconImpl) bigramLexicon;
+            this.vocabulary = this.idBigramLexicon.getVocabulary();
+            this.startId = getWordId(START, 0, START.length());
+        }
+    }
+
+    /**
+     * Precomputes the log-probabilities of the unigrams relative to the number of tokens, quantized to 16 bits (see
+     * LogProbabilityTable), so that the log-probability of a known word is read rather than computed. It is done for
+     * the lexicon if its storage is primitive (e.g., not for a mapped one) and for the word ids if any. The bigram
+     * counts are left as they are.
+     *
+     * @return The largest error of a quantized log-probability
+     */
+    public double quantizeLogProbabilities() {
+        double maxError = 0.0;
+        if(this.lexicon instanceof PrimitiveCorpusLexiconImpl) {
+            this.quantizedLexicon = (PrimitiveCorpusLexiconImpl) this.lexicon;
+            maxError = this.quantizedLexicon.precomputeLogProbabilities(this.numberOfTokens).getMaxError();
+        }
+        if(this.vocabulary != null) {
+            //the vocabulary is seeded with the same counts, hence its codes are the same as those of the lexicon
+            this.wordIdLogProbabilities = new LogProbabilityTable(this.vocabulary, this.numberOfTokens);
+            maxError = Math.max(maxError, this.wordIdLogProbabilities.getMaxError());
+        }
+        return maxError;
     }
 
     public Lexicon getLexicon() {
@@ -90,6 +171,21 @@ public class ProbabilityDistribution {
         return this.numberOfTokens;
     }
 
+    /**
+     * Sets the number of tokens and precomputes its log along with the log-probabilities of unknown words by length.
+     *
+     * @param numberOfTokens The total number of tokens of the corpus
+     */
+    private void setNumberOfTokens(long numberOfTokens) {
+        this.numberOfTokens = numberOfTokens;
+        this.logNumberOfTokens = Math.log(numberOfTokens);
+        this.logProbabilitiesOfUnknownWords = new double[MAX_PRECOMPUTED_LENGTH + 1];
+        for (int length = 0; length <= MAX_PRECOMPUTED_LENGTH; length++) {
+            //log of 10/(numberOfTokens * 10^length)
+            this.logProbabilitiesOfUnknownWords[length] = (1 - length) * LOG_10 - this.logNumberOfTokens;
+        }
+    }
+
     /**
      * Estimate the probability of an unknown word.
      *
@@ -110,6 +206,38 @@ public class ProbabilityDistribution {
     }
 
 
+    /**
+     * Estimate the log-probability of an unknown word, from values precomputed by length (i.e., no call to Math.pow).
+     *
+     * @param word The query word
+     * @param penalizeLongWords True if long words should not be allowed to score high, false otherwise
+     * @return The log-probability of an unknown word
+     */
+    public double getLogProbabilityOfUnknownWord(String word, boolean penalizeLongWords) {
+        return getLogProbabilityOfUnknownWord(word.length(), penalizeLongWords);
+    }
+
+    /**
+     * Estimate the log-probability of an unknown word of a given length.
+     *
+     * @param length The length of the query word
+     * @param penalizeLongWords True if long words should not be allowed to score high, false otherwise
+     * @return The log-probability of an unknown word
+     */
+    public double getLogProbabilityOfUnknownWord(int length, boolean penalizeLongWords) {
+        double result = 0.0;
+
+        if(!penalizeLongWords) {
+            result = -this.logNumberOfTokens;
+        } else if (length <= MAX_PRECOMPUTED_LENGTH) {
+            result = this.logProbabilitiesOfUnknownWords[length];
+        } else {
+            result = (1 - length) * LOG_10 - this.logNumberOfTokens;
+        }
+
+        return result;
+    }
+
     /**
      * The Naive Bayes probability of a sequence of words - based on a unigram model (i.e., for Peter Norvig's first version of segment()).
      *
@@ -138,7 +266,7 @@ public class ProbabilityDistribution {
         if(words.length == 0) return 0.0;
         double sum = 0;
         for (String word : words) {
-            sum += Math.log(getProbability(this.lexicon, word));
+            sum += getLogProbability(this.lexicon, word);
         }
         return sum;
     }
@@ -174,7 +302,7 @@ public class ProbabilityDistribution {
         String previousWord = "<S>";
         double sum = 0;
         for (String word : words) {
-            sum += Math.log(getConditionalProbability(word, previousWord));
+            sum += getLogConditionalProbability(word, previousWord);
             previousWord = word;
         }
         return sum;
@@ -209,7 +337,7 @@ public class ProbabilityDistribution {
         if(words.length == 0) return 0.0;
         double sum = 0;
         for (String word : words) {
-            sum += Math.log(getProbability(lexicon, word));
+            sum += getLogProbability(lexicon, word);
         }
         return sum;
     }
@@ -224,14 +352,25 @@ public class ProbabilityDistribution {
      */
     public double getProbability(CorpusLexicon lexicon, String ngram, boolean penalizeLongWords){
         double result = 0.0;
-        if(lexicon.containsWord(ngram)) {
-            result = (double)lexicon.getFrequency(ngram)/this.numberOfTokens;
+        long frequency = lexicon.getFrequency(ngram, -1); //one lookup, no boxing
+        if(frequency >= 0) {
+            result = (double)frequency/this.numberOfTokens;
         } else {
             result = getProbabilityOfUnknownWord(ngram, penalizeLongWords);
         }
         return result;
     }
 
+    /**
+     * The probability estimate of a word based on this distribution's unigram count data (long unknown words penalized).
+     *
+     * @param word The query word
+     * @return The probability of the word
+     */
+    public double getProbability(String word){
+        return getProbability(this.lexicon, word, true);
+    }
+
     /**
      * The probability estimate of a word based on unigram count data by penalizing unknown words that are long.
      * @param lexicon The lexicon to use to compute the probabilities
@@ -242,6 +381,89 @@ public class ProbabilityDistribution {
         return getProbability(lexicon, ngram, true);
     }
 
+    /**
+     * The log-probability estimate of a word based on n-gram count data (i.e., log of getProbability(), computed as a
+     * difference from the precomputed log of the number of tokens).
+     *
+     * @param lexicon The lexicon to use to compute the probabilities
+     * @param ngram The query ngram
+     * @param penalizeLongWords True if long words should be penalized, false otherwise
+     * @return The log-probability of the ngram
+     */
+    public double getLogProbability(CorpusLexicon lexicon, String ngram, boolean penalizeLongWords){
+        if(lexicon == this.quantizedLexicon) {
+            return this.quantizedLexicon.getLogProbability(ngram, 0, ngram.length(),
+                    getLogProbabilityOfUnknownWord(ngram.length(), penalizeLongWords));
+        }
+        double result = 0.0;
+        long frequency = lexicon.getFrequency(ngram, -1); //one lookup, no boxing
+        if(frequency >= 0) {
+            result = Math.log(frequency) - this.logNumberOfTokens;
+        } else {
+            result = getLogProbabilityOfUnknownWord(ngram, penalizeLongWords);
+        }
+        return result;
+    }
+
+    /**
+     * The log-probability estimate of a region of a longer text (e.g., a candidate word of a string being segmented),
+     * looked up without creating a substring wherever the lexicon allows it.
+     *
+     * @param lexicon The lexicon to use to compute the probabilities
+     * @param text The text containing the query ngram
+     * @param start The offset of the first character of the ngram
+     * @param end The offset after the last character of the ngram
+     * @param penalizeLongWords True if long words should be penalized, false otherwise
+     * @return The log-probability of the ngram
+     */
+    public double getLogProbability(CorpusLexicon lexicon, CharSequence text, int start, int end, boolean penalizeLongWords){
+        if(lexicon == this.quantizedLexicon) {
+            return this.quantizedLexicon.getLogProbability(text, start, end,
+                    getLogProbabilityOfUnknownWord(end - start, penalizeLongWords));
+        }
+        double result = 0.0;
+        long frequency = lexicon.getFrequency(text, start, end, -1);
+        if(frequency >= 0) {
+            result = Math.log(frequency) - this.logNumberOfTokens;
+        } else {
+            result = getLogProbabilityOfUnknownWord(end - start, penalizeLongWords);
+        }
+        return result;
+    }
+
+    /**
+     * The log-probability estimate of a region of a longer text based on this distribution's unigram count data
+     * (long unknown words penalized).
+     *
+     * @param text The text containing the query word
+     * @param start The offset of the first character of the word
+     * @param end The offset after the last character of the word
+     * @return The log-probability of the word
+     */
+    public double getLogProbability(CharSequence text, int start, int end){
+        return getLogProbability(this.lexicon, text, start, end, true);
+    }
+
+    /**
+     * The log-probability estimate of a word based on unigram count data by penalizing unknown words that are long.
+     * @param lexicon The lexicon to use to compute the probabilities
+     * @param ngram The query ngram
+     * @return The log-probability of the ngram (long words penalized)
+     */
+    public double getLogProbability(CorpusLexicon lexicon, String ngram){
+        return getLogProbability(lexicon, ngram, true);
+    }
+
+    /**
+     * The log-probability estimate of a word based on this distribution's unigram count data (long unknown words penalized).
+     *
+     * @param word The query word
+     * @return The log-probability of the word
+     */
+    public double getLogProbability(String word){
+        return getLogProbability(this.lexicon, word, true);
+    }
+
     /**
      * Conditional probability of word, given previous word.
      *
@@ -251,6 +473,29 @@ public class ProbabilityDistribution {
      */
     public double getConditionalProbability(String word, String previousWord) {
         double result = 0.0;
+        long frequency = getBigramFrequency(word, previousWord);
+        if (frequency >= 0) {
+            result = ((double)frequency/this.numberOfTokens) / getProbability(lexicon, previousWord);
+        } else {
+            result = getProbability(lexicon, word); //fallback to unigram
+        }
+
+        return result;
+    }
+
+    /**
+     * Looks up the frequency of a bigram, by the ids of its words if the bigrams are keyed by ids (i.e., a binary search
+     * of the successors of the previous word), or else as a string.
+     *
+     * @param word The second word
+     * @param previousWord The first word
+     * @return The frequency of the bigram, or -1 if it is not in the bigram lexicon
+     */
+    private long getBigramFrequency(String word, String previousWord) {
+        if(this.idBigramLexicon != null) {
+            return this.idBigramLexicon.getFrequency(this.vocabulary.indexOf(previousWord, 0, previousWord.length()),
+                    this.vocabulary.indexOf(word, 0, word.length()), -1);
+        }
         String bigram = null;
         //bigrams formed differently depending on word-/letter-ngrams
         if(!this.isLetterNGram) {
@@ -258,15 +503,210 @@ public class ProbabilityDistribution {
         } else {
             bigram = previousWord + word.substring(this.overlap);
         }
-        if (bigramLexicon.containsWord(bigram)) {
-            result = getProbability(bigramLexicon, bigram, false) / getProbability(lexicon, previousWord);
+        return this.bigramLexicon.getFrequency(bigram, -1);
+    }
+
+    /**
+     * Conditional log-probability of word, given previous word (i.e., log of getConditionalProbability()).
+     *
+     * @param word The query word
+     * @param previousWord The previous word
+     * @return The conditional log-probability of the word given the previous word
+     */
+    public double getLogConditionalProbability(String word, String previousWord) {
+        double result = 0.0;
+        long frequency = getBigramFrequency(word, previousWord);
+        if (frequency >= 0) {
+            result = (Math.log(frequency) - this.logNumberOfTokens) - getLogProbability(lexicon, previousWord);
         } else {
-            result = getProbability(lexicon, word); //fallback to unigram
+            result = getLogProbability(lexicon, word); //fallback to unigram
         }
 
         return result;
     }
 
+    /**
+     * Conditional log-probability of a region of a longer text, given the region preceding it (i.e., two candidate
+     * words of a string being segmented). The bigram is looked up by the ids of the two words if the bigrams are keyed
+     * by ids, or else put together in a buffer reused by the calling thread, so neither the words nor the bigram are
+     * created as strings.
+     *
+     * @param text The text containing both words
+     * @param start The offset of the first character of the word
+     * @param end The offset after the last character of the word
+     * @param previousStart The offset of the first character of the previous word, or -1 if the word is the first one
+     * @param previousEnd The offset after the last character of the previous word
+     * @return The conditional log-probability of the word given the previous word
+     */
+    public double getLogConditionalProbability(CharSequence text, int start, int end, int previousStart, int previousEnd) {
+        if(this.isLetterNGram) {
+            //letter n-grams overlap, not worth a special case
+            return getLogConditionalProbability(text.subSequence(start, end).toString(),
+                    previousStart < 0 ? START : text.subSequence(previousStart, previousEnd).toString());
+        }
+        if(this.idBigramLexicon != null) {
+            return getLogConditionalProbability(getWordId(text, start, end),
+                    previousStart < 0 ? this.startId : getWordId(text, previousStart, previousEnd));
+        }
+        double result = 0.0;
+        StringBuilder bigram = BIGRAM_BUFFER.get();
+        bigram.setLength(0);
+        if(previousStart < 0) {
+            bigram.append(START);
+        } else {
+            bigram.append(text, previousStart, previousEnd);
+        }
+        bigram.append(' ').append(text, start, end);
+        long frequency = bigramLexicon.getFrequency(bigram, 0, bigram.length(), -1);
+        if (frequency >= 0) {
+            double previous = previousStart < 0 ? getLogProbability(lexicon, START, 0, START.length(), true)
+                    : getLogProbability(lexicon, text, previousStart, previousEnd, true);
+            result = (Math.log(frequency) - this.logNumberOfTokens) - previous;
+        } else {
+            result = getLogProbability(lexicon, text, start, end, true); //fallback to unigram
+        }
+
+        return result;
+    }
+
+    ////////////// SCORING BY WORD IDS /////////////////////////////
+
+    /**
+     * Returns the id of a region of a longer text, for the scoring methods taking ids (i.e., mapping each word to an id
+     * once, and then looking up its unigram and bigram counts by id). Words out of the vocabulary are given a negative
+     * id, ~length, which still tells their length for the probability of an unknown word.
+     *
+     * @param text The text containing the word
+     * @param start The offset of the first character of the word
+     * @param end The offset after the last character of the word
+     * @return The id of the word, or ~(end - start) if it is not in the vocabulary
+     */
+    public int getWordId(CharSequence text, int start, int end) {
+        checkWordIds();
+        int id = this.vocabulary.indexOf(text, start, end);
+        return id < 0 ? ~(end - start) : id;
+    }
+
+    /**
+     * Returns the ids of a sequence of words.
+     *
+     * @param words The input sequence of words
+     * @return The id of each word (see getWordId())
+     */
+    public int[] getWordIds(String [] words) {
+        int[] ids = new int[words.length];
+        for (int i = 0; i < words.length; i++) {
+            ids[i] = getWordId(words[i], 0, words[i].length());
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the id of the start of a sentence, i.e., the word preceding the first one.
+     *
+     * @return The id of the start of a sentence
+     */
+    public int getStartWordId() {
+        checkWordIds();
+        return this.startId;
+    }
+
+    private void checkWordIds() {
+        if(this.vocabulary == null) {
+            throw new UnsupportedOperationException("No word ids: the word bigrams are not in a BigramCorpusLexiconImpl");
+        }
+    }
+
+    /**
+     * The log-probability estimate of a word given by its id, based on this distribution's unigram count data
+     * (long unknown words penalized).
+     *
+     * @param wordId The id of the query word
+     * @return The log-probability of the word
+     */
+    public double getLogProbability(int wordId) {
+        checkWordIds();
+        if(this.wordIdLogProbabilities != null && wordId >= 0) {
+            return this.wordIdLogProbabilities.getLogProbability(wordId,
+                    getLogProbabilityOfUnknownWord(this.vocabulary.getLength(wordId), true));
+        }
+        double result = 0.0;
+        long frequency = wordId < 0 ? -1 : this.vocabulary.getFrequency(wordId);
+        if(frequency >= 0) {
+            result = Math.log(frequency) - this.logNumberOfTokens;
+        } else {
+            //words found in the bigrams only have a frequency of -1 in the vocabulary
+            result = getLogProbabilityOfUnknownWord(wordId < 0 ? ~wordId : this.vocabulary.getLength(wordId), true);
+        }
+        return result;
+    }
+
+    /**
+     * Conditional log-probability of a word given the previous word, both given by their ids.
+     *
+     * @param wordId The id of the query word
+     * @param previousWordId The id of the previous word (see getStartWordId() for the first word)
+     * @return The conditional log-probability of the word given the previous word
+     */
+    public double getLogConditionalProbability(int wordId, int previousWordId) {
+        checkWordIds();
+        double result = 0.0;
+        long frequency = this.idBigramLexicon.getFrequency(previousWordId, wordId, -1);
+        if (frequency >= 0) {
+            result = (Math.log(frequency) - this.logNumberOfTokens) - getLogProbability(previousWordId);
+        } else {
+            result = getLogProbability(wordId); //fallback to unigram
+        }
+        return result;
+    }
+
+    /**
+     * Walks the k most frequent successors of a word in the bigram counts, from the most frequent down (e.g., to keep
+     * only the strongest candidates after a word).
+     *
+     * @param previousWordId The id of the word (see getStartWordId() for the start of a sentence)
+     * @param k The max number of successors walked
+     * @param listener What receives the ids of the successors and the counts of the bigrams
+     * @return The number of successors walked
+     */
+    public int forEachSuccessor(int previousWordId, int k, SuccessorIndex.SuccessorListener listener) {
+        checkWordIds();
+        SuccessorIndex successors = this.idBigramLexicon.getSuccessorIndex();
+        return successors == null ? 0 : successors.forEachSuccessor(previousWordId, k, listener);
+    }
+
+    /**
+     * The Naive Bayes log-probability of a sequence of words given by their ids - based on a unigram model.
+     *
+     * @param wordIds The ids of the input sequence of words
+     * @return The log-probability of the sequence of words
+     */
+    public double getLogProbability(int [] wordIds){
+        checkWordIds();
+        double sum = 0;
+        for (int wordId : wordIds) {
+            sum += getLogProbability(wordId);
+        }
+        return sum;
+    }
+
+    /**
+     * The Naive Bayes log-probability of a sequence of words given by their ids - based on a bigram model.
+     *
+     * @param wordIds The ids of the input sequence of words
+     * @return The log-probability of the sequence of words based on a bigram model
+     */
+    public double getLogProbability2(int [] wordIds){
+        checkWordIds();
+        int previousWordId = this.startId;
+        double sum = 0;
+        for (int wordId : wordIds) {
+            sum += getLogConditionalProbability(wordId, previousWordId);
+            previousWordId = wordId;
+        }
+        return sum;
+    }
+
     ////////////// PERPLEXITY MEASURES /////////////////////////////
 
     /**
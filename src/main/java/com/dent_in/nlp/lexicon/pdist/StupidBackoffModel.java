@@ -0,0 +1,274 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dent_in.nlp.lexicon.pdist;
+
+import com.dent_in.nlp.lexicon.CorpusLexicon;
+import com.dent_in.nlp.lexicon.Lexicon;
+import com.dent_in.nlp.lexicon.LexiconFactory;
+import com.dent_in.nlp.lexicon.NgramCorpusLexicon;
+import com.dent_in.nlp.lexicon.impl.PackedNgramCorpusLexiconImpl;
+import com.dent_in.nlp.lexicon.index.WordFrequencyTable;
+
+/**
+ * An immutable n-gram language model (up to five-grams) scored with stupid backoff (Brants et al., 2007): the score of
+ * a word after a context is the relative frequency of the longest n-gram ending with it that was seen, multiplied by
+ * a fixed backoff factor (0.4) per order backed off, down to the unigram probability. Scores are not normalised (i.e.,
+ * they do not sum to one), which is what makes the model cheap: no discounting nor backoff weights to compute at load
+ * time, and at most one lookup per order at scoring time.
+ *
+ * The relative frequency of an n-gram is its count over the count of its context, except for bigrams whose first word
+ * is not a unigram (e.g., the start of a sentence), over the probability of an unknown word like in
+ * ProbabilityDistribution, so that the scores of bigrams seen are the very same as with a bigram model.
+ *
+ * Words are looked up by their ids (see getWordId()) in the vocabulary of a PackedNgramCorpusLexiconImpl. Like
+ * LanguageModel, the model is loaded in the constructor and never written again, hence it can be shared by any number
+ * of scorers and threads.
+ */
+public final class StupidBackoffModel {
+
+    public static final double DEFAULT_BACKOFF = 0.4;
+
+    private static final String START = "<S>";
+
+    private final ProbabilityDistribution unigrams;
+    private final PackedNgramCorpusLexiconImpl ngramLexicon;
+    private final WordFrequencyTable vocabulary;
+    private final double logNumberOfTokens;
+    private final double logBackoff;
+    private final int startId;
+
+    /**
+     * Loads the unigram counts and the n-gram counts of every order up to the highest one given.
+     *
+     * @param unigramDataFileName The path to the unigram counts
+     * @param ngramDataFileNames The paths to the bigram counts, then to the trigram counts and so on (up to five-grams)
+     * @param numberOfTokens The total number of tokens of the corpus the counts come from
+     */
+    public StupidBackoffModel(String unigramDataFileName, String[] ngramDataFileNames, long numberOfTokens) {
+        this(loadUnigrams(unigramDataFileName), ngramDataFileNames, numberOfTokens);
+    }
+
+    private StupidBackoffModel(CorpusLexicon lexicon, String[] ngramDataFileNames, long numberOfTokens) {
+        this(lexicon, loadNgrams(lexicon, ngramDataFileNames), numberOfTokens, DEFAULT_BACKOFF);
+    }
+
+    /**
+     * Creates a model over lexicons loaded beforehand. Nothing may be loaded into them afterwards.
+     *
+     * @param lexicon The unigram counts
+     * @param ngramLexicon The n-gram counts, its vocabulary seeded with the unigram counts
+     * @param numberOfTokens The total number of tokens of the corpus the counts come from
+     * @param backoff The factor of the score of a word per order backed off (e.g., 0.4)
+     */
+    public StupidBackoffModel(CorpusLexicon lexicon, PackedNgramCorpusLexiconImpl ngramLexicon, long numberOfTokens,
+                              double backoff) {
+        if (!(backoff > 0 && backoff <= 1)) {
+            throw new IllegalArgumentException("backoff must be in (0, 1]: " + backoff);
+        }
+        this.unigrams = new ProbabilityDistribution(lexicon, null, numberOfTokens);
+        this.ngramLexicon = ngramLexicon;
+        this.vocabulary = ngramLexicon.getVocabulary();
+        this.logNumberOfTokens = Math.log(numberOfTokens);
+        this.logBackoff = Math.log(backoff);
+        this.startId = getWordId(START, 0, START.length());
+    }
+
+    private static CorpusLexicon loadUnigrams(String unigramDataFileName) {
+        CorpusLexicon lexicon = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.PRIMITIVECORPUSLEXICON);
+        lexicon.load(unigramDataFileName);
+        return lexicon;
+    }
+
+    private static PackedNgramCorpusLexiconImpl loadNgrams(CorpusLexicon lexicon, String[] ngramDataFileNames) {
+        if (ngramDataFileNames.length < 1 || ngramDataFileNames.length > NgramCorpusLexicon.NGRAMSIZE.values().length) {
+            throw new IllegalArgumentException("Bigram to five-gram counts expected, not " + ngramDataFileNames.length + " lists");
+        }
+        PackedNgramCorpusLexiconImpl ngramLexicon = new PackedNgramCorpusLexiconImpl(lexicon,
+                NgramCorpusLexicon.NGRAMSIZE.values()[ngramDataFileNames.length - 1]);
+        for (String ngramDataFileName : ngramDataFileNames) {
+            ngramLexicon.load(ngramDataFileName);
+        }
+        return ngramLexicon;
+    }
+
+    public long getNumberOfTokens() {
+        return this.unigrams.getNumberOfTokens();
+    }
+
+    /**
+     * Returns the highest order of the model (i.e., n).
+     *
+     * @return The order of the model
+     */
+    public int getOrder() {
+        return this.ngramLexicon.getMaxOrder();
+    }
+
+    public PackedNgramCorpusLexiconImpl getNgramLexicon() {
+        return this.ngramLexicon;
+    }
+
+    /**
+     * Returns the id of a region of a longer text. Words out of the vocabulary are given a negative id, ~length, which
+     * still tells their length for the probability of an unknown word.
+     *
+     * @param text The text containing the word
+     * @param start The offset of the first character of the word
+     * @param end The offset after the last character of the word
+     * @return The id of the word, or ~(end - start) if it is not in the vocabulary
+     */
+    public int getWordId(CharSequence text, int start, int end) {
+        int id = this.vocabulary.indexOf(text, start, end);
+        return id < 0 ? ~(end - start) : id;
+    }
+
+    /**
+     * Returns the id of the start of a sentence, i.e., the word preceding the first one.
+     *
+     * @return The id of the start of a sentence
+     */
+    public int getStartWordId() {
+        return this.startId;
+    }
+
+    /**
+     * The log-probability of a word on its own, long unknown words penalized (as ProbabilityDistribution does).
+     *
+     * @param wordId The id of the word
+     * @return The log-probability of the word
+     */
+    public double getLogProbability(int wordId) {
+        long frequency = wordId < 0 ? -1 : this.vocabulary.getFrequency(wordId);
+        if (frequency >= 0) {
+            return Math.log(frequency) - this.logNumberOfTokens;
+        }
+        return this.unigrams.getLogProbabilityOfUnknownWord(wordId < 0 ? ~wordId : this.vocabulary.getLength(wordId), true);
+    }
+
+    /**
+     * The log stupid-backoff score of a word given the words before it, i.e., of wordIds[to-1] given wordIds[from] to
+     * wordIds[to-2], of which only the last n-1 are used.
+     *
+     * @param wordIds The ids of a sequence of words
+     * @param from The index of the first word of the context
+     * @param to The index after the word scored
+     * @return The log score of the word in its context
+     */
+    public double getLogScore(int[] wordIds, int from, int to) {
+        double penalty = 0.0;
+        for (int k = Math.min(getOrder(), to - from); k > 2; k--) {
+            long count = this.ngramLexicon.getCount(wordIds, to - k, to, -1);
+            if (count > 0) {
+                //contexts of a higher order only seen as contexts are backed off from
+                long contextCount = this.ngramLexicon.getCount(wordIds, to - k, to - 1, -1);
+                if (contextCount > 0) {
+                    return penalty + Math.log(count) - Math.log(contextCount);
+                }
+            }
+            penalty += this.logBackoff;
+        }
+        return penalty + (to - from < 2 ? getLogProbability(wordIds[to - 1])
+                : getLogScore(wordIds[to - 1], wordIds[to - 2]));
+    }
+
+    /**
+     * The log stupid-backoff score of a sequence of words, the first one following the start of a sentence.
+     *
+     * @param wordIds The ids of the sequence of words
+     * @return The sum of the log scores of the words
+     */
+    public double getLogScore(int[] wordIds) {
+        int[] sentence = new int[wordIds.length + 1];
+        sentence[0] = this.startId;
+        System.arraycopy(wordIds, 0, sentence, 1, wordIds.length);
+        double sum = 0;
+        for (int i = 2; i <= sentence.length; i++) {
+            sum += getLogScore(sentence, 0, i);
+        }
+        return sum;
+    }
+
+    /**
+     * The log stupid-backoff score of a sequence of words, the first one following the start of a sentence.
+     *
+     * @param words The sequence of words
+     * @return The sum of the log scores of the words
+     */
+    public double getLogScore(String[] words) {
+        int[] wordIds = new int[words.length];
+        for (int i = 0; i < words.length; i++) {
+            wordIds[i] = getWordId(words[i], 0, words[i].length());
+        }
+        return getLogScore(wordIds);
+    }
+
+    /**
+     * The log stupid-backoff score of the segmentation of a string, its words being regions of the string.
+     *
+     * @param text The segmented string
+     * @param boundaries The offsets where the words start, but the first one
+     * @return The sum of the log scores of the words
+     */
+    public double getLogScore(CharSequence text, int[] boundaries) {
+        int[] sentence = new int[boundaries.length + 2];
+        sentence[0] = this.startId;
+        int start = 0;
+        for (int i = 0; i <= boundaries.length; i++) {
+            int end = i < boundaries.length ? boundaries[i] : text.length();
+            sentence[i + 1] = getWordId(text, start, end);
+            start = end;
+        }
+        double sum = 0;
+        for (int i = 2; i <= sentence.length; i++) {
+            sum += getLogScore(sentence, 0, i);
+        }
+        return sum;
+    }
+
+    /**
+     * The log stupid-backoff score of a region of a longer text given the region before it only (i.e., a bigram
+     * context), for decoders which keep a single previous word per state.
+     *
+     * @param text The text containing both words
+     * @param start The offset of the first character of the word
+     * @param end The offset after the last character of the word
+     * @param previousStart The offset of the first character of the previous word, or -1 if the word is the first one
+     * @param previousEnd The offset after the last character of the previous word
+     * @return The log score of the word after the previous word
+     */
+    public double getLogScore(CharSequence text, int start, int end, int previousStart, int previousEnd) {
+        return getLogScore(getWordId(text, start, end),
+                previousStart < 0 ? this.startId : getWordId(text, previousStart, previousEnd));
+    }
+
+    /**
+     * The log stupid-backoff score of a word given the word before it only.
+     *
+     * @param wordId The id of the word
+     * @param previousWordId The id of the previous word (see getStartWordId() for the first word)
+     * @return The log score of the word after the previous word
+     */
+    public double getLogScore(int wordId, int previousWordId) {
+        long count = this.ngramLexicon.getCount(previousWordId, wordId, -1);
+        if (count > 0) {
+            return (Math.log(count) - this.logNumberOfTokens) - getLogProbability(previousWordId);
+        }
+        return this.logBackoff + getLogProbability(wordId);
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dent_in.nlp.lexicon.utils;
+
+import com.dent_in.nlp.lexicon.index.KeyValidator;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A parser of word (or n-gram) frequency lists working on the raw bytes of the list, i.e., with neither a regex nor a
+ * String per line: tokens are found by scanning for whitespace bytes, the key of a line is decoded once and its
+ * frequency is parsed straight from the bytes. The stats of the frequencies are computed as they are put.
+ *
+ * Lines and tokens are the same as those of the regex-based parsing in LexiconReader: lines end with '\n', '\r' or
+ * "\r\n" (as in BufferedReader.readLine()) and tokens are separated by any of the whitespace chars of \s. Hence the
+ * encoding must encode those chars as their ASCII bytes and never use these bytes otherwise (e.g., UTF-8 or ISO-8859),
+ * see canParse().
+ */
+final class FrequencyListParser {
+
+    private static final String WHITESPACE = " \t\n\u000B\f\r";
+    private static final byte[] WHITESPACE_BYTES = {' ', '\t', '\n', 0x0B, '\f', '\r'};
+    //up to 18 digits cannot overflow a long
+    private static final int MAX_SAFE_DIGITS = 18;
+
+    private final boolean ngram;
+    private final Charset encoding;
+    private final Map<String, Long> frequencies;
+    private final LoadErrorCollector errors;
+    private final FrequencyStatistics statistics;
+    private final PruningOptions pruning;
+    private final KeyValidator validator;
+    private final StringBuilder key = new StringBuilder();
+    private long lineCounter = 0;
+    //entries below it are pruned, raised to the least frequency kept as the vocabulary budget is enforced
+    private long minFrequency = Long.MIN_VALUE;
+
+    /**
+     * Creates a parser putting the words and frequencies it reads into a map.
+     *
+     * @param ngram True if the list is an n-gram frequency list (i.e., a tab between the n-gram and its frequency)
+     * @param encoding The encoding of the list
+     * @param frequencies The map where the words and frequencies are put
+     * @param errors Where ill-formatted lines are reported
+     * @param statistics Where the stats of the frequencies put are added up
+     */
+    FrequencyListParser(boolean ngram, Charset encoding, Map<String, Long> frequencies, LoadErrorCollector errors,
+                        FrequencyStatistics statistics) {
+        this(ngram, encoding, frequencies, errors, statistics, null);
+    }
+
+    /**
+     * Creates a parser putting the words and frequencies it reads into a map, but for those pruned.
+     * With a vocabulary budget, the map must allow removals (e.g., a HashMap), since it is kept within twice the budget.
+     *
+     * @param ngram True if the list is an n-gram frequency list (i.e., a tab between the n-gram and its frequency)
+     * @param encoding The encoding of the list
+     * @param frequencies The map where the words and frequencies are put
+     * @param errors Where ill-formatted lines are reported
+     * @param statistics Where the stats of the frequencies put (and pruned) are added up
+     * @param pruning What to prune, or null to put every entry
+     */
+    FrequencyListParser(boolean ngram, Charset encoding, Map<String, Long> frequencies, LoadErrorCollector errors,
+                        FrequencyStatistics statistics, PruningOptions pruning) {
+        this(ngram, encoding, frequencies, errors, statistics, pruning, null);
+    }
+
+    /**
+     * Creates a parser putting the words and frequencies it reads into a map, but for those pruned and those whose key
+     * the lexicon does not take (e.g., a word in a bigram list), which are reported as WRONG_KEY.
+     *
+     * @param ngram True if the list is an n-gram frequency list (i.e., a tab between the n-gram and its frequency)
+     * @param encoding The encoding of the list
+     * @param frequencies The map where the words and frequencies are put
+     * @param errors Where ill-formatted lines are reported
+     * @param statistics Where the stats of the frequencies put (and pruned) are added up
+     * @param pruning What to prune, or null to put every entry
+     * @param validator The keys the lexicon takes, or null to take every key
+     */
+    FrequencyListParser(boolean ngram, Charset encoding, Map<String, Long> frequencies, LoadErrorCollector errors,
+                        FrequencyStatistics statistics, PruningOptions pruning, KeyValidator validator) {
+        this.ngram = ngram;
+        this.encoding = encoding;
+        this.frequencies = frequencies;
+        this.errors = errors;
+        this.statistics = statistics;
+        this.pruning = pruning;
+        this.validator = validator;
+        if (pruning != null) {
+            this.minFrequency = pruning.getMinFrequency();
+        }
+    }
+
+    /**
+     * Tells whether lists in a given encoding can be parsed at the byte level.
+     *
+     * @param encoding The encoding
+     * @return True if whitespace and line ends are their single ASCII bytes in that encoding, false otherwise
+     */
+    static boolean canParse(Charset encoding) {
+        return Arrays.equals(WHITESPACE.getBytes(encoding), WHITESPACE_BYTES);
+    }
+
+    /**
+     * Returns the number of lines parsed so far.
+     *
+     * @return The number of lines parsed
+     */
+    long getLineCount() {
+        return this.lineCounter;
+    }
+
+    /**
+     * Parses the complete lines in a range of bytes.
+     *
+     * @param bytes The bytes of the list
+     * @param from The offset of the first byte to be parsed (i.e., the start of a line)
+     * @param to The offset after the last byte to be parsed
+     * @param endOfInput True if the range ends the list, in which case its last line is complete with or without a line end
+     * @return The offset of the first byte not parsed (i.e., the start of the incomplete last line, if any)
+     */
+    int parse(byte[] bytes, int from, int to, boolean endOfInput) {
+        int lineStart = from;
+        int i = from;
+        while (i < to) {
+            byte b = bytes[i];
+            if (b != '\n' && b != '\r') {
+                i++;
+                continue;
+            }
+            if (b == '\r' && i + 1 == to && !endOfInput) {
+                break; //might be the first half of "\r\n"
+            }
+            parseLine(bytes, lineStart, i);
+            i += b == '\r' && i + 1 < to && bytes[i + 1] == '\n' ? 2 : 1;
+            lineStart = i;
+        }
+        if (endOfInput && lineStart < to) {
+            parseLine(bytes, lineStart, to);
+            lineStart = to;
+        }
+        return lineStart;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == 0x0B || b == '\f' || b == '\n' || b == '\r';
+    }
+
+    /**
+     * Parses one line (its line end excluded).
+     */
+    private void parseLine(byte[] bytes, int start, int end) {
+        //the tokens of the key, and whether they are single space separated (i.e., the key is the bytes as they are)
+        int keyStart = -1;
+        int keyEnd = -1;
+        boolean isPlainKey = true;
+        int valueStart = -1;
+        int valueEnd = -1;
+        int field = 0;
+        int i = start;
+        while (i < end) {
+            while (i < end && isWhitespace(bytes[i])) {
+                i++;
+            }
+            if (i == end) {
+                break;
+            }
+            int tokenStart = i;
+            while (i < end && !isWhitespace(bytes[i])) {
+                i++;
+            }
+            switch (field) {
+                case 0:
+                    if (keyStart < 0) {
+                        keyStart = tokenStart;
+                    } else if (tokenStart != keyEnd + 1 || bytes[keyEnd] != ' ') {
+                        isPlainKey = false;
+                    }
+                    keyEnd = i;
+                    break;
+                case 1:
+                    valueStart = tokenStart;
+                    valueEnd = i;
+                    break;
+                default:
+                    //there's an unexpected token
+                    this.errors.report(this.lineCounter, LoadErrorCollector.Kind.UNEXPECTED_TOKEN, null);
+            }
+            //n-grams are all the tokens up to a tab, words the first token
+            if (!this.ngram || (i < end && bytes[i] == '\t')) {
+                field++;
+            }
+        }
+
+        String word = keyStart < 0 ? "" : decodeKey(bytes, keyStart, keyEnd, isPlainKey);
+        long frequency = 0;
+        boolean isValid = valueStart >= 0 && valueEnd - valueStart <= MAX_SAFE_DIGITS;
+        //fast path for plain ASCII digits, anything else is left to Long.parseLong()
+        for (int k = valueStart; isValid && k < valueEnd; k++) {
+            int digit = bytes[k] - '0';
+            if (digit >= 0 && digit <= 9) {
+                frequency = 10 * frequency + digit;
+            } else {
+                isValid = k == valueStart && valueEnd - valueStart > 1 && (bytes[k] == '-' || bytes[k] == '+');
+            }
+        }
+        if (isValid && bytes[valueStart] == '-') {
+            frequency = -frequency;
+        }
+        if (!isValid) {
+            String value = valueStart < 0 ? "" : new String(bytes, valueStart, valueEnd - valueStart, this.encoding);
+            try {
+                frequency = Long.parseLong(value);
+            } catch (NumberFormatException nfe) {
+                this.errors.report(this.lineCounter, LoadErrorCollector.Kind.WRONG_FREQUENCY, value);
+                this.lineCounter++;
+                return;
+            }
+        }
+        put(this.lineCounter++, word, frequency);
+    }
+
+    /**
+     * Puts an entry into the map, unless it is pruned or its key is not taken, and adds it up into the stats.
+     *
+     * @param line The number of the line of the entry
+     * @param word The word or n-gram
+     * @param frequency Its frequency
+     */
+    void put(long line, String word, long frequency) {
+        if (this.validator != null && !this.validator.isValidKey(word)) {
+            this.errors.report(line, LoadErrorCollector.Kind.WRONG_KEY, word);
+            return;
+        }
+        if (this.pruning == null) {
+            this.statistics.add(frequency, this.frequencies.put(word, frequency));
+            return;
+        }
+        if (frequency < this.minFrequency || !this.pruning.isInVocabulary(word)) {
+            this.statistics.prune(frequency);
+            return;
+        }
+        this.statistics.add(frequency, this.frequencies.put(word, frequency));
+        if (this.frequencies.size() > 2L * this.pruning.getMaxVocabularySize()) {
+            this.minFrequency = Math.max(this.minFrequency,
+                    keepMostFrequent(this.frequencies, this.pruning.getMaxVocabularySize(), this.statistics));
+        }
+    }
+
+    /**
+     * Removes all but the n most frequent entries of a map (ties at the cut-off are broken by iteration order), and
+     * counts them as pruned.
+     *
+     * @param frequencies The map, which must allow removals
+     * @param n The number of entries kept
+     * @param statistics Where the entries removed are counted (which makes the stats of the entries put inexact)
+     * @return The least frequency kept, or Long.MIN_VALUE if nothing was removed
+     */
+    static long keepMostFrequent(Map<String, Long> frequencies, int n, FrequencyStatistics statistics) {
+        if (frequencies.size() <= n) {
+            return Long.MIN_VALUE;
+        }
+        long[] values = new long[frequencies.size()];
+        int k = 0;
+        for (Long value : frequencies.values()) {
+            values[k++] = value;
+        }
+        Arrays.sort(values);
+        long threshold = n == 0 ? Long.MAX_VALUE : values[values.length - n];
+        int ties = 0; //those equal to the threshold which are kept
+        for (int i = values.length - n; i < values.length && values[i] == threshold; i++) {
+            ties++;
+        }
+        for (Iterator<Long> it = frequencies.values().iterator(); it.hasNext(); ) {
+            long value = it.next();
+            if (value < threshold || (value == threshold && ties-- <= 0)) {
+                statistics.prune(value);
+                it.remove();
+            }
+        }
+        statistics.invalidate();
+        return threshold;
+    }
+
+    /**
+     * Decodes the key of a line, i.e., its first token or, for n-grams, the tokens before the tab joined by single spaces.
+     */
+    private String decodeKey(byte[] bytes, int start, int end, boolean isPlainKey) {
+        if (isPlainKey) {
+            //trimmed as the regex-based parsing does (control chars are not whitespace but are trimmed)
+            String word = new String(bytes, start, end - start, this.encoding);
+            return this.ngram ? word.trim() : word;
+        }
+        this.key.setLength(0);
+        int i = start;
+        while (i < end) {
+            while (isWhitespace(bytes[i])) {
+                i++;
+            }
+            int tokenStart = i;
+            while (i < end && !isWhitespace(bytes[i])) {
+                i++;
+            }
+            if (this.key.length() > 0) {
+                this.key.append(' ');
+            }
+            this.key.append(new String(bytes, tokenStart, i - tokenStart, this.encoding));
+        }
+        return this.key.toString().trim();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dent_in.nlp.lexicon.utils;
+
+/**
+ * The total, min and max of the frequencies loaded from a frequency list, computed while the list is parsed so that
+ * the lexicon needs no second sweep over its words.
+ *
+ * They are exact (i.e., the stats of the words in the lexicon) unless a word was loaded over an existing one, in which
+ * case the frequency it replaced is still counted.
+ */
+public class FrequencyStatistics {
+
+    private long count = 0;
+    private long total = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private boolean exact = true;
+    private long prunedCount = 0;
+    private long prunedMass = 0;
+
+    /**
+     * Adds the frequency of a word put into a lexicon.
+     *
+     * @param frequency The frequency of the word
+     * @param previous The frequency it replaced, or null if the word was new
+     */
+    public void add(long frequency, Long previous) {
+        if (previous != null) {
+            this.exact = false;
+        }
+        this.count++;
+        this.total += frequency;
+        if (frequency < this.min) {
+            this.min = frequency;
+        }
+        if (frequency > this.max) {
+            this.max = frequency;
+        }
+    }
+
+    /**
+     * Counts an entry pruned, either before it was put (i.e., not in the stats above) or after (see invalidate()).
+     *
+     * @param frequency The frequency of the entry
+     */
+    public void prune(long frequency) {
+        this.prunedCount++;
+        this.prunedMass += frequency;
+    }
+
+    /**
+     * Adds up the stats of another part of the same list.
+     *
+     * @param other The stats of the other part
+     */
+    public void addAll(FrequencyStatistics other) {
+        this.count += other.count;
+        this.total += other.total;
+        this.min = Math.min(this.min, other.min);
+        this.max = Math.max(this.max, other.max);
+        this.exact &= other.exact;
+        this.prunedCount += other.prunedCount;
+        this.prunedMass += other.prunedMass;
+    }
+
+    /**
+     * Marks the stats as not to be trusted (e.g., a word was put over another one, or loading failed half way through).
+     */
+    public void invalidate() {
+        this.exact = false;
+    }
+
+    /**
+     * @return The number of words put
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    public long getTotal() {
+        return this.total;
+    }
+
+    /**
+     * @return The min frequency, or Long.MAX_VALUE if no word was put
+     */
+    public long getMin() {
+        return this.min;
+    }
+
+    /**
+     * @return The max frequency, or Long.MIN_VALUE if no word was put
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * @return The number of entries pruned
+     */
+    public long getPrunedCount() {
+        return this.prunedCount;
+    }
+
+    /**
+     * @return The total frequency of the entries pruned
+     */
+    public long getPrunedMass() {
+        return this.prunedMass;
+    }
+
+    /**
+     * @return True if no word was put over another one (nor loading failed), false otherwise
+     */
+    public boolean isExact() {
+        return this.exact;
+    }
+}
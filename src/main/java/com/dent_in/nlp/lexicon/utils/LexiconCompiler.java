@@ -0,0 +1,149 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dent_in.nlp.lexicon.utils;
+
+import com.dent_in.nlp.lexicon.CorpusLexicon;
+import com.dent_in.nlp.lexicon.Lexicon;
+import com.dent_in.nlp.lexicon.LexiconFactory;
+import com.dent_in.nlp.lexicon.exception.FrequencyListFileFormatException;
+import com.dent_in.nlp.lexicon.impl.MappedCorpusLexiconImpl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Compiles word (or n-gram) frequency lists into the binary format served by MappedCorpusLexiconImpl.
+ *
+ * Usage: java com.dent_in.nlp.lexicon.utils.LexiconCompiler [-ngram] input.txt output.lex
+ * where the input file is a frequency list as read by LexiconReader (i.e., Norvig's count_1w.txt or, with -ngram,
+ * count_2w.txt).
+ */
+public class LexiconCompiler {
+
+    /**
+     * Writes the words and frequencies of a corpus lexicon into a compiled lexicon file.
+     *
+     * @param lexicon The lexicon to be compiled
+     * @param output The path of the compiled file
+     * @throws IOException If the compiled file cannot be written
+     */
+    public static void compile(CorpusLexicon lexicon, Path output) throws IOException {
+        Map<String, Long> frequencies = lexicon.getFrequencies();
+        int n = frequencies.size();
+        byte[][] keys = new byte[n][];
+        long[] counts = new long[n];
+        int[] order = new int[n];
+        int i = 0;
+        for (Map.Entry<String, Long> entry : frequencies.entrySet()) {
+            keys[i] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            counts[i] = entry.getValue();
+            order[i] = i;
+            i++;
+        }
+        //unsigned byte order of UTF-8 is the order in which MappedCorpusLexiconImpl searches
+        sortByKey(order, new int[n], keys, 0, n);
+
+        long keyAreaSize = 0;
+        for (byte[] key : keys) {
+            keyAreaSize += key.length;
+        }
+        if (MappedCorpusLexiconImpl.HEADER_SIZE + 12L * n + 4 + keyAreaSize > Integer.MAX_VALUE) {
+            throw new FrequencyListFileFormatException("Compiled lexicon would be larger than 2GB");
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output), 1 << 16))) {
+            out.writeInt(MappedCorpusLexiconImpl.MAGIC);
+            out.writeInt(MappedCorpusLexiconImpl.VERSION);
+            out.writeInt(n);
+            out.writeInt(0);
+            out.writeLong(lexicon.getCorpusSize());
+            out.writeLong(n == 0 ? 0 : lexicon.getMinFrequency());
+            out.writeLong(n == 0 ? 0 : lexicon.getMaxFrequency());
+            for (int k = 0; k < n; k++) {
+                out.writeLong(counts[order[k]]);
+            }
+            int offset = 0;
+            for (int k = 0; k < n; k++) {
+                out.writeInt(offset);
+                offset += keys[order[k]].length;
+            }
+            out.writeInt(offset);
+            for (int k = 0; k < n; k++) {
+                out.write(keys[order[k]]);
+            }
+        }
+    }
+
+    /**
+     * Sorts a range of indices by their keys by a merge sort of the primitive indices (no boxing, no comparator).
+     */
+    private static void sortByKey(int[] order, int[] scratch, byte[][] keys, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sortByKey(order, scratch, keys, from, middle);
+        sortByKey(order, scratch, keys, middle, to);
+        if (compare(keys[order[middle - 1]], keys[order[middle]]) <= 0) {
+            return; //already in order
+        }
+        System.arraycopy(order, from, scratch, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && compare(keys[scratch[left]], keys[scratch[right]]) <= 0)) {
+                order[i] = scratch[left++];
+            } else {
+                order[i] = scratch[right++];
+            }
+        }
+    }
+
+    private static int compare(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int k = 0; k < length; k++) {
+            int cmp = (a[k] & 0xFF) - (b[k] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean isNgram = args.length == 3 && "-ngram".equals(args[0]);
+        if (args.length != (isNgram ? 3 : 2)) {
+            System.out.println("Usage: LexiconCompiler [-ngram] input.txt output.lex");
+            return;
+        }
+        String input = args[args.length - 2];
+        Path output = FileSystems.getDefault().getPath(args[args.length - 1]);
+
+        CorpusLexicon lexicon = (CorpusLexicon) new LexiconFactory().createInstance(
+                isNgram ? Lexicon.TYPE.NGRAMCORPUSLEXICON : Lexicon.TYPE.CORPUSLEXICON);
+        lexicon.load(input);
+        compile(lexicon, output);
+        System.out.println("Compiled " + lexicon.getVocabularySize() + " entries into " + output);
+    }
+}
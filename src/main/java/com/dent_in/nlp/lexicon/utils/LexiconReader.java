@@ -19,22 +19,45 @@ package com.dent_in.nlp.lexicon.utils;
 
 
 import com.dent_in.nlp.lexicon.Lexicon;
+import com.dent_in.nlp.lexicon.index.KeyValidator;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
 
 
 public class LexiconReader {
 
     private static final String NONSPACE ="[\\S]+";
+    //files are split into chunks of about this size (or more chunks than that if there are more threads)
+    private static final int MAX_CHUNK_SIZE = 1 << 26;
 
     /**
      * A pass through method to load a corpus lexicon assuming a UTF-8 encoding.
@@ -61,6 +84,7 @@ public class LexiconReader {
                 LexiconReader.loadNgramCorpusLexicon(path, lexicon, encoding);
                 break;
             case CORPUSLEXICON:
+            case PRIMITIVECORPUSLEXICON:
                 LexiconReader.loadCorpusLexicon(path, lexicon, encoding);
                 break;
             case DICTIONARYLEXICON:
@@ -69,11 +93,48 @@ public class LexiconReader {
             case THESAURUSLEXICON:
                 LexiconReader.loadThesaurusLexicon(path, lexicon, encoding);
                 break;
+            case MAPPEDCORPUSLEXICON:
+                //compiled lexicons are mapped as they are, nothing to read
+                lexicon.load(lexiconFilePath);
+                break;
+            case PERFECTHASHCORPUSLEXICON:
+                //static lexicons read the list into a lexicon of their own, and then hash its words
+                lexicon.load(lexiconFilePath);
+                break;
+            case DAWGCORPUSLEXICON:
+                //automata are either mapped as saved or built from a lexicon of their own
+                lexicon.load(lexiconFilePath);
+                break;
             case DEFAULT:
                 LexiconReader.loadLexicon(path, lexicon, encoding);
         }
     }
 
+    /**
+     * Loads a corpus or n-gram corpus lexicon on a number of threads (see loadCorpusLexicon(Path, Lexicon, Charset, int)).
+     * Any other type of lexicon is loaded as usual.
+     *
+     * @param lexiconFilePath The input file path where the word frequency is found
+     * @param lexicon The lexicon where the words and frequencies (if any) will be loaded
+     * @param encoding The character encoding of the input file
+     * @param parallelism The number of threads parsing the file
+     * @return The ill-formatted lines found in the file
+     */
+    public static LoadErrorCollector loadLexicon(String lexiconFilePath, Lexicon lexicon, Charset encoding, int parallelism) {
+        Path path = FileSystems.getDefault().getPath(lexiconFilePath);
+
+        switch (lexicon.getType()) {
+            case NGRAMCORPUSLEXICON:
+                return LexiconReader.loadNgramCorpusLexicon(path, lexicon, encoding, parallelism);
+            case CORPUSLEXICON:
+            case PRIMITIVECORPUSLEXICON:
+                return LexiconReader.loadCorpusLexicon(path, lexicon, encoding, parallelism);
+            default:
+                LexiconReader.loadLexicon(lexiconFilePath, lexicon, encoding);
+                return new LoadErrorCollector();
+        }
+    }
+
     private static void loadDictionaryLexicon(Path path, Lexicon lexicon, Charset encoding) {
         //TODO: This is a dictionary with words and their definitions, either monolingual or bilingual.
     }
@@ -113,44 +174,24 @@ public class LexiconReader {
      * @param encoding The character encoding of the input file
      */
     public static void loadCorpusLexicon(Path path, Lexicon lexicon, Charset encoding) {
-        Map<String, Long> mapWordFrequencies = (Map<String, Long>)lexicon.getBackBone();
-        Pattern pattern = Pattern.compile(NONSPACE);
-        //JDK7+ pattern for reading files efficiently
-        try (BufferedReader reader = Files.newBufferedReader(path, encoding)) {
-            String line = null;
-            int lineCounter = 0;
-            while ((line = reader.readLine()) != null) {
-                Matcher matcher =  pattern.matcher(line);
-                int safeguard = 0;
-                String key = "";
-                String value = "";
-                while(matcher.find()) {
-                    int start = matcher.start();
-                    int end = matcher.end();
-                    String token = line.substring(start, end);
-                    switch(safeguard) {
-                        case 0:
-                            key = token;
-                            break;
-                        case 1:
-                            value = token;
-                            break;
-                        default:
-                            //there's an unexpected token
-                            System.out.println("WARN: There is an unexpected token, more than one space found at line: " + lineCounter);
-                    }
-                    safeguard++;
-                }
-                try {
-                    mapWordFrequencies.put(key, Long.parseLong(value));
-                } catch (NumberFormatException nfe) {
-                    System.out.println("WARN: There is a wrong formatted frequency: " + value + " at line: " + lineCounter);
-                }
-                lineCounter++;
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        readFrequencyList(path, lexicon, encoding, 1, false, new LoadErrorCollector(System.out));
+    }
+
+    /**
+     * Same as loadCorpusLexicon(Path, Lexicon, Charset) but the file is split into line-aligned chunks which are read
+     * and parsed on a number of threads, each into a map of its own, and the maps are then merged in file order (i.e.,
+     * a word listed twice gets the frequency of its last line, as with a single thread).
+     *
+     * @param path The path to the word frequency file
+     * @param lexicon The lexicon where the words and frequencies (if any) will be loaded
+     * @param encoding The character encoding of the input file
+     * @param parallelism The number of threads parsing the file
+     * @return The ill-formatted lines found in the file
+     */
+    public static LoadErrorCollector loadCorpusLexicon(Path path, Lexicon lexicon, Charset encoding, int parallelism) {
+        LoadErrorCollector errors = new LoadErrorCollector();
+        readFrequencyList(path, lexicon, encoding, parallelism, false, errors);
+        return errors;
     }
 
     /**
@@ -164,46 +205,545 @@ public class LexiconReader {
      * @param encoding The encoding to use when reading the input file
      */
     public static void loadNgramCorpusLexicon(Path path, Lexicon lexicon, Charset encoding) {
+        readFrequencyList(path, lexicon, encoding, 1, true, new LoadErrorCollector(System.out));
+    }
+
+    /**
+     * Same as loadNgramCorpusLexicon(Path, Lexicon, Charset) but parsed on a number of threads
+     * (see loadCorpusLexicon(Path, Lexicon, Charset, int)).
+     *
+     * @param path The path to the input file containing a lexicon
+     * @param lexicon The lexicon into which the input file will be loaded
+     * @param encoding The encoding to use when reading the input file
+     * @param parallelism The number of threads parsing the file
+     * @return The ill-formatted lines found in the file
+     */
+    public static LoadErrorCollector loadNgramCorpusLexicon(Path path, Lexicon lexicon, Charset encoding, int parallelism) {
+        LoadErrorCollector errors = new LoadErrorCollector();
+        readFrequencyList(path, lexicon, encoding, parallelism, true, errors);
+        return errors;
+    }
+
+    /**
+     * Loads a word (or n-gram) frequency list and returns the stats of the frequencies loaded, computed on the fly.
+     * Lists are parsed at the byte level (see FrequencyListParser) unless their encoding does not allow it, in which
+     * case they are parsed line by line with a regex on the calling thread. A gzipped list (i.e., *.gz) is decompressed
+     * as it is parsed, and a directory is taken as the shards of one list (see readShards()).
+     *
+     * @param path The path to the frequency list
+     * @param lexicon The lexicon into which the list will be loaded
+     * @param encoding The encoding of the list
+     * @param parallelism The number of threads parsing the list (1 to parse it as it is read)
+     * @param ngram True if the list is an n-gram frequency list, false if it is a word frequency list
+     * @param errors Where ill-formatted lines are reported
+     * @return The stats of the frequencies loaded
+     */
+    public static FrequencyStatistics readFrequencyList(Path path, Lexicon lexicon, Charset encoding, int parallelism,
+                                                        boolean ngram, LoadErrorCollector errors) {
+        return readFrequencyList(path, lexicon, encoding, parallelism, ngram, null, errors);
+    }
+
+    /**
+     * Same as readFrequencyList(Path, Lexicon, Charset, int, boolean, LoadErrorCollector) but entries are pruned as
+     * they are parsed. With a vocabulary budget, entries are parsed into temporary maps (kept within twice the budget)
+     * and only the most frequent ones are put into the lexicon.
+     *
+     * @param path The path to the frequency list
+     * @param lexicon The lexicon into which the list will be loaded
+     * @param encoding The encoding of the list
+     * @param parallelism The number of threads parsing the list (1 to parse it as it is read)
+     * @param ngram True if the list is an n-gram frequency list, false if it is a word frequency list
+     * @param pruning What to prune, or null to load every entry
+     * @param errors Where ill-formatted lines are reported
+     * @return The stats of the frequencies loaded, and of those pruned
+     */
+    public static FrequencyStatistics readFrequencyList(Path path, Lexicon lexicon, Charset encoding, int parallelism,
+                                                        boolean ngram, PruningOptions pruning, LoadErrorCollector errors) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        if (Files.isDirectory(path)) {
+            try {
+                return readShards(listShards(path, "*"), lexicon, encoding, parallelism, ngram, pruning, errors);
+            } catch (IOException e) {
+                errors.report(0, LoadErrorCollector.Kind.UNREADABLE_FILE, e.toString());
+                FrequencyStatistics statistics = new FrequencyStatistics();
+                statistics.invalidate();
+                return statistics;
+            }
+        }
+        Map<String, Long> mapWordFrequencies = (Map<String, Long>)lexicon.getBackBone();
+        if (parallelism == 1 || isGzipped(path) || !FrequencyListParser.canParse(encoding)) {
+            //gzipped lists cannot be split into chunks, they are read as they are decompressed
+            Chunk chunk = new Chunk(isBudgeted(pruning) ? new HashMap<>() : mapWordFrequencies, errors,
+                    getValidator(mapWordFrequencies));
+            try (InputStream in = openStream(path)) {
+                readStream(in, chunk, encoding, ngram, pruning);
+            } catch (IOException e) {
+                chunk.statistics.invalidate();
+                e.printStackTrace();
+            }
+            if (isBudgeted(pruning)) {
+                putMostFrequent(chunk.frequencies, mapWordFrequencies, pruning.getMaxVocabularySize(), chunk.statistics);
+            }
+            return chunk.statistics;
+        }
+        return readInParallel(path, mapWordFrequencies, encoding, parallelism, ngram, pruning, errors);
+    }
+
+    /**
+     * Lists the shards of a frequency list in a directory, in the order of their names (i.e., the order in which a word
+     * listed in two shards is put, the last one wins).
+     *
+     * @param directory The directory of the shards
+     * @param glob The pattern of the names of the shards (e.g., "*.gz" or "2gm-*")
+     * @return The paths of the shards
+     * @throws IOException If the directory cannot be read
+     */
+    public static List<Path> listShards(Path directory, String glob) throws IOException {
+        List<Path> shards = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for (Path shard : stream) {
+                if (Files.isRegularFile(shard)) {
+                    shards.add(shard);
+                }
+            }
+        }
+        Collections.sort(shards);
+        return shards;
+    }
+
+    /**
+     * Loads the shards of a word (or n-gram) frequency list (e.g., the gzipped files of a Google n-gram distribution)
+     * into one lexicon, without decompressing them to disk first.
+     *
+     * @param directory The directory of the shards
+     * @param glob The pattern of the names of the shards (e.g., "*.gz")
+     * @param lexicon The lexicon into which the shards will be loaded
+     * @param encoding The encoding of the shards
+     * @param parallelism The number of shards decompressed and parsed at once
+     * @return The ill-formatted lines found in the shards
+     */
+    public static LoadErrorCollector loadShards(Path directory, String glob, Lexicon lexicon, Charset encoding, int parallelism) {
+        LoadErrorCollector errors = new LoadErrorCollector();
+        try {
+            readShards(listShards(directory, glob), lexicon, encoding, parallelism,
+                    lexicon.getType() == Lexicon.TYPE.NGRAMCORPUSLEXICON, null, errors);
+        } catch (IOException e) {
+            errors.report(0, LoadErrorCollector.Kind.UNREADABLE_FILE, e.toString());
+        }
+        return errors;
+    }
+
+    /**
+     * Decompresses (if gzipped) and parses shards of a frequency list concurrently, each one on a thread and into a map
+     * of its own, and merges them in the order given as soon as they are parsed, no more than parallelism shards being
+     * parsed ahead of the merge. Warnings tell the shard they come from, and a shard which cannot be read (e.g., a
+     * truncated gzip) is reported as an UNREADABLE_FILE error while the others are still loaded.
+     *
+     * @param shards The paths of the shards, plain or gzipped (i.e., *.gz)
+     * @param lexicon The lexicon into which the shards will be loaded
+     * @param encoding The encoding of the shards
+     * @param parallelism The number of shards decompressed and parsed at once
+     * @param ngram True if the shards are n-gram frequency lists, false if they are word frequency lists
+     * @param pruning What to prune, or null to load every entry
+     * @param errors Where ill-formatted lines are reported
+     * @return The stats of the frequencies loaded, and of those pruned
+     */
+    public static FrequencyStatistics readShards(List<Path> shards, Lexicon lexicon, Charset encoding, int parallelism,
+                                                 boolean ngram, PruningOptions pruning, LoadErrorCollector errors) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
         Map<String, Long> mapWordFrequencies = (Map<String, Long>)lexicon.getBackBone();
-        String NONSPACE ="[\\S]+";
+        KeyValidator validator = getValidator(mapWordFrequencies);
+        FrequencyStatistics statistics = new FrequencyStatistics();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            IntFunction<Future<Chunk>> submit = k -> executor.submit(() -> {
+                Chunk chunk = new Chunk(validator);
+                try (InputStream in = openStream(shards.get(k))) {
+                    readStream(in, chunk, encoding, ngram, pruning);
+                } catch (IOException e) {
+                    //the lines parsed before are kept, and the other shards are loaded all the same
+                    chunk.statistics.invalidate();
+                    chunk.errors.report(0, LoadErrorCollector.Kind.UNREADABLE_FILE, e.toString());
+                }
+                return chunk;
+            });
+            //merged in the order given while the next shards (parallelism at most) are still being parsed
+            Deque<Future<Chunk>> window = new ArrayDeque<>();
+            int next = 0;
+            for (; next < parallelism && next < shards.size(); next++) {
+                window.add(submit.apply(next));
+            }
+            Map<String, Long> merged = isBudgeted(pruning) ? new HashMap<>() : mapWordFrequencies;
+            long minFrequency = Long.MIN_VALUE;
+            for (int k = 0; !window.isEmpty(); k++) {
+                Chunk chunk = window.poll().get();
+                if (next < shards.size()) {
+                    window.add(submit.apply(next++));
+                }
+                minFrequency = merge(chunk, merged, pruning, minFrequency, statistics);
+                errors.addAll(chunk.errors, shards.get(k).getFileName().toString());
+            }
+            if (isBudgeted(pruning)) {
+                putMostFrequent(merged, mapWordFrequencies, pruning.getMaxVocabularySize(), statistics);
+            }
+        } catch (ExecutionException e) {
+            statistics.invalidate();
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            statistics.invalidate();
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the keys a map takes, if it only takes some (e.g., the bigrams of a BigramTable), so that the others are
+     * reported and skipped while parsing.
+     */
+    private static KeyValidator getValidator(Map<String, Long> mapWordFrequencies) {
+        return mapWordFrequencies instanceof KeyValidator ? (KeyValidator) mapWordFrequencies : null;
+    }
+
+    private static boolean isBudgeted(PruningOptions pruning) {
+        return pruning != null && pruning.hasMaxVocabularySize();
+    }
+
+    /**
+     * Puts the n most frequent entries of a temporary map into the map of a lexicon, the others are counted as pruned.
+     */
+    private static void putMostFrequent(Map<String, Long> frequencies, Map<String, Long> mapWordFrequencies, int n,
+                                        FrequencyStatistics statistics) {
+        FrequencyListParser.keepMostFrequent(frequencies, n, statistics);
+        for (Map.Entry<String, Long> entry : frequencies.entrySet()) {
+            if (mapWordFrequencies.put(entry.getKey(), entry.getValue()) != null) {
+                statistics.invalidate();
+            }
+        }
+    }
+
+    private static boolean isGzipped(Path path) {
+        return path.getFileName() != null && path.getFileName().toString().endsWith(".gz");
+    }
+
+    /**
+     * Opens a frequency list, decompressing it on the fly if it is gzipped.
+     */
+    private static InputStream openStream(Path path) throws IOException {
+        InputStream in = Files.newInputStream(path);
+        return isGzipped(path) ? new GZIPInputStream(in, 1 << 16) : in;
+    }
+
+    /**
+     * Parses a frequency list as it is read, a block at a time at the byte level, or else line by line with a regex
+     * (i.e., for encodings which cannot be parsed at the byte level).
+     */
+    private static void readStream(InputStream in, Chunk chunk, Charset encoding, boolean ngram, PruningOptions pruning)
+            throws IOException {
+        FrequencyListParser parser = new FrequencyListParser(ngram, encoding, chunk.frequencies, chunk.errors,
+                chunk.statistics, pruning, chunk.validator);
+        if (!FrequencyListParser.canParse(encoding)) {
+            chunk.lines = readWithPattern(new BufferedReader(new InputStreamReader(in, encoding)), parser, ngram, chunk.errors);
+            return;
+        }
+        byte[] buffer = new byte[1 << 16];
+        int length = 0;
+        int read = 0;
+        while ((read = in.read(buffer, length, buffer.length - length)) >= 0) {
+            length += read;
+            int parsed = parser.parse(buffer, 0, length, false);
+            if (parsed == 0 && length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, 2 * buffer.length); //a line longer than the buffer
+            } else {
+                //the incomplete last line goes first
+                System.arraycopy(buffer, parsed, buffer, 0, length - parsed);
+                length -= parsed;
+            }
+        }
+        parser.parse(buffer, 0, length, true);
+        chunk.lines = parser.getLineCount();
+    }
+
+    /**
+     * Parses a frequency list line by line with a regex, the entries being put (or pruned) by a parser.
+     *
+     * @return The number of lines read
+     */
+    static long readWithPattern(BufferedReader reader, FrequencyListParser parser, boolean ngram,
+                                LoadErrorCollector errors) throws IOException {
         Pattern pattern = Pattern.compile(NONSPACE);
-        //JDK7+ pattern for reading files efficiently
-        try (BufferedReader reader = Files.newBufferedReader(path, encoding)) {
-            String line = null;
-            int lineCounter = 0;
-            while ((line = reader.readLine()) != null) {
-                Matcher matcher =  pattern.matcher(line);
-                int safeguard = 0;
-                String key = "";
-                String value = "";
-                while(matcher.find()) {
-                    int start = matcher.start();
-                    int end = matcher.end();
-                    String token = line.substring(start, end);
-                    switch(safeguard) {
-                        case 0:
-                            key += token + " ";
-                            break;
-                        case 1:
-                            value = token;
-                            break;
-                        default:
-                            //there's an unexpected token
-                            System.out.println("WARN: There is an unexpected token, more than one space found at line: " + lineCounter);
+        String line = null;
+        long lineCounter = 0;
+        while ((line = reader.readLine()) != null) {
+            if (ngram) {
+                parseNgramLine(line, lineCounter, pattern, parser, errors);
+            } else {
+                parseCorpusLine(line, lineCounter, pattern, parser, errors);
+            }
+            lineCounter++;
+        }
+        return lineCounter;
+    }
+
+    /**
+     * Parses one line of a word frequency list.
+     *
+     * @param line The line
+     * @param lineCounter The number of the line
+     * @param pattern The pattern of a token
+     * @param parser The parser putting the word and its frequency
+     * @param errors Where ill-formatted lines are reported
+     */
+    private static void parseCorpusLine(String line, long lineCounter, Pattern pattern, FrequencyListParser parser,
+                                        LoadErrorCollector errors) {
+        Matcher matcher =  pattern.matcher(line);
+        int safeguard = 0;
+        String key = "";
+        String value = "";
+        while(matcher.find()) {
+            int start = matcher.start();
+            int end = matcher.end();
+            String token = line.substring(start, end);
+            switch(safeguard) {
+                case 0:
+                    key = token;
+                    break;
+                case 1:
+                    value = token;
+                    break;
+                default:
+                    //there's an unexpected token
+                    errors.report(lineCounter, LoadErrorCollector.Kind.UNEXPECTED_TOKEN, null);
+            }
+            safeguard++;
+        }
+        try {
+            long frequency = Long.parseLong(value);
+            parser.put(lineCounter, key, frequency);
+        } catch (NumberFormatException nfe) {
+            errors.report(lineCounter, LoadErrorCollector.Kind.WRONG_FREQUENCY, value);
+        }
+    }
+
+    /**
+     * Parses one line of an n-gram frequency list.
+     *
+     * @param line The line
+     * @param lineCounter The number of the line
+     * @param pattern The pattern of a token
+     * @param parser The parser putting the n-gram and its frequency
+     * @param errors Where ill-formatted lines are reported
+     */
+    private static void parseNgramLine(String line, long lineCounter, Pattern pattern, FrequencyListParser parser,
+                                       LoadErrorCollector errors) {
+        Matcher matcher =  pattern.matcher(line);
+        int safeguard = 0;
+        String key = "";
+        String value = "";
+        while(matcher.find()) {
+            int start = matcher.start();
+            int end = matcher.end();
+            String token = line.substring(start, end);
+            switch(safeguard) {
+                case 0:
+                    key += token + " ";
+                    break;
+                case 1:
+                    value = token;
+                    break;
+                default:
+                    //there's an unexpected token
+                    errors.report(lineCounter, LoadErrorCollector.Kind.UNEXPECTED_TOKEN, null);
+            }
+            //look ahead
+            if(end < line.length() && line.charAt(end) == '\t')
+                safeguard++;
+        }
+        try {
+            long frequency = Long.parseLong(value);
+            parser.put(lineCounter, key.trim(), frequency);
+        } catch (NumberFormatException nfe) {
+            errors.report(lineCounter, LoadErrorCollector.Kind.WRONG_FREQUENCY, value);
+        }
+    }
+
+    /**
+     * Splits a file into line-aligned chunks, parses them on a number of threads and merges the results in file order.
+     * A chunk is only submitted once the chunk parallelism places before it is merged, so that a file of many chunks
+     * is never held in memory as a whole, parsed but not merged yet. Chunks are aligned on '\n' bytes, which the
+     * encoding is known to encode as that single byte and never use otherwise.
+     */
+    private static FrequencyStatistics readInParallel(Path path, Map<String, Long> mapWordFrequencies, Charset encoding,
+                                                      int parallelism, boolean ngram, PruningOptions pruning,
+                                                      LoadErrorCollector errors) {
+        FrequencyStatistics statistics = new FrequencyStatistics();
+        KeyValidator validator = getValidator(mapWordFrequencies);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = getChunkBounds(channel, parallelism);
+            IntFunction<Future<Chunk>> submit = k -> executor.submit(
+                    () -> parseChunk(channel, bounds[k], bounds[k + 1], encoding, ngram, pruning, validator));
+            //merged in file order while the next chunks (parallelism at most) are still being parsed
+            Deque<Future<Chunk>> window = new ArrayDeque<>();
+            int next = 0;
+            for (; next < parallelism && next + 1 < bounds.length; next++) {
+                window.add(submit.apply(next));
+            }
+            long lines = 0;
+            Map<String, Long> merged = isBudgeted(pruning) ? new HashMap<>() : mapWordFrequencies;
+            long minFrequency = Long.MIN_VALUE;
+            while (!window.isEmpty()) {
+                Chunk chunk = window.poll().get();
+                if (next + 1 < bounds.length) {
+                    window.add(submit.apply(next++));
+                }
+                minFrequency = merge(chunk, merged, pruning, minFrequency, statistics);
+                errors.addAll(chunk.errors, lines);
+                lines += chunk.lines;
+            }
+            if (isBudgeted(pruning)) {
+                putMostFrequent(merged, mapWordFrequencies, pruning.getMaxVocabularySize(), statistics);
+            }
+        } catch (IOException e) {
+            statistics.invalidate();
+            e.printStackTrace();
+        } catch (ExecutionException e) {
+            statistics.invalidate();
+            if (e.getCause() instanceof UncheckedIOException) {
+                e.getCause().getCause().printStackTrace();
+            } else {
+                throw new IllegalStateException(e.getCause());
+            }
+        } catch (InterruptedException e) {
+            statistics.invalidate();
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        return statistics;
+    }
+
+    /**
+     * Computes the offsets of the chunks of a file, each chunk starting right after a '\n' (or at 0).
+     *
+     * @param channel The file
+     * @param parallelism The number of threads parsing the file
+     * @return The offsets where the chunks start, followed by the size of the file
+     * @throws IOException If the file cannot be read
+     */
+    private static long[] getChunkBounds(FileChannel channel, int parallelism) throws IOException {
+        long size = channel.size();
+        long n = Math.max(parallelism, (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+        long[] bounds = new long[(int) n + 1];
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 12);
+        for (int k = 1; k < n; k++) {
+            long position = Math.max(size * k / n, bounds[k - 1]);
+            //the chunk starts after the first '\n' at or after position - 1
+            long bound = size;
+            for (long p = Math.max(position - 1, 0); p < size && bound == size; ) {
+                buffer.clear();
+                int read = channel.read(buffer, p);
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == '\n') {
+                        bound = p + i + 1;
+                        break;
                     }
-                    //look ahead
-                    if(end < line.length() && line.charAt(end) == '\t')
-                        safeguard++;
                 }
-                try {
-                    mapWordFrequencies.put(key.trim(), Long.parseLong(value));
-                } catch (NumberFormatException nfe) {
-                    System.out.println("WARN: There is a wrong formatted frequency: " + value + " at line: " + lineCounter);
+                p += Math.max(read, 0);
+            }
+            bounds[k] = position == 0 ? 0 : bound;
+        }
+        bounds[(int) n] = size;
+        return bounds;
+    }
+
+    /**
+     * The words and frequencies of one chunk of a file (or one shard), with their stats, the errors found and the
+     * number of lines read, along with the keys the lexicon takes (null for any).
+     */
+    private static final class Chunk {
+        final Map<String, Long> frequencies;
+        final LoadErrorCollector errors;
+        final KeyValidator validator;
+        final FrequencyStatistics statistics = new FrequencyStatistics();
+        long lines = 0;
+
+        Chunk(KeyValidator validator) {
+            this(new HashMap<>(), new LoadErrorCollector(), validator);
+        }
+
+        Chunk(Map<String, Long> frequencies, LoadErrorCollector errors, KeyValidator validator) {
+            this.frequencies = frequencies;
+            this.errors = errors;
+            this.validator = validator;
+        }
+    }
+
+    /**
+     * Puts the words and frequencies of a chunk into the map of a lexicon, or into the temporary map of a budgeted load
+     * (see putMostFrequent()), and adds up their stats. The temporary map is kept within twice the budget as it grows,
+     * like the map of each chunk, entries below the least frequency kept so far being pruned right away.
+     *
+     * @param chunk The parsed chunk
+     * @param mapWordFrequencies The map of the lexicon, or the temporary map
+     * @param pruning What to prune, or null to keep every entry
+     * @param minFrequency The least frequency kept so far (Long.MIN_VALUE at first)
+     * @param statistics The stats of the chunks merged so far
+     * @return The least frequency kept so far, including this chunk
+     */
+    private static long merge(Chunk chunk, Map<String, Long> mapWordFrequencies, PruningOptions pruning,
+                              long minFrequency, FrequencyStatistics statistics) {
+        int n = isBudgeted(pruning) ? pruning.getMaxVocabularySize() : Integer.MAX_VALUE;
+        for (Map.Entry<String, Long> entry : chunk.frequencies.entrySet()) {
+            long value = entry.getValue();
+            if (value < minFrequency) {
+                statistics.prune(value);
+            } else if (mapWordFrequencies.put(entry.getKey(), value) != null) {
+                statistics.invalidate(); //listed in an earlier chunk too
+            }
+            if (mapWordFrequencies.size() > 2L * n) {
+                minFrequency = Math.max(minFrequency,
+                        FrequencyListParser.keepMostFrequent(mapWordFrequencies, n, statistics));
+            }
+        }
+        statistics.addAll(chunk.statistics);
+        return minFrequency;
+    }
+
+    /**
+     * Reads and parses one chunk of a file, with positional reads so that chunks are read concurrently.
+     *
+     * @param channel The file
+     * @param start The offset of the first byte of the chunk
+     * @param end The offset after the last byte of the chunk
+     * @param encoding The encoding of the file
+     * @param ngram True if the file is an n-gram frequency list, false if it is a word frequency list
+     * @param pruning What to prune, or null to keep every entry
+     * @param validator The keys the lexicon takes, or null for any
+     * @return The parsed chunk, with line numbers counted from its first line
+     */
+    private static Chunk parseChunk(FileChannel channel, long start, long end, Charset encoding, boolean ngram,
+                                    PruningOptions pruning, KeyValidator validator) {
+        Chunk chunk = new Chunk(validator);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    break;
                 }
-                lineCounter++;
             }
+            FrequencyListParser parser = new FrequencyListParser(ngram, encoding, chunk.frequencies, chunk.errors,
+                    chunk.statistics, pruning, validator);
+            parser.parse(buffer.array(), 0, buffer.position(), true);
+            chunk.lines = parser.getLineCount();
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new UncheckedIOException(e);
         }
+        return chunk;
     }
 }
@@ -0,0 +1,200 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dent_in.nlp.lexicon.utils;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the ill-formatted lines (and the files which cannot be read) found while loading a lexicon file, instead
+ * of printing a warning per line as they are found. Each loading thread reports into its own collector, which are
+ * then merged in file order.
+ *
+ * Only the first MAX_KEPT errors are kept (a badly broken multi-GB file would otherwise fill the heap with warnings),
+ * but all of them are counted.
+ */
+public class LoadErrorCollector {
+
+    public static final int MAX_KEPT = 1000;
+
+    public enum Kind {
+        UNEXPECTED_TOKEN, WRONG_FREQUENCY, WRONG_KEY, UNREADABLE_FILE
+    }
+
+    /**
+     * One ill-formatted line.
+     */
+    public static final class LoadError {
+        private final long line;
+        private final Kind kind;
+        private final String value;
+        private final String source;
+
+        public LoadError(long line, Kind kind, String value) {
+            this(line, kind, value, null);
+        }
+
+        /**
+         * Creates an error found in one of several files (e.g., a shard of a frequency list).
+         *
+         * @param line The number of the line in its file (counting from 0)
+         * @param kind What is wrong with the line
+         * @param value The offending frequency or key, if any
+         * @param source The name of the file, or null if there is only one
+         */
+        public LoadError(long line, Kind kind, String value, String source) {
+            this.line = line;
+            this.kind = kind;
+            this.value = value;
+            this.source = source;
+        }
+
+        /**
+         * @return The number of the line (counting from 0), 0 for UNREADABLE_FILE
+         */
+        public long getLine() {
+            return this.line;
+        }
+
+        public Kind getKind() {
+            return this.kind;
+        }
+
+        /**
+         * @return The offending frequency for WRONG_FREQUENCY, the offending key for WRONG_KEY, the I/O error for
+         * UNREADABLE_FILE, null otherwise
+         */
+        public String getValue() {
+            return this.value;
+        }
+
+        /**
+         * @return The name of the file the line is in, or null if there is only one
+         */
+        public String getSource() {
+            return this.source;
+        }
+
+        /**
+         * Returns the same warning the readers used to print.
+         *
+         * @return The warning message
+         */
+        @Override
+        public String toString() {
+            String where = this.source == null ? "" : " of " + this.source;
+            if (this.kind == Kind.UNEXPECTED_TOKEN) {
+                return "WARN: There is an unexpected token, more than one space found at line: " + this.line + where;
+            }
+            if (this.kind == Kind.UNREADABLE_FILE) {
+                return "WARN: There is a file which cannot be read: " + this.value + where;
+            }
+            if (this.kind == Kind.WRONG_KEY) {
+                return "WARN: There is a key the lexicon does not take: " + this.value + " at line: " + this.line + where;
+            }
+            return "WARN: There is a wrong formatted frequency: " + this.value + " at line: " + this.line + where;
+        }
+    }
+
+    private final List<LoadError> errors = new ArrayList<>();
+    private final PrintStream echo;
+    private long count = 0;
+
+    public LoadErrorCollector() {
+        this(null);
+    }
+
+    /**
+     * Creates a collector which also prints every error as it is reported.
+     *
+     * @param echo Where errors are printed (e.g., System.out), or null to only collect them
+     */
+    public LoadErrorCollector(PrintStream echo) {
+        this.echo = echo;
+    }
+
+    /**
+     * Reports an ill-formatted line.
+     *
+     * @param line The number of the line (counting from 0)
+     * @param kind What is wrong with it
+     * @param value The offending frequency or key, if any
+     */
+    public void report(long line, Kind kind, String value) {
+        LoadError error = new LoadError(line, kind, value);
+        if (this.echo != null) {
+            this.echo.println(error);
+        }
+        if (this.errors.size() < MAX_KEPT) {
+            this.errors.add(error);
+        }
+        this.count++;
+    }
+
+    /**
+     * Appends the errors of a collector which started counting lines later in the same file.
+     *
+     * @param other The collector of a later part of the file
+     * @param firstLine The number of the first line of that part in the whole file
+     */
+    public void addAll(LoadErrorCollector other, long firstLine) {
+        for (LoadError error : other.errors) {
+            if (this.errors.size() >= MAX_KEPT) {
+                break;
+            }
+            this.errors.add(new LoadError(firstLine + error.getLine(), error.getKind(), error.getValue(), error.getSource()));
+        }
+        this.count += other.count;
+    }
+
+    /**
+     * Appends the errors of a collector of another file.
+     *
+     * @param other The collector of the other file
+     * @param source The name of the other file
+     */
+    public void addAll(LoadErrorCollector other, String source) {
+        for (LoadError error : other.errors) {
+            if (this.errors.size() >= MAX_KEPT) {
+                break;
+            }
+            this.errors.add(new LoadError(error.getLine(), error.getKind(), error.getValue(), source));
+        }
+        this.count += other.count;
+    }
+
+    /**
+     * @return The errors kept, in file order
+     */
+    public List<LoadError> getErrors() {
+        return Collections.unmodifiableList(this.errors);
+    }
+
+    /**
+     * @return The number of errors reported, including those not kept
+     */
+    public long getErrorCount() {
+        return this.count;
+    }
+
+    public boolean isEmpty() {
+        return this.count == 0;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dent_in.nlp.lexicon.utils;
+
+import com.dent_in.nlp.lexicon.Lexicon;
+
+/**
+ * What to leave out of a frequency list while it is loaded: the entries below a minimum frequency, the entries beyond
+ * a vocabulary budget (i.e., all but the most frequent ones), and the n-grams with a word out of a given vocabulary
+ * (e.g., bigrams whose words are not both unigrams, the start of a sentence aside). Pruned entries are counted (see
+ * FrequencyStatistics) but never put into the lexicon.
+ */
+public class PruningOptions {
+
+    private long minFrequency = Long.MIN_VALUE;
+    private int maxVocabularySize = Integer.MAX_VALUE;
+    private Lexicon vocabulary = null;
+
+    //the start of a sentence, in no vocabulary of words but in the n-grams beginning one
+    private static final String START = "<S>";
+
+    public long getMinFrequency() {
+        return this.minFrequency;
+    }
+
+    /**
+     * Sets the frequency below which entries are pruned.
+     *
+     * @param minFrequency The min frequency of an entry kept
+     */
+    public void setMinFrequency(long minFrequency) {
+        this.minFrequency = minFrequency;
+    }
+
+    public int getMaxVocabularySize() {
+        return this.maxVocabularySize;
+    }
+
+    /**
+     * Sets the number of entries kept, the most frequent ones (ties at the cut-off are broken arbitrarily).
+     *
+     * @param maxVocabularySize The max number of entries loaded from a list
+     */
+    public void setMaxVocabularySize(int maxVocabularySize) {
+        if (maxVocabularySize < 0) {
+            throw new IllegalArgumentException("maxVocabularySize must not be negative: " + maxVocabularySize);
+        }
+        this.maxVocabularySize = maxVocabularySize;
+    }
+
+    public boolean hasMaxVocabularySize() {
+        return this.maxVocabularySize != Integer.MAX_VALUE;
+    }
+
+    public Lexicon getVocabulary() {
+        return this.vocabulary;
+    }
+
+    /**
+     * Sets the vocabulary which all the words of an entry must be in (e.g., the unigrams, for a list of bigrams).
+     *
+     * @param vocabulary The vocabulary, or null to keep entries whatever their words
+     */
+    public void setVocabulary(Lexicon vocabulary) {
+        this.vocabulary = vocabulary;
+    }
+
+    /**
+     * Tells whether all the (space separated) words of an entry are in the vocabulary, looked up without substrings.
+     * The start of a sentence (i.e., &lt;S&gt;) is taken as in any vocabulary, so that the n-grams beginning a
+     * sentence are kept.
+     *
+     * @param entry The word or n-gram
+     * @return True if there is no vocabulary or all the words are in it, false otherwise
+     */
+    public boolean isInVocabulary(String entry) {
+        if (this.vocabulary == null) {
+            return true;
+        }
+        int start = 0;
+        for (int end = 0; end <= entry.length(); end++) {
+            if (end == entry.length() || entry.charAt(end) == ' ') {
+                boolean isStart = end - start == START.length() && entry.startsWith(START, start);
+                if (!isStart && !this.vocabulary.containsWord(entry, start, end)) {
+                    return false;
+                }
+                start = end + 1;
+            }
+        }
+        return true;
+    }
+}
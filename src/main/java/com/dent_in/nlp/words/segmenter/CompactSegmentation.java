@@ -0,0 +1,164 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dent_in.nlp.words.segmenter;
+
+import com.dent_in.nlp.words.tokenizer.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compact Segmentation which only keeps a reference to the segmented string, the offsets of the boundaries between
+ * its words and its log-probability. The AnnotatedTerm/Token parts are created the first time getParts() is called,
+ * so segmenters can produce (many) candidates without allocating any of them.
+ */
+public class CompactSegmentation extends Segmentation {
+
+    private final String term;
+    private int[] boundaries;
+    private double logProbability;
+
+    /**
+     * Creates a segmentation of a term.
+     *
+     * @param term The segmented string
+     * @param boundaries The offsets where the words of the segmentation start, except for the first one (i.e., empty if the term is not split)
+     * @param logProbability The log-probability of the segmentation
+     */
+    public CompactSegmentation(String term, int[] boundaries, double logProbability) {
+        super(null, 0.0);
+        this.term = term;
+        this.boundaries = boundaries;
+        this.logProbability = logProbability;
+    }
+
+    public String getTerm() {
+        return this.term;
+    }
+
+    public int[] getBoundaries() {
+        return this.boundaries;
+    }
+
+    /**
+     * Returns the number of words in this segmentation.
+     *
+     * @return The number of words
+     */
+    public int size() {
+        return this.boundaries.length + 1;
+    }
+
+    /**
+     * Returns the start offset of the i-th word.
+     *
+     * @param i The index of the word
+     * @return The start offset of the word in the term
+     */
+    public int getStartOffset(int i) {
+        return i == 0 ? 0 : this.boundaries[i - 1];
+    }
+
+    /**
+     * Returns the end offset of the i-th word.
+     *
+     * @param i The index of the word
+     * @return The end offset of the word in the term
+     */
+    public int getEndOffset(int i) {
+        return i == this.boundaries.length ? this.term.length() : this.boundaries[i];
+    }
+
+    /**
+     * Returns the i-th word (a substring of the term).
+     *
+     * @param i The index of the word
+     * @return The word
+     */
+    public String getWord(int i) {
+        return this.term.substring(getStartOffset(i), getEndOffset(i));
+    }
+
+    /**
+     * Returns the words of this segmentation as an array of String (e.g., to be scored).
+     *
+     * @return The words
+     */
+    public String[] getWords() {
+        String[] result = new String[size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = getWord(i);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the parts of this segmentation the first time they are asked for.
+     *
+     * @return The parts of this segmentation
+     */
+    @Override
+    public List<AnnotatedTerm> getParts() {
+        List<AnnotatedTerm> parts = super.getParts();
+        if (parts == null) {
+            parts = new ArrayList<>(size());
+            for (int i = 0; i < size(); i++) {
+                AnnotatedTerm tTerm = new AnnotatedTerm();
+                tTerm.setContent(new Token(getWord(i), getStartOffset(i), getEndOffset(i)));
+                parts.add(tTerm);
+            }
+            super.setParts(parts);
+        }
+        return parts;
+    }
+
+    /**
+     * Sets the parts of this segmentation, the boundaries are taken from the offsets of their Tokens (none if there are
+     * no parts).
+     *
+     * @param parts The new parts
+     */
+    @Override
+    public void setParts(List<AnnotatedTerm> parts) {
+        int[] newBoundaries = new int[Math.max(0, parts.size() - 1)];
+        for (int i = 1; i < parts.size(); i++) {
+            newBoundaries[i - 1] = parts.get(i).getContent().getStartOffset();
+        }
+        this.boundaries = newBoundaries;
+        super.setParts(parts);
+    }
+
+    @Override
+    public double getLogProbability() {
+        return this.logProbability;
+    }
+
+    public void setLogProbability(double logProbability) {
+        this.logProbability = logProbability;
+    }
+
+    @Override
+    public double getProbability() {
+        return Math.exp(this.logProbability);
+    }
+
+    @Override
+    public void setProbability(double probability) {
+        this.logProbability = Math.log(probability);
+    }
+}
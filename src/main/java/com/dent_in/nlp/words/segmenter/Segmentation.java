@@ -58,4 +58,13 @@ public class Segmentation {
     public void setProbability(double probability) {
         this.probability = probability;
     }
+
+    /**
+     * Returns the log-probability of this segmentation, which is what segmentations are compared on.
+     *
+     * @return The log-probability of this segmentation
+     */
+    public double getLogProbability() {
+        return Math.log(this.probability);
+    }
 }
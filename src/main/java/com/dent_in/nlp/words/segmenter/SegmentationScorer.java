@@ -23,9 +23,16 @@ import java.util.Set;
 public interface SegmentationScorer {
 
     enum type {
-        BAYES_UNIGRAM, BAYES_BIGRAM, RANDOM_FORREST
+        BAYES_UNIGRAM, BAYES_BIGRAM, RANDOM_FORREST, STUPID_BACKOFF
     }
 
+    /**
+     * Returns the type of this scorer (e.g., whether the score of a word depends on the word preceding it).
+     *
+     * @return The type of this scorer
+     */
+    public SegmentationScorer.type getType();
+
     /**
      * Computes a score for a sequence of words (e.g., Bayes unigram or bigram probability, other score by supervised learning, etc.).
      * @param words An Array of String (i.e. sequence of words)
@@ -33,6 +40,74 @@ public interface SegmentationScorer {
      */
     public double score(String[] words);
 
+    /**
+     * Computes the score of a single word given the word preceding it, so that the score of a sequence of words
+     * can be built up incrementally one word at a time (e.g., by a dynamic-programming segmenter), that is,
+     * score(words) is the product of score(words[i], words[i-1]) over all words.
+     *
+     * @param word The word to be scored
+     * @param previousWord The word preceding it in the sequence, or null if the word is the first one
+     * @return The score of the word in its context
+     */
+    public double score(String word, String previousWord);
+
+    /**
+     * Computes the score of a sequence of words in log space (i.e., a sum rather than a product of probabilities),
+     * which does not underflow for long sequences.
+     *
+     * @param words An Array of String (i.e. sequence of words)
+     * @return The log of score(words)
+     */
+    public double logScore(String[] words);
+
+    /**
+     * Computes the score of a single word given the word preceding it in log space, so that the log score of a sequence
+     * is the sum of logScore(words[i], words[i-1]) over all words.
+     *
+     * @param word The word to be scored
+     * @param previousWord The word preceding it in the sequence, or null if the word is the first one
+     * @return The log of score(word, previousWord)
+     */
+    public double logScore(String word, String previousWord);
+
+    /**
+     * Computes the log score of a word given the word preceding it, both being regions of the string being segmented,
+     * so that a segmenter can score its candidate words without creating them as strings.
+     *
+     * @param text The string being segmented
+     * @param start The offset of the first character of the word
+     * @param end The offset after the last character of the word
+     * @param previousStart The offset of the first character of the previous word, or -1 if the word is the first one
+     * @param previousEnd The offset after the last character of the previous word
+     * @return The log of score(word, previousWord)
+     */
+    default double logScore(CharSequence text, int start, int end, int previousStart, int previousEnd) {
+        return logScore(text.subSequence(start, end).toString(),
+                previousStart < 0 ? null : text.subSequence(previousStart, previousEnd).toString());
+    }
+
+    /**
+     * Computes the log score of a whole segmentation of a string, its words being regions of the string, so that a
+     * scorer whose context goes beyond the previous word (e.g., an n-gram model) scores every word in its full context.
+     * By default the sum of the log scores of the words given the word preceding each one.
+     *
+     * @param text The segmented string
+     * @param boundaries The offsets where the words of the segmentation start, but the first one
+     * @return The log score of the segmentation
+     */
+    default double logScore(CharSequence text, int[] boundaries) {
+        double sum = 0;
+        int previousStart = -1;
+        int start = 0;
+        for (int i = 0; i <= boundaries.length; i++) {
+            int end = i < boundaries.length ? boundaries[i] : text.length();
+            sum += logScore(text, start, end, previousStart, start);
+            previousStart = start;
+            start = end;
+        }
+        return sum;
+    }
+
     /**
      * Computes a score for a sequence of AnnotatedTerms (e.g., Bayes unigram or bigram probability, other score by supervised learning, etc.).
      * @param annotatedTerms A List of AnnotatedTerm (again a sequence of words)
@@ -0,0 +1,67 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dent_in.nlp.words.segmenter;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Segments a range of a batch of terms on a fork-join pool, halving the range until it is small enough to be segmented
+ * in a loop. Each best segmentation is written at the index of its term, so the output keeps the order of the input.
+ */
+class SegmentationTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    //terms segmented in a loop, enough to make up for the cost of forking
+    static final int THRESHOLD = 16;
+
+    private final Segmenter segmenter;
+    private final List<String> terms;
+    private final Segmentation[] result;
+    private final int from;
+    private final int to;
+
+    /**
+     * @param segmenter The segmenter shared by all the workers
+     * @param terms The batch of terms (random access)
+     * @param result Where the best segmentation of each term is written, at the same index
+     * @param from The first term in the range
+     * @param to The end (exclusive) of the range
+     */
+    SegmentationTask(Segmenter segmenter, List<String> terms, Segmentation[] result, int from, int to) {
+        this.segmenter = segmenter;
+        this.terms = terms;
+        this.result = result;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (this.to - this.from <= THRESHOLD) {
+            for (int i = this.from; i < this.to; i++) {
+                this.result[i] = this.segmenter.getBestSegmentation(this.terms.get(i));
+            }
+        } else {
+            int mid = (this.from + this.to) >>> 1;
+            invokeAll(new SegmentationTask(this.segmenter, this.terms, this.result, this.from, mid),
+                    new SegmentationTask(this.segmenter, this.terms, this.result, mid, this.to));
+        }
+    }
+}
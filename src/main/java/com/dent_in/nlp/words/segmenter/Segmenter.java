@@ -17,8 +17,14 @@
 
 package com.dent_in.nlp.words.segmenter;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This is an interface which defines two key methods of a word segmenter:
@@ -35,7 +41,7 @@ import java.util.Set;
 public interface Segmenter {
 
     enum type {
-        NORVIG, AHOCORASICK
+        NORVIG, AHOCORASICK, VITERBI
     }
 
     /**
@@ -78,20 +84,89 @@ public interface Segmenter {
      */
     static Segmentation getBestSegmentation(Set<Segmentation> segmentations) {
         //In Norvig's implementation the maximization criterion is given by Pwords
-        // this is getProbability( CorpusLexicon, String [] )
-        Segmentation result = new Segmentation(null,0);
-        double maxProbability = -1.0;
+        // this is getProbability( CorpusLexicon, String [] ), compared in log space so that long terms do not underflow
+        Segmentation result = null;
+        double maxLogProbability = Double.NEGATIVE_INFINITY;
         for(Segmentation segmentation : segmentations) {
-            double segmentationProbability = segmentation.getProbability();
+            double segmentationLogProbability = segmentation.getLogProbability();
             //maximization step
-            if(segmentationProbability > maxProbability) {
+            if(result == null || segmentationLogProbability > maxLogProbability) {
                 result = segmentation;
-                maxProbability = segmentationProbability;
+                maxLogProbability = segmentationLogProbability;
             }
         }
+        return result == null ? new Segmentation(null,0) : result;
+    }
+
+    /**
+     * Returns the segmentations of a term in descending order of their score (e.g., for a human to review the top few).
+     *
+     * This default implementation sorts all candidates returned by segment(), whereas dynamic-programming segmenters
+     * compute each segmentation only when the Iterator is asked for it.
+     *
+     * @param term The input string
+     * @return An Iterator over the segmentations of the term, best first
+     */
+    default Iterator<Segmentation> getSegmentations(String term) {
+        List<Segmentation> segmentations = new ArrayList<>(segment(term, 0));
+        segmentations.sort(Comparator.comparingDouble(Segmentation::getLogProbability).reversed());
+        return segmentations.iterator();
+    }
+
+    /**
+     * Returns the k best segmentations of a term (or fewer if there are not as many).
+     *
+     * @param term The input string
+     * @param k The number of segmentations sought
+     * @return A List of at most k segmentations of the term, best first
+     */
+    default List<Segmentation> getBestSegmentations(String term, int k) {
+        List<Segmentation> result = new ArrayList<>();
+        Iterator<Segmentation> segmentations = getSegmentations(term);
+        while (result.size() < k && segmentations.hasNext()) {
+            result.add(segmentations.next());
+        }
         return result;
     }
 
+    /**
+     * Returns the best segmentation of each term in a batch, segmenting the terms in parallel on the common fork-join pool.
+     *
+     * @param terms The input strings
+     * @return A List with the best segmentation of each term, in the same order as the terms
+     */
+    default List<Segmentation> segmentAll(List<String> terms) {
+        return segmentAll(terms, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the best segmentation of each term in a batch, segmenting the terms in parallel on a given fork-join pool.
+     *
+     * All workers share this segmenter, hence its splitter and scorer (i.e., one read-only probability distribution),
+     * which only read the language model once it is loaded.
+     *
+     * @param terms The input strings
+     * @param pool The pool whose workers segment the terms (e.g., new ForkJoinPool(n) for n workers)
+     * @return A List with the best segmentation of each term, in the same order as the terms
+     */
+    default List<Segmentation> segmentAll(List<String> terms, ForkJoinPool pool) {
+        Segmentation[] result = new Segmentation[terms.size()];
+        List<String> randomAccessTerms = terms instanceof RandomAccess ? terms : new ArrayList<>(terms);
+        pool.invoke(new SegmentationTask(this, randomAccessTerms, result, 0, result.length));
+        return Arrays.asList(result);
+    }
+
+    /**
+     * Returns the best segmentation of each term in an array, segmenting the terms in parallel on a given fork-join pool.
+     *
+     * @param terms The input strings
+     * @param pool The pool whose workers segment the terms
+     * @return An Array with the best segmentation of each term, at the same index as the term
+     */
+    default Segmentation[] segmentAll(String[] terms, ForkJoinPool pool) {
+        return segmentAll(Arrays.asList(terms), pool).toArray(new Segmentation[0]);
+    }
+
     /**
      * Returns the Splitter component for this segmenter.
      * @return The Splitter component fo this segmenter
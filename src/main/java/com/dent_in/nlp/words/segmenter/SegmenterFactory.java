@@ -18,14 +18,25 @@
 package com.dent_in.nlp.words.segmenter;
 
 import com.dent_in.nlp.lexicon.CorpusLexicon;
+import com.dent_in.nlp.lexicon.pdist.LanguageModel;
+import com.dent_in.nlp.lexicon.pdist.StupidBackoffModel;
+import com.dent_in.nlp.words.segmenter.impl.AhoCorasickSegmenterImpl;
+import com.dent_in.nlp.words.segmenter.impl.AhoCorasickSplitterImpl;
+import com.dent_in.nlp.words.segmenter.impl.BoundaryDrivenSplitterImpl;
+import com.dent_in.nlp.words.segmenter.impl.BoundaryOverlapSplitterImpl;
 import com.dent_in.nlp.words.segmenter.impl.SegmentationScorerImpl;
 import com.dent_in.nlp.words.segmenter.impl.SegmenterImpl;
 import com.dent_in.nlp.words.segmenter.impl.SplitterImpl;
+import com.dent_in.nlp.words.segmenter.impl.StupidBackoffScorerImpl;
+import com.dent_in.nlp.words.segmenter.impl.ViterbiSegmenterImpl;
 
 public class SegmenterFactory {
     public Segmenter createSegmenter(Segmenter.type type, Splitter splitter, SegmentationScorer scorer) {
         switch ( type ) {
+            case VITERBI:
+                return new ViterbiSegmenterImpl(splitter, scorer);
             case AHOCORASICK:
+                return new AhoCorasickSegmenterImpl(splitter, scorer);
             case NORVIG:
             default:
                 return new SegmenterImpl(splitter, scorer);
@@ -35,6 +46,20 @@ public class SegmenterFactory {
     public Splitter createSplitter(Splitter.type type, CorpusLexicon corpusLexicon) {
         switch ( type ) {
             case BOUNDARY_DRIVEN:
+                if (corpusLexicon == null) {
+                    throw new IllegalArgumentException("A corpus lexicon is needed for a boundary driven splitter");
+                }
+                return new BoundaryDrivenSplitterImpl(corpusLexicon);
+            case BOUNDARY_OVERLAP:
+                if (corpusLexicon == null) {
+                    throw new IllegalArgumentException("A corpus lexicon is needed for a boundary overlap splitter");
+                }
+                return new BoundaryOverlapSplitterImpl(corpusLexicon);
+            case AHOCORASICK:
+                if (corpusLexicon == null) {
+                    throw new IllegalArgumentException("A corpus lexicon is needed for an Aho-Corasick splitter");
+                }
+                return new AhoCorasickSplitterImpl(corpusLexicon);
             case EXHAUSTIVE:
             default:
                 return new SplitterImpl();
@@ -47,6 +72,9 @@ public class SegmenterFactory {
         switch ( type ) {
             case RANDOM_FORREST:
                 throw new UnsupportedOperationException();
+            case STUPID_BACKOFF:
+                throw new IllegalArgumentException("A stupid backoff scorer needs a StupidBackoffModel of all its n-gram"
+                        + " files, see createSegmentationScorer(StupidBackoffModel)");
             case BAYES_BIGRAM:
             case BAYES_UNIGRAM:
             default:
@@ -55,5 +83,29 @@ public class SegmenterFactory {
         }
     }
 
+    public SegmentationScorer createSegmentationScorer(LanguageModel languageModel, SegmentationScorer.type type) {
+        switch ( type ) {
+            case RANDOM_FORREST:
+                throw new UnsupportedOperationException();
+            case STUPID_BACKOFF:
+                throw new IllegalArgumentException("A stupid backoff scorer needs a StupidBackoffModel");
+            case BAYES_BIGRAM:
+            case BAYES_UNIGRAM:
+            default:
+                return new SegmentationScorerImpl(languageModel, type);
+
+        }
+    }
+
+    /**
+     * Creates a STUPID_BACKOFF scorer on an n-gram model loaded beforehand, which may be shared with other scorers.
+     *
+     * @param model The n-gram model (e.g., up to trigrams or five-grams)
+     * @return The scorer
+     */
+    public SegmentationScorer createSegmentationScorer(StupidBackoffModel model) {
+        return new StupidBackoffScorerImpl(model);
+    }
+
 
 }
@@ -24,7 +24,7 @@ import java.util.List;
 public interface Splitter {
 
     enum type {
-        EXHAUSTIVE, BOUNDARY_DRIVEN, BOUNDARY_OVERLAP
+        EXHAUSTIVE, BOUNDARY_DRIVEN, BOUNDARY_OVERLAP, AHOCORASICK
     }
 
     /**
@@ -38,6 +38,21 @@ public interface Splitter {
      */
     List<Token> split(String string, int cutoff);
 
+    /**
+     * Tells whether an input string may also be kept whole, i.e., not split at all but taken as the last word of a
+     * segmentation (e.g., because it is a known word).
+     *
+     * Segmenters always keep whole a string that cannot be split any further, as well as the counterpart of a split
+     * whose tail cannot (Norvig's no boundary case), so exhaustive splitters need not say anything else.
+     *
+     * @param string The input string
+     * @param cutoff The boundary cutoff after which splits are considered
+     * @return True if the string may be kept whole, false otherwise
+     */
+    default boolean keepWhole(String string, int cutoff) {
+        return false;
+    }
+
     /**
      * Returns all dictionary entries coming out of the Aho-Corasick algorithm.
      *
@@ -55,8 +70,9 @@ public interface Splitter {
 
     /**
      * For boundary driven splitters, boundaries must be set and they can also be retrieved.
+     * Overlap splitters return the start and end offsets of every candidate word of the string, one pair after the other.
      *
-     * @return An Array of ints signalling the boundaries
+     * @return An Array of ints signalling the boundaries, or null if the splitter has none
      */
     public int [] getBoundaries();
 
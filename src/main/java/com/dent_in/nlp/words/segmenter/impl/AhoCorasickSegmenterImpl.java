@@ -0,0 +1,120 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dent_in.nlp.words.segmenter.impl;
+
+import com.dent_in.nlp.words.segmenter.*;
+import com.dent_in.nlp.words.tokenizer.Token;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A segmenter driven by the Aho-Corasick index of the input string: every dictionary word found in the string by a
+ * single pass of the automaton is a word of the lattice, together with the short unknown words at every offset and the
+ * whole suffix wherever the boundary driven splitters keep it as the last word (i.e., Norvig's no boundary case, and
+ * the suffixes in which no known word occurs), so that the lattice is the same as with BoundaryOverlapSplitterImpl.
+ * The best path is then found by the same dynamic programme as in ViterbiSegmenterImpl.
+ *
+ * Candidate generation is thus linear in the length of the string plus the number of matches, instead of one trie walk
+ * (or one substring per prefix) per offset.
+ */
+public class AhoCorasickSegmenterImpl extends ViterbiSegmenterImpl {
+
+    public AhoCorasickSegmenterImpl(Splitter splitter, SegmentationScorer scorer) {
+        super(splitter, scorer);
+        this.type = Segmenter.type.AHOCORASICK;
+    }
+
+    /**
+     * Builds the lattice out of the Aho-Corasick index of the input string, or asks the splitter for the words at
+     * every offset if it has no such index.
+     *
+     * @param string The input string to be segmented
+     * @param cutoff Passed on to the splitter as is
+     * @return The scored lattice, or null if the string cannot be split
+     */
+    @Override
+    SegmentationLattice buildLattice(String string, int cutoff) {
+        List<Token> matches = this.splitter.ahocIndex(string);
+        if (matches == null) {
+            return super.buildLattice(string, cutoff);
+        }
+        int n = string.length();
+        int maxUnknownLength = this.splitter instanceof BoundaryDrivenSplitterImpl ?
+                ((BoundaryDrivenSplitterImpl) this.splitter).getMaxUnknownLength() : BoundaryDrivenSplitterImpl.DEFAULT_MAX_UNKNOWN_LENGTH;
+
+        int[] spans = new int[2 * (2 * matches.size() + n * (maxUnknownLength + 2))];
+        int w = 0;
+        //whether a known word longer than an unknown one occurs in the suffix at each offset (see getKnownSuffixes())
+        boolean[] known = new boolean[n + 1];
+        for (Token match : matches) {
+            spans[w++] = match.getStartOffset();
+            spans[w++] = match.getEndOffset();
+            if (match.getEndOffset() - match.getStartOffset() > maxUnknownLength) {
+                known[match.getStartOffset()] = true;
+            }
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            known[i] |= known[i + 1];
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j <= i + maxUnknownLength && j <= n; j++) {
+                spans[w++] = i;
+                spans[w++] = j;
+            }
+            //a suffix without a known word is kept whole, as with the boundary driven splitters
+            if (!known[i]) {
+                spans[w++] = i;
+                spans[w++] = n;
+            }
+        }
+        //the no boundary counterpart of a word leaving a single char
+        for (int k = 0, words = w; k < words; k += 2) {
+            if (spans[k + 1] == n - 1) {
+                spans[w++] = spans[k];
+                spans[w++] = n;
+            }
+        }
+
+        return SegmentationLattice.build(string, Arrays.copyOf(spans, w), this.scorer);
+    }
+
+    /**
+     * Returns the (possibly overlapping) dictionary words found in the term by the Aho-Corasick automaton, in
+     * ascending order of their end offset.
+     *
+     * @param term The query term
+     * @return A segmentation whose parts are the dictionary words found, or null if the splitter has no such index
+     */
+    @Override
+    public Segmentation getAhocTermsSegmentation(String term) {
+        List<Token> matches = this.splitter.ahocIndex(term);
+        if (matches == null) {
+            return null;
+        }
+        List<AnnotatedTerm> parts = new ArrayList<>(matches.size());
+        for (Token match : matches) {
+            AnnotatedTerm tTerm = new AnnotatedTerm();
+            tTerm.setContent(match);
+            parts.add(tTerm);
+        }
+        return new Segmentation(parts, 0.0);
+    }
+
+}
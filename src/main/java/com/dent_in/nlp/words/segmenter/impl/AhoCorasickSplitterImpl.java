@@ -0,0 +1,70 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dent_in.nlp.words.segmenter.impl;
+
+import com.dent_in.nlp.lexicon.CorpusLexicon;
+import com.dent_in.nlp.lexicon.index.AhoCorasickAutomaton;
+import com.dent_in.nlp.words.segmenter.Splitter;
+import com.dent_in.nlp.words.tokenizer.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A boundary driven splitter whose trie is an Aho-Corasick automaton compiled from a corpus lexicon, so on top of the
+ * binary splits it finds every dictionary word in a string (i.e., the Aho-Corasick index) in a single linear pass.
+ */
+public class AhoCorasickSplitterImpl extends BoundaryDrivenSplitterImpl {
+
+    private final AhoCorasickAutomaton automaton;
+
+    public AhoCorasickSplitterImpl(CorpusLexicon corpusLexicon) {
+        this(corpusLexicon, DEFAULT_MAX_UNKNOWN_LENGTH);
+    }
+
+    /**
+     * Compiles the automaton of the words of a corpus lexicon.
+     *
+     * @param corpusLexicon The lexicon whose words are sought
+     * @param maxUnknownLength The length up to which prefixes are proposed even if they are not known words
+     */
+    public AhoCorasickSplitterImpl(CorpusLexicon corpusLexicon, int maxUnknownLength) {
+        this(new AhoCorasickAutomaton(corpusLexicon.getWords()), maxUnknownLength);
+    }
+
+    private AhoCorasickSplitterImpl(AhoCorasickAutomaton automaton, int maxUnknownLength) {
+        super(automaton, maxUnknownLength);
+        this.type = Splitter.type.AHOCORASICK;
+        this.automaton = automaton;
+    }
+
+    /**
+     * Returns every occurrence of a dictionary word in the input string, overlapping ones included, in ascending order
+     * of their end offset (longest first for the same end offset).
+     *
+     * @param string The input string
+     * @return A List of Token, one per occurrence, with its offsets in the input string
+     */
+    @Override
+    public List<Token> ahocIndex(String string) {
+        List<Token> result = new ArrayList<>();
+        this.automaton.forEachMatch(string, (start, end) -> result.add(new Token(string.substring(start, end), start, end)));
+        return result;
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dent_in.nlp.words.segmenter.impl;
+
+import com.dent_in.nlp.lexicon.CorpusLexicon;
+import com.dent_in.nlp.lexicon.index.CharTrie;
+import com.dent_in.nlp.words.segmenter.Splitter;
+import com.dent_in.nlp.words.tokenizer.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A splitter which only proposes the prefixes of a string that are words of a corpus lexicon, found by walking a
+ * character trie of the lexicon, plus the few shortest prefixes as a fallback for unknown words (longer unknown
+ * words are kept whole, see keepWhole()).
+ *
+ * Unlike SplitterImpl, which proposes every prefix up to a fixed length, the fan-out at each offset is the number of
+ * known words starting there (a handful), and the longest split is bounded by the longest word in the lexicon.
+ */
+public class BoundaryDrivenSplitterImpl implements Splitter {
+
+    public static final int DEFAULT_MAX_UNKNOWN_LENGTH = 3;
+
+    Splitter.type type = null;
+    protected final CharTrie trie;
+    protected final int maxUnknownLength;
+
+    public BoundaryDrivenSplitterImpl(CorpusLexicon corpusLexicon) {
+        this(corpusLexicon, DEFAULT_MAX_UNKNOWN_LENGTH);
+    }
+
+    /**
+     * Creates a splitter over the words of a corpus lexicon.
+     *
+     * @param corpusLexicon The lexicon whose words are proposed as splits
+     * @param maxUnknownLength The length up to which prefixes are proposed even if they are not known words
+     */
+    public BoundaryDrivenSplitterImpl(CorpusLexicon corpusLexicon, int maxUnknownLength) {
+        this(new CharTrie(corpusLexicon.getWords()), maxUnknownLength);
+    }
+
+    /**
+     * Creates a splitter over the words of a trie built beforehand.
+     *
+     * @param trie The trie whose words are proposed as splits
+     * @param maxUnknownLength The length up to which prefixes are proposed even if they are not known words
+     */
+    protected BoundaryDrivenSplitterImpl(CharTrie trie, int maxUnknownLength) {
+        this.type = Splitter.type.BOUNDARY_DRIVEN;
+        this.trie = trie;
+        this.maxUnknownLength = maxUnknownLength;
+    }
+
+    /**
+     * Returns the length up to which strings are taken as words even if they are not in the lexicon.
+     *
+     * @return The max length of an unknown word
+     */
+    public int getMaxUnknownLength() {
+        return this.maxUnknownLength;
+    }
+
+    /**
+     * Return a list of (first, rem) pairs where first is a known word, or is short enough to be an unknown one.
+     * Splits are sorted by their end offset.
+     *
+     * @param string The input string to be splitted
+     * @param cutoff This parameter is completely ignored in this implementation
+     * @return A List of Token where each token's offset is the head of the string and the rest of the string is the tail
+     */
+    public List<Token> split(String string, int cutoff) {
+        List<Token> result = new ArrayList<>();
+        int end = Math.min(string.length() - 1, this.trie.getMaxLength());
+        int unknownEnd = Math.min(string.length() - 1, this.maxUnknownLength);
+        //known words come shortest first, the unknown fallback fills in the gaps below its length
+        int[] last = {0};
+        this.trie.forEachPrefix(string, 0, end, i -> {
+            for (int j = last[0] + 1; j < i && j <= unknownEnd; j++) {
+                result.add(new Token(string.substring(0, j), 0, j));
+            }
+            result.add(new Token(string.substring(0, i), 0, i));
+            last[0] = i;
+        });
+        for (int j = last[0] + 1; j <= unknownEnd; j++) {
+            result.add(new Token(string.substring(0, j), 0, j));
+        }
+
+        return result;
+    }
+
+    /**
+     * A string is kept whole if it is a known word, if it is short enough to be an unknown one, or if no known word
+     * longer than that occurs in it (e.g., a brand name), as it would otherwise only be split into a few chars each.
+     *
+     * @param string The input string
+     * @param cutoff This parameter is completely ignored in this implementation
+     * @return True if the string may be kept whole, false otherwise
+     */
+    @Override
+    public boolean keepWhole(String string, int cutoff) {
+        return string.length() <= this.maxUnknownLength || this.trie.contains(string) || !getKnownSuffixes(string)[0];
+    }
+
+    /**
+     * Tells, for every suffix of a string, whether a known word longer than an unknown one occurs in it, with one trie
+     * walk per offset from the end of the string backwards. Shorter words do not count: they are proposed whether known
+     * or not, and a lexicon of a large corpus knows most of them (e.g., every letter).
+     *
+     * @param string The input string
+     * @return Whether such a word occurs in the suffix at each offset, the empty one at the end included
+     */
+    protected boolean[] getKnownSuffixes(String string) {
+        int n = string.length();
+        boolean[] known = new boolean[n + 1];
+        for (int i = n - 1; i >= 0; i--) {
+            int start = i;
+            known[i] = known[i + 1];
+            this.trie.forEachPrefix(string, i, n, end -> {
+                if (end - start > this.maxUnknownLength) {
+                    known[start] = true;
+                }
+            });
+        }
+        return known;
+    }
+
+    /**
+     * The boundaries are given by the lexicon itself, no need to set them.
+     * @param string The input string on which to identify possible split boundaries
+     */
+    public void setBoundaries(String string) {
+        //Boundaries come from the trie walk in split().
+    }
+
+    public int[] getBoundaries() {
+        return null; //boundaries are found on the fly
+    }
+
+    public List<Token> ahocIndex(String string) {
+        //again a method only used in Ahoc-related splitters
+        return null;
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dent_in.nlp.words.segmenter.impl;
+
+import com.dent_in.nlp.lexicon.CorpusLexicon;
+import com.dent_in.nlp.words.segmenter.Splitter;
+
+import java.util.Arrays;
+
+/**
+ * A boundary driven splitter which computes, once per input string, every candidate word of the string at every offset
+ * (overlapping ones included, e.g., sports|wear and sport|swear) into a compact array of spans, so segmenters can
+ * build their lattice straight from it instead of asking for the splits of every suffix.
+ *
+ * The spans are exactly the words that the splits of BoundaryDrivenSplitterImpl lead to: the known words starting at
+ * every offset, the short unknown ones, and the whole suffix wherever the recursion would keep it as the last word
+ * (e.g., a suffix in which no known word occurs).
+ */
+public class BoundaryOverlapSplitterImpl extends BoundaryDrivenSplitterImpl {
+
+    private static final int[] NO_BOUNDARIES = new int[0];
+
+    //the (start, end) pairs of the words of the last string set, in ascending order of start and end offset
+    //kept per thread, so one splitter can be shared by segmenters running in parallel
+    private final ThreadLocal<int[]> boundaries = new ThreadLocal<>();
+
+    public BoundaryOverlapSplitterImpl(CorpusLexicon corpusLexicon) {
+        this(corpusLexicon, DEFAULT_MAX_UNKNOWN_LENGTH);
+    }
+
+    /**
+     * Creates a splitter over the words of a corpus lexicon.
+     *
+     * @param corpusLexicon The lexicon whose words are proposed as splits
+     * @param maxUnknownLength The length up to which words are proposed even if they are not known
+     */
+    public BoundaryOverlapSplitterImpl(CorpusLexicon corpusLexicon, int maxUnknownLength) {
+        super(corpusLexicon, maxUnknownLength);
+        this.type = Splitter.type.BOUNDARY_OVERLAP;
+    }
+
+    /**
+     * Computes the candidate words of the input string, one trie walk per offset.
+     *
+     * @param string The input string on which to identify possible split boundaries
+     */
+    @Override
+    public void setBoundaries(String string) {
+        int n = string.length();
+        if (n < 2) {
+            this.boundaries.set(NO_BOUNDARIES); //cannot be split, as in the recursion
+            return;
+        }
+        boolean[] known = getKnownSuffixes(string);
+        int[] spans = new int[2 * n * (this.maxUnknownLength + 1)];
+        int size = 0;
+        //end offsets of the words starting at the current offset, all distinct and ascending
+        int[] ends = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            int start = i;
+            int unknownEnd = Math.min(n, i + this.maxUnknownLength);
+            //known words come shortest first, the unknown ones fill in the gaps below their max length
+            int[] count = {0};
+            this.trie.forEachPrefix(string, i, n, end -> {
+                int last = count[0] == 0 ? start : ends[count[0] - 1];
+                for (int j = last + 1; j < end && j <= unknownEnd; j++) {
+                    ends[count[0]++] = j;
+                }
+                ends[count[0]++] = end;
+            });
+            for (int j = (count[0] == 0 ? i : ends[count[0] - 1]) + 1; j <= unknownEnd; j++) {
+                ends[count[0]++] = j;
+            }
+            //the no boundary counterpart of a split leaving a single char, or a suffix without a known word
+            boolean keepWhole = (i < n - 1 && count[0] > 0 && ends[count[0] - 1] == n - 1) || !known[i];
+            if (keepWhole && (count[0] == 0 || ends[count[0] - 1] != n)) {
+                ends[count[0]++] = n;
+            }
+
+            if (size + 2 * count[0] > spans.length) {
+                spans = Arrays.copyOf(spans, Math.max(2 * spans.length, size + 2 * count[0]));
+            }
+            for (int k = 0; k < count[0]; k++) {
+                spans[size++] = i;
+                spans[size++] = ends[k];
+            }
+        }
+        this.boundaries.set(Arrays.copyOf(spans, size));
+    }
+
+    /**
+     * Returns the candidate words of the last string set by the calling thread, as (start, end) pairs one after the other in ascending order
+     * of their start and end offsets.
+     *
+     * @return An Array of ints with the spans of the candidate words, or null if no string has been set yet by this thread
+     */
+    @Override
+    public int[] getBoundaries() {
+        return this.boundaries.get();
+    }
+
+}
@@ -0,0 +1,401 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dent_in.nlp.words.segmenter.impl;
+
+import com.dent_in.nlp.words.segmenter.CompactSegmentation;
+import com.dent_in.nlp.words.segmenter.Segmentation;
+import com.dent_in.nlp.words.segmenter.SegmentationScorer;
+import com.dent_in.nlp.words.segmenter.Splitter;
+import com.dent_in.nlp.words.tokenizer.Token;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * A lattice over the words (i.e., spans of the input string) proposed by a Splitter at every offset, where every path
+ * from the start to the end of the string is one candidate segmentation of it.
+ *
+ * The candidate space is the one explored by the recursion in SegmenterImpl: the words starting at an offset are the
+ * splits of the suffix starting there, and a suffix is taken as a whole (i.e., as the last word of a segmentation)
+ * if it cannot be split any further, if it is the no boundary counterpart of a split whose remainder cannot, or if the
+ * splitter says it may be kept whole. The lattice can also be built straight from a set of words found beforehand
+ * (e.g., by an Aho-Corasick automaton), in which case every word reaching the end of the string is a last word.
+ *
+ * Every word carries the score of the best path ending with it (Viterbi). With a context-free scorer (e.g., unigram)
+ * the score of a word does not depend on the words before it, so only the best path ending at each offset is extended,
+ * costing O(n*L) calls to the scorer. With a bigram scorer the state is the previous word itself (i.e., its offsets),
+ * so every word ending at an offset is extended by every word starting there, which is exact in O(n*L*L).
+ *
+ * The scores of the best paths are also an exact estimate of the best completion of any partial path read backwards
+ * from the end of the string, hence a best-first search from the end pops complete paths in descending order of their
+ * score (i.e., lazy k-best extraction), without ever enumerating the whole candidate space.
+ */
+class SegmentationLattice {
+
+    private final String string;
+    private final SegmentationScorer scorer;
+    private final boolean contextual;
+
+    //words grouped by start offset: words firstWord[i] to firstWord[i+1]-1 start at offset i
+    private int[] firstWord;
+    private int[] wordStart;
+    private int[] wordEnd;
+    //words grouped by end offset: wordsEndingAt[lastWord[i] to lastWord[i+1]-1] end at offset i
+    private int[] lastWord;
+    private int[] wordsEndingAt;
+
+    //log score of the best path ending with a word (NaN if none) and the word before it in that path (-1 if none)
+    private double[] score;
+    private int[] backPointer;
+    //log score of a word on its own, only for context-free scorers
+    private double[] wordScore;
+
+    private SegmentationLattice(String string, SegmentationScorer scorer) {
+        this.string = string;
+        this.scorer = scorer;
+        //a stupid backoff scorer is decoded with a bigram context, see ViterbiSegmenterImpl
+        this.contextual = scorer.getType() == SegmentationScorer.type.BAYES_BIGRAM
+                || scorer.getType() == SegmentationScorer.type.STUPID_BACKOFF;
+    }
+
+    /**
+     * Builds the lattice for a given string and scores it.
+     *
+     * @param string The input string to be segmented
+     * @param cutoff Passed on to the splitter as is
+     * @param splitter The splitter proposing the words at each offset
+     * @param scorer The scorer of the words
+     * @return The scored lattice, or null if the string cannot be split at all
+     */
+    static SegmentationLattice build(String string, int cutoff, Splitter splitter, SegmentationScorer scorer) {
+        int n = string.length();
+        if (n == 0) {
+            return null;
+        }
+
+        //splits of every suffix keyed by their start offset, and whether the splitter keeps it whole
+        List<List<Token>> splits = new ArrayList<>(n);
+        boolean[] keepWhole = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            String suffix = string.substring(i);
+            splits.add(splitter.split(suffix, cutoff));
+            keepWhole[i] = splitter.keepWhole(suffix, cutoff);
+        }
+        if (splits.get(0).isEmpty()) {
+            return null; //same as the base case of the recursion
+        }
+
+        //words as (start, end) pairs
+        int size = 0;
+        for (List<Token> tokens : splits) {
+            size += tokens.size() + 1;
+        }
+        int[] spans = new int[2 * size];
+        int w = 0;
+        for (int i = 0; i < n; i++) {
+            List<Token> tokens = splits.get(i);
+            boolean isLastWord = tokens.isEmpty() || keepWhole[i];
+            for (Token t : tokens) {
+                int end = i + t.getEndOffset();
+                if (splits.get(end).isEmpty()) {
+                    isLastWord = true; //the no boundary counterpart
+                }
+                spans[w++] = i;
+                spans[w++] = end;
+            }
+            if (isLastWord) {
+                spans[w++] = i;
+                spans[w++] = n;
+            }
+        }
+
+        return build(string, Arrays.copyOf(spans, w), scorer);
+    }
+
+    /**
+     * Builds the lattice over a given set of words (e.g., all dictionary matches in the string) and scores it.
+     * Every word ending at the end of the string is a last word, and duplicated words are taken once.
+     *
+     * @param string The input string to be segmented
+     * @param spans The start and end offsets of the words, one pair after the other and in any order
+     * @param scorer The scorer of the words
+     * @return The scored lattice, or null if no sequence of words covers the whole string
+     */
+    static SegmentationLattice build(String string, int[] spans, SegmentationScorer scorer) {
+        int n = string.length();
+        if (n == 0) {
+            return null;
+        }
+
+        SegmentationLattice lattice = new SegmentationLattice(string, scorer);
+        lattice.index(spans);
+        lattice.score();
+        return lattice.isComplete() ? lattice : null;
+    }
+
+    /**
+     * Lays out the words of the lattice in flat arrays, grouped by start and by end offset.
+     *
+     * @param spans The start and end offsets of the words, one pair after the other
+     */
+    private void index(int[] spans) {
+        int n = this.string.length();
+        //sort the words by start and end offset, skipping duplicates
+        long[] keys = new long[spans.length / 2];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (long) spans[2 * i] * (n + 1) + spans[2 * i + 1];
+        }
+        Arrays.sort(keys);
+        this.firstWord = new int[n + 1];
+        this.wordStart = new int[keys.length];
+        this.wordEnd = new int[keys.length];
+        int[] counts = new int[n + 2];
+
+        int w = 0;
+        for (int k = 0; k < keys.length; k++) {
+            if (k > 0 && keys[k] == keys[k - 1]) {
+                continue;
+            }
+            int start = (int) (keys[k] / (n + 1));
+            int end = (int) (keys[k] % (n + 1));
+            this.wordStart[w] = start;
+            this.wordEnd[w++] = end;
+            counts[end + 1]++;
+        }
+        this.wordStart = Arrays.copyOf(this.wordStart, w);
+        this.wordEnd = Arrays.copyOf(this.wordEnd, w);
+        for (int i = 0, word = 0; i <= n; i++) {
+            while (word < w && this.wordStart[word] < i) {
+                word++;
+            }
+            this.firstWord[i] = word;
+        }
+
+        //counting sort of the words by end offset
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+        this.lastWord = Arrays.copyOf(counts, n + 2);
+        this.wordsEndingAt = new int[w];
+        for (int word = 0; word < w; word++) {
+            this.wordsEndingAt[counts[this.wordEnd[word]]++] = word;
+        }
+    }
+
+    /**
+     * Tells whether some path covers the whole string.
+     *
+     * @return True if some word ending at the end of the string was reached, false otherwise
+     */
+    private boolean isComplete() {
+        int n = this.string.length();
+        for (int k = this.lastWord[n]; k < this.lastWord[n + 1]; k++) {
+            if (!Double.isNaN(this.score[this.wordsEndingAt[k]])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Forward pass, computes the score of the best path ending with each word.
+     * Scores are summed in log space, so they do not underflow however long the string is.
+     */
+    private void score() {
+        int n = this.string.length();
+        this.score = new double[this.wordStart.length];
+        this.backPointer = new int[this.wordStart.length];
+        Arrays.fill(this.score, Double.NaN);
+        Arrays.fill(this.backPointer, -1);
+        if (!this.contextual) {
+            this.wordScore = new double[this.wordStart.length];
+        }
+
+        for (int i = 0; i < n; i++) {
+            int best = -1;
+            for (int k = this.lastWord[i]; k < this.lastWord[i + 1]; k++) {
+                int u = this.wordsEndingAt[k];
+                if (!Double.isNaN(this.score[u]) && (best < 0 || this.score[u] > this.score[best])) {
+                    best = u;
+                }
+            }
+            if (i > 0 && best < 0) {
+                continue; //offset not reachable
+            }
+            //words are scored as regions of the string, no substrings
+            for (int w = this.firstWord[i]; w < this.firstWord[i + 1]; w++) {
+                if (i == 0) {
+                    this.score[w] = logScore(w, -1);
+                } else if (!this.contextual) {
+                    this.wordScore[w] = logScore(w, best);
+                    this.score[w] = this.score[best] + this.wordScore[w];
+                    this.backPointer[w] = best;
+                } else {
+                    for (int k = this.lastWord[i]; k < this.lastWord[i + 1]; k++) {
+                        int u = this.wordsEndingAt[k];
+                        if (Double.isNaN(this.score[u])) {
+                            continue;
+                        }
+                        double logProbability = this.score[u] + logScore(w, u);
+                        if (Double.isNaN(this.score[w]) || logProbability > this.score[w]) {
+                            this.score[w] = logProbability;
+                            this.backPointer[w] = u;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the best path through the lattice (i.e., the best segmentation of the string).
+     *
+     * @return The best segmentation
+     */
+    Segmentation getBestSegmentation() {
+        int n = this.string.length();
+        int best = -1;
+        for (int k = this.lastWord[n]; k < this.lastWord[n + 1]; k++) {
+            int w = this.wordsEndingAt[k];
+            if (!Double.isNaN(this.score[w]) && (best < 0 || this.score[w] > this.score[best])) {
+                best = w;
+            }
+        }
+
+        //follow the back pointers from the last word
+        int size = 0;
+        for (int w = best; w >= 0; w = this.backPointer[w]) {
+            size++;
+        }
+        int[] boundaries = new int[size - 1];
+        for (int w = best; this.backPointer[w] >= 0; w = this.backPointer[w]) {
+            boundaries[--size - 1] = this.wordStart[w];
+        }
+
+        return new CompactSegmentation(this.string, boundaries, this.score[best]);
+    }
+
+    /**
+     * Returns all paths through the lattice in descending order of their score, each one computed only when asked for.
+     *
+     * @return An Iterator over the segmentations of the string, best first
+     */
+    Iterator<Segmentation> iterator() {
+        return new KBestIterator();
+    }
+
+    /**
+     * Scores a word given the word before it.
+     *
+     * @param w The word
+     * @param u The word before it, or -1 if none
+     * @return The log score of the word
+     */
+    private double logScore(int w, int u) {
+        return u < 0 ? this.scorer.logScore(this.string, this.wordStart[w], this.wordEnd[w], -1, -1)
+                : this.scorer.logScore(this.string, this.wordStart[w], this.wordEnd[w], this.wordStart[u], this.wordEnd[u]);
+    }
+
+    /**
+     * A partial path read backwards from the end of the string, i.e., its first word followed by the rest of the path.
+     */
+    private static final class Hypothesis {
+        final int word;
+        final Hypothesis next;
+        //log score of the words after the first one (each given the word before it)
+        final double suffixScore;
+        //log score of the best complete path sharing this suffix
+        final double priority;
+
+        Hypothesis(int word, Hypothesis next, double suffixScore, double priority) {
+            this.word = word;
+            this.next = next;
+            this.suffixScore = suffixScore;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * Best-first search from the end of the string, prioritised by the best score of a complete path sharing a suffix.
+     * A hypothesis popped whose first word starts the string is the next best complete path.
+     */
+    private class KBestIterator implements Iterator<Segmentation> {
+
+        private final PriorityQueue<Hypothesis> queue = new PriorityQueue<>(
+                (h1, h2) -> Double.compare(h2.priority, h1.priority));
+        private Segmentation next = null;
+
+        KBestIterator() {
+            int n = string.length();
+            for (int k = lastWord[n]; k < lastWord[n + 1]; k++) {
+                int w = wordsEndingAt[k];
+                if (!Double.isNaN(score[w])) {
+                    this.queue.add(new Hypothesis(w, null, 0.0, score[w]));
+                }
+            }
+        }
+
+        public boolean hasNext() {
+            while (this.next == null && !this.queue.isEmpty()) {
+                Hypothesis h = this.queue.poll();
+                int start = wordStart[h.word];
+                if (start == 0) {
+                    this.next = toSegmentation(h);
+                    break;
+                }
+                for (int k = lastWord[start]; k < lastWord[start + 1]; k++) {
+                    int u = wordsEndingAt[k];
+                    if (Double.isNaN(score[u])) {
+                        continue;
+                    }
+                    double transition = contextual ? logScore(h.word, u) : wordScore[h.word];
+                    double suffixScore = h.suffixScore + transition;
+                    this.queue.add(new Hypothesis(u, h, suffixScore, score[u] + suffixScore));
+                }
+            }
+            return this.next != null;
+        }
+
+        public Segmentation next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Segmentation result = this.next;
+            this.next = null;
+            return result;
+        }
+
+        private Segmentation toSegmentation(Hypothesis h) {
+            int size = 0;
+            for (Hypothesis part = h.next; part != null; part = part.next) {
+                size++;
+            }
+            int[] boundaries = new int[size];
+            int i = 0;
+            for (Hypothesis part = h.next; part != null; part = part.next) {
+                boundaries[i++] = wordStart[part.word];
+            }
+            return new CompactSegmentation(string, boundaries, h.priority);
+        }
+    }
+
+}
@@ -17,7 +17,7 @@
 
 package com.dent_in.nlp.words.segmenter.impl;
 
-import com.dent_in.nlp.lexicon.pdist.ProbabilityDistribution;
+import com.dent_in.nlp.lexicon.pdist.LanguageModel;
 import com.dent_in.nlp.words.segmenter.AnnotatedTerm;
 import com.dent_in.nlp.words.segmenter.Segmentation;
 import com.dent_in.nlp.words.segmenter.SegmentationScorer;
@@ -27,14 +27,31 @@ import java.util.List;
 public class SegmentationScorerImpl implements SegmentationScorer {
 
     SegmentationScorer.type type = null;
-    ProbabilityDistribution pDistribution = null;
+    LanguageModel languageModel = null;
 
     public SegmentationScorerImpl(String unigramDataFileName, String bigramDataFileName, String totalNumberOfTokens, SegmentationScorer.type type) {
-        Long googleNGramCorpusSize = new Long (totalNumberOfTokens);
-        this.pDistribution = new ProbabilityDistribution(unigramDataFileName, bigramDataFileName, googleNGramCorpusSize.longValue());
+        this(new LanguageModel(unigramDataFileName, bigramDataFileName, Long.parseLong(totalNumberOfTokens)), type);
+    }
+
+    /**
+     * Creates a scorer on a language model loaded beforehand, which may be shared with other scorers (and threads).
+     *
+     * @param languageModel The language model
+     * @param type The type of scorer (i.e., which of the counts of the model are used)
+     */
+    public SegmentationScorerImpl(LanguageModel languageModel, SegmentationScorer.type type) {
+        this.languageModel = languageModel;
         this.type = type;
     }
 
+    public LanguageModel getLanguageModel() {
+        return this.languageModel;
+    }
+
+    public SegmentationScorer.type getType() {
+        return this.type;
+    }
+
     public double score(List<AnnotatedTerm> taggedTerms) {
         String [] words = getTokenStrings(taggedTerms);
         return score(words);
@@ -46,10 +63,57 @@ public class SegmentationScorerImpl implements SegmentationScorer {
         //get the probability of sequence of words
         if(this.type == SegmentationScorer.type.BAYES_UNIGRAM) {
             //if I use the unigram corpus I get segment
-            result = pDistribution.getProbability(words);
+            result = languageModel.getProbability(words);
         } else {
             //if I use the bigram corpus I should get segment2
-            result = pDistribution.getProbability2(words);
+            result = languageModel.getProbability2(words);
+        }
+
+        return result;
+    }
+
+    public double score(String word, String previousWord) {
+        double result = 0.0;
+        if(this.type == SegmentationScorer.type.BAYES_UNIGRAM) {
+            //unigram model, context is irrelevant
+            result = languageModel.getProbability(word);
+        } else {
+            //bigram model, sequences start with the same marker used by getProbability2()
+            result = languageModel.getConditionalProbability(word, previousWord == null ? "<S>" : previousWord);
+        }
+
+        return result;
+    }
+
+    public double logScore(String[] words) {
+        double result = 0.0;
+        if(this.type == SegmentationScorer.type.BAYES_UNIGRAM) {
+            result = languageModel.getLogProbability(words);
+        } else {
+            result = languageModel.getLogProbability2(words);
+        }
+
+        return result;
+    }
+
+    public double logScore(String word, String previousWord) {
+        double result = 0.0;
+        if(this.type == SegmentationScorer.type.BAYES_UNIGRAM) {
+            result = languageModel.getLogProbability(word);
+        } else {
+            result = languageModel.getLogConditionalProbability(word, previousWord == null ? "<S>" : previousWord);
+        }
+
+        return result;
+    }
+
+    @Override
+    public double logScore(CharSequence text, int start, int end, int previousStart, int previousEnd) {
+        double result = 0.0;
+        if(this.type == SegmentationScorer.type.BAYES_UNIGRAM) {
+            result = languageModel.getLogProbability(text, start, end);
+        } else {
+            result = languageModel.getLogConditionalProbability(text, start, end, previousStart, previousEnd);
         }
 
         return result;
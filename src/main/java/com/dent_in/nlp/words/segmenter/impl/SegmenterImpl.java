@@ -52,13 +52,39 @@ public class SegmenterImpl implements Segmenter {
     /**
      * Return a list of words that is the best segmentation of text.
      *
+     * Candidates are built as chains of boundary offsets sharing their tails (see Boundary below) and only the complete
+     * ones are turned into CompactSegmentation and scored, so no Token, AnnotatedTerm or List is created per candidate.
+     *
      * @param string The input string to be segmented
      * @param cutoff This parameter is completely ignored in this implementation
      * @return The Set of candidate segmentations
      */
     public Set<Segmentation> segment(String string, int cutoff) {
         Set<Segmentation> result = new HashSet<>();
-        List<Token> binarySplits = splitter.split(string, cutoff);
+        for (Boundary candidate : segment(string, 0, cutoff)) {
+            int[] boundaries = new int[candidate == null ? 0 : candidate.length];
+            int i = 0;
+            for (Boundary b = candidate; b != null; b = b.next) {
+                boundaries[i++] = b.offset;
+            }
+            result.add(new CompactSegmentation(string, boundaries, scorer.logScore(string, boundaries)));
+        }
+
+        return result;
+    }
+
+    /**
+     * The recursion of segment() over the suffix of the input string starting at a given offset.
+     *
+     * @param string The whole input string
+     * @param from The start offset of the suffix to be segmented
+     * @param cutoff This parameter is completely ignored in this implementation
+     * @return The candidate segmentations of the suffix as their boundaries (null if the suffix is not split)
+     */
+    private List<Boundary> segment(String string, int from, int cutoff) {
+        List<Boundary> result = new ArrayList<>();
+        String suffix = string.substring(from);
+        List<Token> binarySplits = splitter.split(suffix, cutoff);
 
         //base case
         if(binarySplits.isEmpty()) {
@@ -66,53 +92,29 @@ public class SegmenterImpl implements Segmenter {
         }
 
         //recursive step
+        boolean keepWhole = splitter.keepWhole(suffix, cutoff);
         for (Token t : binarySplits) {
-            Set<Segmentation> remainingSegmentations = segment(string.substring(t.getEndOffset()), cutoff);
+            int end = from + t.getEndOffset();
+            List<Boundary> remainingSegmentations = segment(string, end, cutoff);
             if( remainingSegmentations.isEmpty() ) {
                 //get last remainder, put it as last segmentation
-                List<AnnotatedTerm> taggedTerms = new ArrayList<>();
-                createSegmentation(t, taggedTerms); //first, resulting segmentation is ignored
-                Token remainder = new Token(string.substring(t.getEndOffset()), t.getEndOffset(), string.length());
-                Segmentation lastSegmentation = createSegmentation(remainder, taggedTerms); //remainder
-                result.add(lastSegmentation);
+                result.add(new Boundary(end, null));
                 //and the counterpart (i.e., the no boundary case)
-                taggedTerms = new ArrayList<>();
-                remainder = new Token(string.substring(t.getStartOffset()), t.getStartOffset(), string.length());
-                lastSegmentation = createSegmentation(remainder, taggedTerms);
-                result.add(lastSegmentation);
+                keepWhole = true;
             } else {
                 //add first token to each one of those
-                for (Segmentation segmentation : remainingSegmentations) {
-                    updateSegmentation(segmentation, t);
+                for (Boundary segmentation : remainingSegmentations) {
+                    result.add(new Boundary(end, segmentation));
                 }
-                result.addAll(remainingSegmentations);
             }
         }
+        if (keepWhole) {
+            result.add(null);
+        }
 
         return result;
     }
 
-    protected Segmentation createSegmentation(Token t, List<AnnotatedTerm> taggedTerms){
-        //get token, return it as segmentation
-        AnnotatedTerm tTerm = new AnnotatedTerm();
-        tTerm.setContent(t);
-        taggedTerms.add(tTerm);
-        //probability
-        double segmentationProbability = scorer.score(taggedTerms);
-
-        return new Segmentation(taggedTerms, segmentationProbability);
-    }
-
-    protected void updateSegmentation(Segmentation segmentation, Token t) {
-        List<AnnotatedTerm> taggedTerms = segmentation.getParts();
-        AnnotatedTerm tTerm = new AnnotatedTerm();
-        tTerm.setContent(t);
-        taggedTerms.add(0, tTerm); //add it in first position
-        //probability
-        double segmentationProbability = scorer.score(taggedTerms);
-        segmentation.setProbability(segmentationProbability);
-    }
-
     /**
      * Given a compound this method returns the most likely segmentation for it based on either
      * the unigram model or the bigram model which is controled by the flag useUnigram.
@@ -141,5 +143,20 @@ public class SegmenterImpl implements Segmenter {
         return this.scorer;
     }
 
+    /**
+     * A boundary offset followed by the rest of the boundaries of a candidate segmentation, so that candidates extending
+     * the same segmentation of a suffix share it rather than copying it.
+     */
+    private static final class Boundary {
+        final int offset;
+        final Boundary next;
+        final int length;
+
+        Boundary(int offset, Boundary next) {
+            this.offset = offset;
+            this.next = next;
+            this.length = next == null ? 1 : next.length + 1;
+        }
+    }
 
 }
@@ -0,0 +1,95 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dent_in.nlp.words.segmenter.impl;
+
+import com.dent_in.nlp.lexicon.pdist.StupidBackoffModel;
+import com.dent_in.nlp.words.segmenter.AnnotatedTerm;
+import com.dent_in.nlp.words.segmenter.SegmentationScorer;
+
+import java.util.List;
+
+/**
+ * A scorer of segmentations by an n-gram model with stupid backoff (see StupidBackoffModel), e.g., with trigrams
+ * for multi-word names whose words are only likely together. Whole segmentations are scored with every word in its full
+ * context (up to n-1 words back), single words given the previous word only.
+ *
+ * Scores are not probabilities (they are not normalised), only comparable with one another.
+ */
+public class StupidBackoffScorerImpl implements SegmentationScorer {
+
+    private final StupidBackoffModel model;
+
+    /**
+     * Creates a scorer on a model loaded beforehand, which may be shared with other scorers (and threads).
+     *
+     * @param model The n-gram model
+     */
+    public StupidBackoffScorerImpl(StupidBackoffModel model) {
+        this.model = model;
+    }
+
+    public StupidBackoffModel getModel() {
+        return this.model;
+    }
+
+    public SegmentationScorer.type getType() {
+        return SegmentationScorer.type.STUPID_BACKOFF;
+    }
+
+    public double score(List<AnnotatedTerm> annotatedTerms) {
+        String[] words = new String[annotatedTerms.size()];
+        int i = 0;
+        for (AnnotatedTerm annotatedTerm : annotatedTerms) {
+            words[i++] = annotatedTerm.getContent().getToken();
+        }
+        return score(words);
+    }
+
+    public double score(String[] words) {
+        return Math.exp(logScore(words));
+    }
+
+    public double score(String word, String previousWord) {
+        return Math.exp(logScore(word, previousWord));
+    }
+
+    public double logScore(String[] words) {
+        return this.model.getLogScore(words);
+    }
+
+    public double logScore(String word, String previousWord) {
+        return this.model.getLogScore(this.model.getWordId(word, 0, word.length()),
+                previousWord == null ? this.model.getStartWordId() : this.model.getWordId(previousWord, 0, previousWord.length()));
+    }
+
+    @Override
+    public double logScore(CharSequence text, int start, int end, int previousStart, int previousEnd) {
+        return this.model.getLogScore(text, start, end, previousStart, previousEnd);
+    }
+
+    @Override
+    public double logScore(CharSequence text, int[] boundaries) {
+        return this.model.getLogScore(text, boundaries);
+    }
+
+    public double score(double [] features) {
+        //only used for random-forest-driven scorers
+        return -1.0;
+    }
+}
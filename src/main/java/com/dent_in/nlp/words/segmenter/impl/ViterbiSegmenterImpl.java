@@ -0,0 +1,194 @@
+/*
+ * Licensed to Dent-in Tech Solutions under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * Dent-in Tech Solutions licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dent_in.nlp.words.segmenter.impl;
+
+import com.dent_in.nlp.words.segmenter.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A dynamic-programming (Viterbi) version of Peter Norvig's word segmentation algorithm.
+ *
+ * Instead of recursively enumerating every segmentation of the input string (exponential in its length), the best
+ * segmentation of every prefix is memoised and extended one word at a time (see SegmentationLattice), so a string of
+ * length n costs O(n*L) calls to a unigram scorer and O(n*L*L) to a bigram scorer, L being the number of splits
+ * proposed by the splitter at each offset.
+ *
+ * The candidate space is exactly the one explored by SegmenterImpl with the same Splitter, hence both return the same
+ * best segmentation for either model.
+ *
+ * A stupid backoff scorer looks further back than the previous word, which the lattice does not keep, hence it is
+ * decoded with a bigram context and the best few candidates are rescored in their full context (i.e., n-best
+ * rescoring), which finds the best segmentation whenever it ranks among them with a bigram context.
+ */
+public class ViterbiSegmenterImpl implements Segmenter {
+
+    //the number of candidates rescored in full for scorers whose context goes beyond the previous word
+    public static final int RESCORED_CANDIDATES = 16;
+
+    Segmenter.type type = null;
+    Splitter splitter = null;
+    SegmentationScorer scorer = null;
+
+    public ViterbiSegmenterImpl(Splitter splitter, SegmentationScorer scorer) {
+        this.type = Segmenter.type.VITERBI;
+        this.splitter = splitter;
+        this.scorer = scorer;
+    }
+
+    /**
+     * The dynamic programme never materialises the candidate segmentations, hence only the best one is returned.
+     *
+     * @param string The input string to be segmented
+     * @param cutoff Passed on to the splitter as is
+     * @return A Set with the best segmentation, or an empty Set if the string cannot be split
+     */
+    public Set<Segmentation> segment(String string, int cutoff) {
+        Set<Segmentation> result = new HashSet<>();
+        Segmentation segmentation = decode(string, cutoff);
+        if (segmentation != null) {
+            result.add(segmentation);
+        }
+        return result;
+    }
+
+    /**
+     * Runs the dynamic programme over the lattice of words proposed by the splitter.
+     *
+     * @param string The input string to be segmented
+     * @param cutoff Passed on to the splitter as is
+     * @return The best segmentation, or null if the string cannot be split
+     */
+    protected Segmentation decode(String string, int cutoff) {
+        SegmentationLattice lattice = buildLattice(string, cutoff);
+        if (lattice == null) {
+            return null;
+        }
+        if (this.scorer.getType() == SegmentationScorer.type.STUPID_BACKOFF) {
+            return rescore(string, lattice.iterator()).next();
+        }
+        return lattice.getBestSegmentation();
+    }
+
+    /**
+     * Rescores the candidates of the lattice as wholes (see SegmentationScorer.logScore(CharSequence, int[])): the best
+     * few are rescored at once and yielded best first according to their new score (ties in the order of the lattice),
+     * the others are rescored as they are pulled, in the order of the lattice.
+     *
+     * @param string The input string
+     * @param candidates The candidates, best first according to the lattice
+     * @return The candidates with their new scores, the best one first
+     */
+    private Iterator<Segmentation> rescore(String string, Iterator<Segmentation> candidates) {
+        List<Segmentation> best = new ArrayList<>(RESCORED_CANDIDATES);
+        for (int k = 0; k < RESCORED_CANDIDATES && candidates.hasNext(); k++) {
+            best.add(rescore(string, candidates.next()));
+        }
+        best.sort(Comparator.comparingDouble(Segmentation::getLogProbability).reversed());
+        Iterator<Segmentation> first = best.iterator();
+        return new Iterator<Segmentation>() {
+            @Override
+            public boolean hasNext() {
+                return first.hasNext() || candidates.hasNext();
+            }
+
+            @Override
+            public Segmentation next() {
+                return first.hasNext() ? first.next() : rescore(string, candidates.next());
+            }
+        };
+    }
+
+    private CompactSegmentation rescore(String string, Segmentation candidate) {
+        int[] boundaries = ((CompactSegmentation) candidate).getBoundaries();
+        return new CompactSegmentation(string, boundaries, this.scorer.logScore(string, boundaries));
+    }
+
+    /**
+     * Builds the lattice of the words proposed by the splitter at every offset of the input string, or of the spans
+     * computed beforehand by the splitter if it sets boundaries.
+     *
+     * @param string The input string to be segmented
+     * @param cutoff Passed on to the splitter as is
+     * @return The scored lattice, or null if the string cannot be split
+     */
+    SegmentationLattice buildLattice(String string, int cutoff) {
+        //overlap splitters compute all the words of the string at once
+        this.splitter.setBoundaries(string);
+        int[] spans = this.splitter.getBoundaries();
+        if (spans != null) {
+            return SegmentationLattice.build(string, spans, this.scorer);
+        }
+        return SegmentationLattice.build(string, cutoff, this.splitter, this.scorer);
+    }
+
+    /**
+     * Returns the most likely segmentation of the input string according to the scorer of this segmenter.
+     *
+     * @param string The input string
+     * @return The best segmentation
+     */
+    public Segmentation getBestSegmentation(String string) {
+        Segmentation result = decode(string, 0);
+        if (result == null) {
+            result = new Segmentation(null, 0); //same as for an empty set of candidates
+        }
+        return result;
+    }
+
+    /**
+     * Returns the segmentations of the input string best first, extracted lazily from the lattice of words, so pulling
+     * the top k costs roughly O(n*L*k) and the whole candidate space is never materialised.
+     *
+     * With a stupid backoff scorer, the segmentations come with their scores in full context, the first
+     * RESCORED_CANDIDATES of them (hence the first one is the best segmentation) in descending order of that score and
+     * the others in the order of the lattice, i.e., of their scores with a bigram context.
+     *
+     * @param term The input string
+     * @return An Iterator over the segmentations of the string in descending order of their score
+     */
+    public Iterator<Segmentation> getSegmentations(String term) {
+        SegmentationLattice lattice = buildLattice(term, 0);
+        if (lattice == null) {
+            return Collections.<Segmentation>emptyIterator();
+        }
+        if (this.scorer.getType() == SegmentationScorer.type.STUPID_BACKOFF) {
+            return rescore(term, lattice.iterator());
+        }
+        return lattice.iterator();
+    }
+
+    public Segmentation getAhocTermsSegmentation(String term) {
+        return null; //applicable only for Ahoc Segmenters
+    }
+
+    public Splitter getSplitter() {
+        return this.splitter;
+    }
+
+    public SegmentationScorer getSegmentationScorer() {
+        return this.scorer;
+    }
+
+}
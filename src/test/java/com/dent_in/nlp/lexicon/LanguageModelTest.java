@@ -0,0 +1,399 @@
+package com.dent_in.nlp.lexicon;
+
+import com.dent_in.nlp.lexicon.impl.PackedNgramCorpusLexiconImpl;
+import com.dent_in.nlp.lexicon.impl.PerfectHashCorpusLexiconImpl;
+import com.dent_in.nlp.lexicon.pdist.LanguageModel;
+import com.dent_in.nlp.lexicon.pdist.StupidBackoffModel;
+import com.dent_in.nlp.lexicon.utils.LexiconCompiler;
+import com.dent_in.nlp.lexicon.utils.LoadErrorCollector;
+import com.dent_in.nlp.words.segmenter.AnnotatedTerm;
+import com.dent_in.nlp.words.segmenter.CompactSegmentation;
+import com.dent_in.nlp.words.segmenter.Segmentation;
+import com.dent_in.nlp.words.segmenter.SegmentationScorer;
+import com.dent_in.nlp.words.segmenter.Segmenter;
+import com.dent_in.nlp.words.segmenter.SegmenterFactory;
+import com.dent_in.nlp.words.segmenter.Splitter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class LanguageModelTest {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 200;
+
+    /**
+     * One language model shared by a unigram and a bigram scorer, read by many threads at once, must give every thread
+     * the very same scores as a single thread does.
+     *
+     * @throws Exception If any of the resources are not found or any of the threads fails
+     */
+    @Test
+    public void shareLanguageModelAcrossThreads() throws Exception {
+        URI uri = ClassLoader.getSystemResource("count_1w_excerpt.txt").toURI();
+        String unigramDataFileName = Paths.get(uri).toString();
+        uri = ClassLoader.getSystemResource("count_2w_excerpt.txt").toURI();
+        String bigramDataFileName = Paths.get(uri).toString();
+        LanguageModel languageModel = new LanguageModel(unigramDataFileName, bigramDataFileName, 1024908267229L);
+
+        SegmenterFactory factory = new SegmenterFactory();
+        SegmentationScorer unigramScorer = factory.createSegmentationScorer(languageModel, SegmentationScorer.type.BAYES_UNIGRAM);
+        SegmentationScorer bigramScorer = factory.createSegmentationScorer(languageModel, SegmentationScorer.type.BAYES_BIGRAM);
+        Splitter splitter = factory.createSplitter(Splitter.type.EXHAUSTIVE, null);
+        Segmenter unigramSegmenter = factory.createSegmenter(Segmenter.type.VITERBI, splitter, unigramScorer);
+        Segmenter bigramSegmenter = factory.createSegmenter(Segmenter.type.VITERBI, splitter, bigramScorer);
+
+        //same model, same scores as a scorer loading its own
+        SegmentationScorer ownScorer = factory.createSegmentationScorer(unigramDataFileName, bigramDataFileName, "1024908267229", SegmentationScorer.type.BAYES_BIGRAM);
+        assertEquals(ownScorer.logScore("wear", "sports"), bigramScorer.logScore("wear", "sports"));
+
+        String[] terms = {"choosespain", "thisisatest", "expertsexchange", "speedofart", "tositdownon", "sportswear", "peakview"};
+        String[][] pairs = {{"sports", "wear"}, {"sport", "swear"}, {"sit", "down"}, {"xqzt", "the"}, {"the", null}};
+        double[] expectedScores = new double[2 * pairs.length];
+        double[] expectedSegmentations = new double[2 * terms.length];
+        for (int i = 0; i < pairs.length; i++) {
+            expectedScores[2 * i] = unigramScorer.logScore(pairs[i][1] == null ? pairs[i][0] : pairs[i][1], pairs[i][1] == null ? null : pairs[i][0]);
+            expectedScores[2 * i + 1] = bigramScorer.logScore(pairs[i][1] == null ? pairs[i][0] : pairs[i][1], pairs[i][1] == null ? null : pairs[i][0]);
+        }
+        for (int i = 0; i < terms.length; i++) {
+            expectedSegmentations[2 * i] = unigramSegmenter.getBestSegmentation(terms[i]).getLogProbability();
+            expectedSegmentations[2 * i + 1] = bigramSegmenter.getBestSegmentation(terms[i]).getLogProbability();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int mismatches = 0;
+                    for (int n = 0; n < ITERATIONS; n++) {
+                        //each thread walks the inputs in a different order
+                        int i = (n + offset) % pairs.length;
+                        String word = pairs[i][1] == null ? pairs[i][0] : pairs[i][1];
+                        String previousWord = pairs[i][1] == null ? null : pairs[i][0];
+                        if (unigramScorer.logScore(word, previousWord) != expectedScores[2 * i]
+                                || bigramScorer.logScore(word, previousWord) != expectedScores[2 * i + 1]) {
+                            mismatches++;
+                        }
+                        int j = (n + offset) % terms.length;
+                        Segmentation unigramSegmentation = unigramSegmenter.getBestSegmentation(terms[j]);
+                        Segmentation bigramSegmentation = bigramSegmenter.getBestSegmentation(terms[j]);
+                        if (unigramSegmentation.getLogProbability() != expectedSegmentations[2 * j]
+                                || bigramSegmentation.getLogProbability() != expectedSegmentations[2 * j + 1]) {
+                            mismatches++;
+                        }
+                    }
+                    return mismatches;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> result : results) {
+                assertEquals(0, result.get().intValue());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * A language model over compiled (i.e., memory-mapped) lexicons scores exactly as one over the frequency lists.
+     *
+     * @param tempDir Where the compiled lexicons are written
+     * @throws URISyntaxException If any of the resources are not found
+     * @throws IOException If the compiled lexicons cannot be written
+     */
+    @Test
+    public void loadLanguageModelFromCompiledLexicons(@TempDir Path tempDir) throws URISyntaxException, IOException {
+        URI uri = ClassLoader.getSystemResource("count_1w_excerpt.txt").toURI();
+        String unigramDataFileName = Paths.get(uri).toString();
+        uri = ClassLoader.getSystemResource("count_2w_excerpt.txt").toURI();
+        String bigramDataFileName = Paths.get(uri).toString();
+        LanguageModel languageModel = new LanguageModel(unigramDataFileName, bigramDataFileName, 1024908267229L);
+
+        CorpusLexicon unigrams = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.CORPUSLEXICON);
+        unigrams.load(unigramDataFileName);
+        LexiconCompiler.compile(unigrams, tempDir.resolve("count_1w.lex"));
+        CorpusLexicon bigrams = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.NGRAMCORPUSLEXICON);
+        bigrams.load(bigramDataFileName);
+        LexiconCompiler.compile(bigrams, tempDir.resolve("count_2w.lex"));
+
+        CorpusLexicon mappedUnigrams = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.MAPPEDCORPUSLEXICON);
+        mappedUnigrams.load(tempDir.resolve("count_1w.lex").toString());
+        CorpusLexicon mappedBigrams = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.MAPPEDCORPUSLEXICON);
+        mappedBigrams.load(tempDir.resolve("count_2w.lex").toString());
+        LanguageModel mappedModel = new LanguageModel(mappedUnigrams, mappedBigrams, 1024908267229L);
+
+        String[] words = {"sit", "down", "on", "sports", "wear", "xqzt"};
+        assertEquals(languageModel.getLogProbability(words), mappedModel.getLogProbability(words));
+        assertEquals(languageModel.getLogProbability2(words), mappedModel.getLogProbability2(words));
+        assertEquals(languageModel.getConditionalProbability("wear", "sports"), mappedModel.getConditionalProbability("wear", "sports"));
+        assertEquals(languageModel.getLogConditionalProbability("wear", "sports"),
+                mappedModel.getLogConditionalProbability("sportswear", 6, 10, 0, 6));
+        assertEquals(languageModel.getLogProbability("xqzt"), mappedModel.getLogProbability("xqzt\u00e9", 0, 4));
+    }
+
+    /**
+     * A model over perfect hash tables of the unigrams and bigrams scores exactly as one over the lexicons they were
+     * built from.
+     *
+     * @throws URISyntaxException If any of the resources are not found
+     */
+    @Test
+    public void serveLanguageModelFromPerfectHashLexicons() throws URISyntaxException {
+        URI uri = ClassLoader.getSystemResource("count_1w_excerpt.txt").toURI();
+        String unigramDataFileName = Paths.get(uri).toString();
+        uri = ClassLoader.getSystemResource("count_2w_excerpt.txt").toURI();
+        String bigramDataFileName = Paths.get(uri).toString();
+        LanguageModel languageModel = new LanguageModel(unigramDataFileName, bigramDataFileName, 1024908267229L);
+
+        CorpusLexicon unigrams = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.PERFECTHASHCORPUSLEXICON);
+        unigrams.load(unigramDataFileName);
+        CorpusLexicon bigrams = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.NGRAMCORPUSLEXICON);
+        bigrams.load(bigramDataFileName);
+        LanguageModel perfectHashModel = new LanguageModel(unigrams, new PerfectHashCorpusLexiconImpl(bigrams), 1024908267229L);
+
+        String[] words = {"sit", "down", "on", "sports", "wear", "xqzt"};
+        assertEquals(languageModel.getLogProbability(words), perfectHashModel.getLogProbability(words));
+        assertEquals(languageModel.getLogProbability2(words), perfectHashModel.getLogProbability2(words));
+        assertEquals(languageModel.getLogConditionalProbability("wear", "sports"),
+                perfectHashModel.getLogConditionalProbability("sportswear", 6, 10, 0, 6));
+        assertEquals(languageModel.getLogProbability("xqzt"), perfectHashModel.getLogProbability("xqzt\u00e9", 0, 4));
+
+        SegmenterFactory factory = new SegmenterFactory();
+        Splitter splitter = factory.createSplitter(Splitter.type.EXHAUSTIVE, null);
+        Segmenter expected = factory.createSegmenter(Segmenter.type.VITERBI, splitter,
+                factory.createSegmentationScorer(languageModel, SegmentationScorer.type.BAYES_BIGRAM));
+        Segmenter segmenter = factory.createSegmenter(Segmenter.type.VITERBI, splitter,
+                factory.createSegmentationScorer(perfectHashModel, SegmentationScorer.type.BAYES_BIGRAM));
+        for (String term : new String[]{"choosespain", "thisisatest", "expertsexchange", "speedofart", "tositdownon", "sportswear"}) {
+            assertEquals(expected.getBestSegmentation(term).getLogProbability(), segmenter.getBestSegmentation(term).getLogProbability(), term);
+        }
+    }
+
+    /**
+     * Regions of a string score exactly as the words they stand for, and probing every region of a string (i.e., every
+     * candidate word and every pair of adjacent ones) allocates nothing once warmed up.
+     *
+     * @throws URISyntaxException If any of the resources are not found
+     */
+    @Test
+    public void scoreRegionsWithoutSubstrings() throws URISyntaxException {
+        URI uri = ClassLoader.getSystemResource("count_1w_excerpt.txt").toURI();
+        String unigramDataFileName = Paths.get(uri).toString();
+        uri = ClassLoader.getSystemResource("count_2w_excerpt.txt").toURI();
+        String bigramDataFileName = Paths.get(uri).toString();
+        LanguageModel languageModel = new LanguageModel(unigramDataFileName, bigramDataFileName, 1024908267229L);
+
+        String term = "sportswearsitdownon";
+        for (int start = 0; start < term.length(); start++) {
+            for (int end = start + 1; end <= term.length(); end++) {
+                String word = term.substring(start, end);
+                assertEquals(languageModel.containsWord(word), languageModel.containsWord(term, start, end), word);
+                assertEquals(languageModel.getLogProbability(word), languageModel.getLogProbability(term, start, end), word);
+                assertEquals(languageModel.getLogConditionalProbability(word, "<S>"),
+                        languageModel.getLogConditionalProbability(term, start, end, -1, -1), word);
+                for (int previousStart = 0; previousStart < start; previousStart++) {
+                    assertEquals(languageModel.getLogConditionalProbability(word, term.substring(previousStart, start)),
+                            languageModel.getLogConditionalProbability(term, start, end, previousStart, start), word);
+                }
+            }
+        }
+
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        double sum = probeAllRegions(languageModel, term);
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (int i = 0; i < 100; i++) {
+            sum += probeAllRegions(languageModel, term);
+        }
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+        assertTrue(sum < 0);
+        //a String per region would be several hundred KB here
+        assertTrue(allocated < 16 * 1024, allocated + " bytes allocated");
+    }
+
+    private static List<String> getWords(Segmentation segmentation) {
+        List<String> words = new ArrayList<>();
+        for (AnnotatedTerm part : segmentation.getParts()) {
+            words.add(part.getContent().getToken());
+        }
+        return words;
+    }
+
+    private static double probeAllRegions(LanguageModel languageModel, String term) {
+        double sum = 0;
+        for (int start = 0; start < term.length(); start++) {
+            for (int end = start + 1; end <= term.length(); end++) {
+                sum += languageModel.getLogProbability(term, start, end);
+                for (int previousStart = 0; previousStart < start; previousStart++) {
+                    sum += languageModel.getLogConditionalProbability(term, start, end, previousStart, start);
+                }
+            }
+        }
+        return sum;
+    }
+    /**
+     * Stupid backoff scores the bigrams seen as the bigram model does and backs off to 0.4 times the score of a shorter
+     * context otherwise, and a trigram seen changes the best segmentation of a term.
+     *
+     * @param tempDir Where the n-gram lists are written
+     * @throws URISyntaxException If any of the resources are not found
+     * @throws IOException If the n-gram lists cannot be written
+     */
+    @Test
+    public void scoreWithStupidBackoff(@TempDir Path tempDir) throws URISyntaxException, IOException {
+        URI uri = ClassLoader.getSystemResource("count_1w_excerpt.txt").toURI();
+        String unigramDataFileName = Paths.get(uri).toString();
+        uri = ClassLoader.getSystemResource("count_2w_excerpt.txt").toURI();
+        Path bigramFile = tempDir.resolve("count_2w.txt");
+        List<String> bigrams = new ArrayList<>(Files.readAllLines(Paths.get(uri), StandardCharsets.UTF_8));
+        bigrams.add("<S> sport\t1523412");
+        Files.write(bigramFile, bigrams, StandardCharsets.UTF_8);
+        Path trigramFile = tempDir.resolve("count_3w.txt");
+        //a unigram and a four-gram line have no place in a trigram model, they are skipped
+        Files.write(trigramFile, Arrays.asList("<S> sport swear\t1500000", "this is a\t1000000", "sports\t12",
+                "is a test\t5000000", "this is a test\t7"), StandardCharsets.UTF_8);
+        LanguageModel languageModel = new LanguageModel(unigramDataFileName, bigramFile.toString(), 1024908267229L);
+        StupidBackoffModel bigramModel = new StupidBackoffModel(unigramDataFileName, new String[]{bigramFile.toString()}, 1024908267229L);
+        StupidBackoffModel trigramModel = new StupidBackoffModel(unigramDataFileName,
+                new String[]{bigramFile.toString(), trigramFile.toString()}, 1024908267229L);
+        assertEquals(2, bigramModel.getOrder());
+        assertEquals(3, trigramModel.getOrder());
+        PackedNgramCorpusLexiconImpl trigrams = new PackedNgramCorpusLexiconImpl(
+                (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.PRIMITIVECORPUSLEXICON),
+                NgramCorpusLexicon.NGRAMSIZE.TRIGRAM);
+        LoadErrorCollector errors = trigrams.load(trigramFile.toString(), 1);
+        assertEquals(2, errors.getErrorCount());
+        assertEquals(LoadErrorCollector.Kind.WRONG_KEY, errors.getErrors().get(0).getKind());
+        assertEquals(2, errors.getErrors().get(0).getLine());
+        assertEquals("this is a test", errors.getErrors().get(1).getValue());
+        assertEquals(3, trigrams.getVocabularySize().longValue());
+        double delta = 1e-9;
+
+        //bigrams seen score as with the bigram model, the others back off to the unigram score
+        String[] words = {"this", "is", "a", "test", "xqzt"};
+        assertEquals(languageModel.getLogConditionalProbability("wear", "sports"), bigramModel.getLogScore(
+                bigramModel.getWordId("wear", 0, 4), bigramModel.getWordId("sports", 0, 6)), delta);
+        assertEquals(Math.log(0.4) + languageModel.getLogProbability("test"), bigramModel.getLogScore(
+                bigramModel.getWordId("test", 0, 4), bigramModel.getWordId("sports", 0, 6)), delta);
+        assertEquals(Math.log(0.4) + languageModel.getLogProbability("xqzt"), bigramModel.getLogScore(
+                bigramModel.getWordId("xqzt", 0, 4), bigramModel.getWordId("test", 0, 4)), delta);
+        assertEquals(languageModel.getLogProbability2(Arrays.copyOf(words, 4)), bigramModel.getLogScore(Arrays.copyOf(words, 4)), delta);
+
+        //trigrams seen are relative to their context, the others back off to the bigram score
+        int[] ids = {trigramModel.getStartWordId(), 0, 0, 0, 0, 0};
+        for (int i = 0; i < words.length; i++) {
+            ids[i + 1] = trigramModel.getWordId(words[i], 0, words[i].length());
+        }
+        assertEquals(bigramModel.getLogScore(ids, 0, 2), trigramModel.getLogScore(ids, 0, 2), delta);
+        assertEquals(Math.log(0.4) + bigramModel.getLogScore(ids, 1, 3), trigramModel.getLogScore(ids, 0, 3), delta);
+        assertEquals(Math.log(1000000) - Math.log(412341231), trigramModel.getLogScore(ids, 0, 4), delta);
+        assertEquals(Math.log(5000000) - Math.log(476718990), trigramModel.getLogScore(ids, 0, 5), delta);
+        assertEquals(Math.log(0.4) + Math.log(0.4) + languageModel.getLogProbability("xqzt"), trigramModel.getLogScore(ids, 0, 6), delta);
+        //only the last two words are the context of a trigram model
+        assertEquals(trigramModel.getLogScore(ids, 2, 5), trigramModel.getLogScore(ids, 0, 5));
+        assertEquals(trigramModel.getLogScore(words), trigramModel.getLogScore("thisisatestxqzt", new int[]{4, 6, 7, 11}), delta);
+
+        //sport|swear only wins with the trigram, the Viterbi segmenter finds it by rescoring
+        SegmenterFactory factory = new SegmenterFactory();
+        //the bigram files alone would make an order-2 model, whatever the higher orders meant to be used
+        assertThrows(IllegalArgumentException.class, () -> factory.createSegmentationScorer(unigramDataFileName,
+                bigramFile.toString(), "1024908267229", SegmentationScorer.type.STUPID_BACKOFF));
+        Splitter splitter = factory.createSplitter(Splitter.type.EXHAUSTIVE, null);
+        for (StupidBackoffModel model : new StupidBackoffModel[]{bigramModel, trigramModel}) {
+            SegmentationScorer scorer = factory.createSegmentationScorer(model);
+            assertEquals(SegmentationScorer.type.STUPID_BACKOFF, scorer.getType());
+            Segmenter norvig = factory.createSegmenter(Segmenter.type.NORVIG, splitter, scorer);
+            Segmenter viterbi = factory.createSegmenter(Segmenter.type.VITERBI, splitter, scorer);
+            for (String term : new String[]{"sportswear", "thisisatest", "choosespain", "speedofart", "tositdownon"}) {
+                Segmentation segmentation = norvig.getBestSegmentation(term);
+                assertEquals(segmentation.getLogProbability(), viterbi.getBestSegmentation(term).getLogProbability(), delta, term);
+                //the n-best list starts with the best segmentation, scored in full context too
+                Segmentation best = viterbi.getBestSegmentation(term);
+                for (Segmentation first : new Segmentation[]{viterbi.getBestSegmentations(term, 1).get(0),
+                        viterbi.getSegmentations(term).next()}) {
+                    assertEquals(getWords(best), getWords(first), term);
+                    assertEquals(best.getLogProbability(), first.getLogProbability(), delta, term);
+                }
+                Iterator<Segmentation> segmentations = viterbi.getSegmentations(term);
+                while (segmentations.hasNext()) {
+                    Segmentation next = segmentations.next();
+                    int[] boundaries = ((CompactSegmentation) next).getBoundaries();
+                    assertEquals(model.getLogScore(term, boundaries), next.getLogProbability(), delta, term);
+                }
+            }
+            String best = norvig.getBestSegmentation("sportswear").getParts().get(0).getContent().getToken();
+            assertEquals(model == trigramModel ? "sport" : "sports", best);
+        }
+    }
+
+    /**
+     * A model reading the log-probabilities of the unigrams from a quantized table scores within the quantization error
+     * of the exact model, by words, regions and ids alike, and finds the same best segmentations.
+     *
+     * @throws URISyntaxException If any of the resources are not found
+     */
+    @Test
+    public void quantizeLogProbabilities() throws URISyntaxException {
+        URI uri = ClassLoader.getSystemResource("count_1w_excerpt.txt").toURI();
+        String unigramDataFileName = Paths.get(uri).toString();
+        uri = ClassLoader.getSystemResource("count_2w_excerpt.txt").toURI();
+        String bigramDataFileName = Paths.get(uri).toString();
+        LanguageModel exact = new LanguageModel(unigramDataFileName, bigramDataFileName, 1024908267229L);
+        LanguageModel quantized = new LanguageModel(unigramDataFileName, bigramDataFileName, 1024908267229L, true);
+        double maxError = 1e-3;
+
+        String text = "sportswearxqztthe";
+        int[][] regions = {{0, 6}, {6, 10}, {0, 5}, {5, 10}, {10, 14}, {14, 17}};
+        for (int[] region : regions) {
+            String word = text.substring(region[0], region[1]);
+            assertEquals(exact.getLogProbability(word), quantized.getLogProbability(word), maxError, word);
+            assertEquals(exact.getLogProbability(text, region[0], region[1]), quantized.getLogProbability(text, region[0], region[1]), maxError, word);
+            //same codes by word and by id
+            assertEquals(quantized.getLogProbability(word), quantized.getLogProbability(quantized.getWordId(word, 0, word.length())), word);
+        }
+        //unknown words are penalized as before
+        assertEquals(exact.getLogProbability("xqzt"), quantized.getLogProbability("xqzt"));
+        assertEquals(exact.getLogConditionalProbability("wear", "sports"), quantized.getLogConditionalProbability("wear", "sports"), maxError);
+        assertEquals(quantized.getLogProbability2(new String[]{"sports", "wear"}),
+                quantized.getLogProbability2(quantized.getWordIds(new String[]{"sports", "wear"})));
+
+        SegmenterFactory factory = new SegmenterFactory();
+        Splitter splitter = factory.createSplitter(Splitter.type.EXHAUSTIVE, null);
+        for (SegmentationScorer.type type : new SegmentationScorer.type[]{SegmentationScorer.type.BAYES_UNIGRAM, SegmentationScorer.type.BAYES_BIGRAM}) {
+            Segmenter expected = factory.createSegmenter(Segmenter.type.VITERBI, splitter, factory.createSegmentationScorer(exact, type));
+            Segmenter segmenter = factory.createSegmenter(Segmenter.type.VITERBI, splitter, factory.createSegmentationScorer(quantized, type));
+            for (String term : new String[]{"choosespain", "thisisatest", "expertsexchange", "speedofart", "tositdownon", "sportswear"}) {
+                Segmentation segmentation = expected.getBestSegmentation(term);
+                Segmentation quantizedSegmentation = segmenter.getBestSegmentation(term);
+                assertEquals(segmentation.getLogProbability(), quantizedSegmentation.getLogProbability(), 10 * maxError, term);
+                assertEquals(segmentation.getParts().size(), quantizedSegmentation.getParts().size(), term);
+            }
+        }
+    }
+}
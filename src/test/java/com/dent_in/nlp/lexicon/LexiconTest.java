@@ -1,11 +1,43 @@
 package com.dent_in.nlp.lexicon;
 
+import com.dent_in.nlp.lexicon.impl.BigramCorpusLexiconImpl;
+import com.dent_in.nlp.lexicon.impl.CorpusLexiconImpl;
+import com.dent_in.nlp.lexicon.impl.DawgCorpusLexiconImpl;
+import com.dent_in.nlp.lexicon.impl.PerfectHashCorpusLexiconImpl;
+import com.dent_in.nlp.lexicon.impl.PrimitiveCorpusLexiconImpl;
+import com.dent_in.nlp.lexicon.index.BloomFilter;
+import com.dent_in.nlp.lexicon.index.CharTrie;
+import com.dent_in.nlp.lexicon.index.Dawg;
+import com.dent_in.nlp.lexicon.index.LogProbabilityTable;
+import com.dent_in.nlp.lexicon.index.PerfectHashTable;
+import com.dent_in.nlp.lexicon.index.SuccessorIndex;
+import com.dent_in.nlp.lexicon.index.WordFrequencyTable;
+import com.dent_in.nlp.lexicon.utils.LexiconCompiler;
+import com.dent_in.nlp.lexicon.utils.FrequencyStatistics;
+import com.dent_in.nlp.lexicon.utils.LexiconReader;
+import com.dent_in.nlp.lexicon.utils.LoadErrorCollector;
+import com.dent_in.nlp.lexicon.utils.PruningOptions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class LexiconTest {
 
@@ -46,4 +78,683 @@ public class LexiconTest {
 
     }
 
-}
\ No newline at end of file
+    /**
+     * A compiled lexicon, mapped rather than read, must answer exactly as the lexicon it was compiled from.
+     *
+     * @param tempDir Where the compiled lexicon is written
+     * @throws IOException If the compiled lexicon cannot be written
+     */
+    @Test
+    public void testMappedCorpusLexicon(@TempDir Path tempDir) throws IOException {
+        CorpusLexicon lexicon = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.CORPUSLEXICON);
+        lexicon.load(ClassLoader.getSystemResource("frequencyDictionaryExcerpt.txt").getFile());
+        Path compiled = tempDir.resolve("frequencyDictionaryExcerpt.lex");
+        LexiconCompiler.compile(lexicon, compiled);
+
+        CorpusLexicon mapped = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.MAPPEDCORPUSLEXICON);
+        mapped.load(compiled.toString());
+
+        assertSameLexicon(lexicon, mapped);
+        assertEquals(lexicon.getWords(), mapped.getWords());
+        assertEquals(lexicon.getFrequencies(), mapped.getFrequencies());
+
+        String nonWord = "crrrsssstttt";
+        assertNotEquals(true, mapped.containsWord(nonWord));
+        assertEquals(lexicon.getFrequency(nonWord), mapped.getFrequency(nonWord));
+        assertNotEquals(true, mapped.containsWord(""));
+        assertNotEquals(true, mapped.containsWord("\u00e9t\u00e9"));
+        //regions of a longer string, ASCII or not
+        assertEquals(true, mapped.containsWord("xxabbotxx", 2, 7));
+        assertEquals(lexicon.getFrequency("abbot").longValue(), mapped.getFrequency("xxabbotxx", 2, 7, -1));
+        assertEquals(-1, mapped.getFrequency("xxabbotxx", 2, 8, -1));
+        assertEquals(-1, mapped.getFrequency("\u00e9abbot", 0, 6, -1));
+        assertEquals(false, mapped.containsWord("\u00e9abbot", 0, 0));
+    }
+
+    /**
+     * The primitive-backed lexicon must answer exactly as the HashMap-backed one.
+     */
+    @Test
+    public void testPrimitiveCorpusLexicon() {
+        String testFileName = ClassLoader.getSystemResource("frequencyDictionaryExcerpt.txt").getFile();
+        CorpusLexicon lexicon = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.CORPUSLEXICON);
+        lexicon.load(testFileName);
+        CorpusLexicon primitive = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.PRIMITIVECORPUSLEXICON);
+        primitive.load(testFileName);
+
+        assertEquals(new Long(1010), primitive.getVocabularySize());
+        assertSameLexicon(lexicon, primitive);
+        assertEquals(lexicon.getFrequencies(), primitive.getFrequencies());
+        assertEquals(lexicon.getWords(), primitive.getWords());
+
+        String nonWord = "crrrsssstttt";
+        assertNotEquals(true, primitive.containsWord(nonWord));
+        assertEquals(lexicon.getFrequency(nonWord), primitive.getFrequency(nonWord));
+        assertEquals(-1, primitive.getFrequency(nonWord, -1));
+        assertEquals(-1, lexicon.getFrequency(nonWord, -1));
+        //regions of a longer string
+        assertEquals(true, primitive.containsWord("xxabbotxx", 2, 7));
+        assertEquals(lexicon.getFrequency("abbot").longValue(), primitive.getFrequency("xxabbotxx", 2, 7, -1));
+        assertEquals(lexicon.getFrequency("xxabbotxx", 2, 7, -1), primitive.getFrequency("xxabbotxx", 2, 7, -1));
+        assertEquals(-1, primitive.getFrequency("xxabbotxx", 1, 7, -1));
+    }
+
+    @Test
+    public void testWordFrequencyTable() {
+        WordFrequencyTable table = new WordFrequencyTable();
+        //enough words to grow the arena, the entries and the slots several times
+        for (int i = 0; i < 10000; i++) {
+            table.put("w" + i, (long) i);
+        }
+        table.put("w42", 4242L);
+        table.putFrequency("", 7);
+        table.trimToSize();
+        table.putFrequency("after", 1);
+
+        assertEquals(10002, table.size());
+        assertEquals(4242L, table.getFrequency("w42", -1));
+        assertEquals(9999L, table.getFrequency("w9999", -1));
+        assertEquals(7L, table.getFrequency("", -1));
+        assertEquals(1L, table.getFrequency("after", -1));
+        assertEquals(-1L, table.getFrequency("w10000", -1));
+        //regions of a longer string are looked up without substrings
+        String text = "xxw123yy";
+        int entry = table.indexOf(text, 2, 6);
+        assertEquals("w123", table.getWord(entry));
+        assertEquals(123L, table.getFrequency(entry));
+        assertEquals(12L, table.getFrequency(table.indexOf(text, 2, 5)));
+        assertEquals(-1, table.indexOf(text, 0, 6));
+    }
+
+    /**
+     * Loading on several threads gives the same lexicon, and the same warnings (by line), as loading on one thread.
+     *
+     * @param tempDir Where an ill-formatted frequency list is written
+     * @throws IOException If the frequency list cannot be written
+     */
+    @Test
+    public void testParallelLoading(@TempDir Path tempDir) throws IOException {
+        String testFileName = ClassLoader.getSystemResource("frequencyDictionaryExcerpt.txt").getFile();
+        CorpusLexicon lexicon = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.CORPUSLEXICON);
+        lexicon.load(testFileName);
+        for (Lexicon.TYPE type : new Lexicon.TYPE[]{Lexicon.TYPE.CORPUSLEXICON, Lexicon.TYPE.PRIMITIVECORPUSLEXICON}) {
+            CorpusLexiconImpl parallel = (CorpusLexiconImpl) new LexiconFactory().createInstance(type);
+            assertEquals(true, parallel.load(testFileName, 4).isEmpty());
+            assertEquals(lexicon.getFrequencies(), parallel.getFrequencies());
+            assertEquals(lexicon.getCorpusSize(), parallel.getCorpusSize());
+            assertEquals(lexicon.getMinFrequency(), parallel.getMinFrequency());
+            assertEquals(lexicon.getMaxFrequency(), parallel.getMaxFrequency());
+        }
+
+        String bigramFileName = ClassLoader.getSystemResource("count_2w_excerpt.txt").getFile();
+        CorpusLexicon bigrams = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.NGRAMCORPUSLEXICON);
+        bigrams.load(bigramFileName);
+        CorpusLexiconImpl parallelBigrams = (CorpusLexiconImpl) new LexiconFactory().createInstance(Lexicon.TYPE.NGRAMCORPUSLEXICON);
+        parallelBigrams.load(bigramFileName, 3);
+        assertEquals(bigrams.getFrequencies(), parallelBigrams.getFrequencies());
+
+        //ill-formatted lines spread over many chunks, and a word listed twice
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            lines.add(i == 17 ? "extra 1 2" : i == 150 ? "broken 1x" : i == 180 ? "w3\t42" : "w" + i + "\t" + i);
+        }
+        Path file = tempDir.resolve("ill-formatted.txt");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        CorpusLexicon expected = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.CORPUSLEXICON);
+        expected.load(file.toString());
+        CorpusLexicon parallel = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.CORPUSLEXICON);
+        LoadErrorCollector errors = LexiconReader.loadCorpusLexicon(file, parallel, StandardCharsets.UTF_8, 8);
+
+        assertEquals(expected.getFrequencies(), parallel.getFrequencies());
+        assertEquals(42L, parallel.getFrequency("w3", -1));
+        assertEquals(2, errors.getErrorCount());
+        assertEquals(17L, errors.getErrors().get(0).getLine());
+        assertEquals(LoadErrorCollector.Kind.UNEXPECTED_TOKEN, errors.getErrors().get(0).getKind());
+        assertEquals("WARN: There is a wrong formatted frequency: 1x at line: 150", errors.getErrors().get(1).toString());
+    }
+
+    /**
+     * The byte-level parser reads the very same words, frequencies, warnings and stats as the regex-based one (which
+     * is the one used for UTF-16, hence the same lines written in both encodings), tricky lines included.
+     *
+     * @param tempDir Where the frequency lists are written
+     * @throws IOException If the frequency lists cannot be written
+     */
+    @Test
+    public void testFrequencyListParser(@TempDir Path tempDir) throws IOException {
+        StringBuilder words = new StringBuilder();
+        StringBuilder ngrams = new StringBuilder();
+        for (String line : new String[]{"a\t1", "b 2", "  c  3 extra", "", "d\tx", "e\t+4", "f\t-5", "g\t-", "h\t99999999999999999999",
+                "i\t\u0661\u0662", "\u00e9t\u00e9\t7", "j\t9223372036854775807", "a\t11", "k\u0001\t3"}) {
+            words.append(line).append(line.startsWith("e") ? "\r" : "\r\n");
+        }
+        for (String line : new String[]{"of the\t10", "a  b\t3", "x \ty\t4", "\tz\t5", "one two three\t6 7", "w\u0001 v\t8", "last\t9"}) {
+            ngrams.append(line).append('\n');
+        }
+        //lines crossing the blocks the parser reads, and a line longer than a block
+        for (int i = 0; i < 20000; i++) {
+            words.append("w").append(i).append(" ").append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        for (int i = 0; i < 100000; i++) {
+            words.append('l');
+        }
+        words.append(" 1");
+
+        for (boolean ngram : new boolean[]{false, true}) {
+            String text = ngram ? ngrams.toString() : words.toString();
+            Path utf8 = tempDir.resolve("utf8.txt");
+            Path utf16 = tempDir.resolve("utf16.txt");
+            Files.write(utf8, text.getBytes(StandardCharsets.UTF_8));
+            Files.write(utf16, text.getBytes(StandardCharsets.UTF_16));
+            Lexicon.TYPE type = ngram ? Lexicon.TYPE.NGRAMCORPUSLEXICON : Lexicon.TYPE.CORPUSLEXICON;
+
+            CorpusLexicon expected = (CorpusLexicon) new LexiconFactory().createInstance(type);
+            LoadErrorCollector expectedErrors = new LoadErrorCollector();
+            FrequencyStatistics expectedStatistics = LexiconReader.readFrequencyList(utf16, expected, StandardCharsets.UTF_16, 1, ngram, expectedErrors);
+            for (int parallelism : new int[]{1, 3}) {
+                CorpusLexicon lexicon = (CorpusLexicon) new LexiconFactory().createInstance(type);
+                LoadErrorCollector errors = new LoadErrorCollector();
+                FrequencyStatistics statistics = LexiconReader.readFrequencyList(utf8, lexicon, StandardCharsets.UTF_8, parallelism, ngram, errors);
+                assertEquals(expected.getFrequencies(), lexicon.getFrequencies());
+                assertEquals(expectedErrors.getErrors().toString(), errors.getErrors().toString());
+                assertEquals(expectedStatistics.getTotal(), statistics.getTotal());
+                assertEquals(expectedStatistics.getMin(), statistics.getMin());
+                assertEquals(expectedStatistics.getMax(), statistics.getMax());
+                assertEquals(expectedStatistics.isExact(), statistics.isExact());
+            }
+        }
+
+        //stats computed while loading are those of the lexicon
+        Path utf8 = tempDir.resolve("utf8.txt");
+        Files.write(utf8, words.toString().replace("a\t11", "aa\t11").getBytes(StandardCharsets.UTF_8));
+        CorpusLexicon lexicon = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.CORPUSLEXICON);
+        LoadErrorCollector errors = new LoadErrorCollector();
+        FrequencyStatistics statistics = LexiconReader.readFrequencyList(utf8, lexicon, StandardCharsets.UTF_8, 1, false, errors);
+        assertEquals(true, statistics.isExact());
+        assertEquals(lexicon.getFrequencies().values().stream().mapToLong(Long::longValue).sum(), statistics.getTotal());
+        assertEquals(-5L, statistics.getMin());
+        assertEquals(Long.MAX_VALUE, statistics.getMax());
+        assertEquals(12L, lexicon.getFrequency("i", -1));
+        assertEquals(5, errors.getErrorCount());
+    }
+
+    /**
+     * Gzipped shards of a list load into the same lexicon as the whole list, wherever their lines are split.
+     *
+     * @param tempDir Where the shards are written
+     * @throws IOException If the shards cannot be written
+     */
+    @Test
+    public void testShardLoading(@TempDir Path tempDir) throws IOException {
+        Path bigramFile = Paths.get(ClassLoader.getSystemResource("count_2w_excerpt.txt").getFile());
+        CorpusLexicon bigrams = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.NGRAMCORPUSLEXICON);
+        bigrams.load(bigramFile.toString());
+
+        List<String> lines = Files.readAllLines(bigramFile, StandardCharsets.UTF_8);
+        int shards = 4;
+        for (int k = 0; k < shards; k++) {
+            List<String> shard = new ArrayList<>(lines.subList(k * lines.size() / shards, (k + 1) * lines.size() / shards));
+            if (k == 2) {
+                shard.add(1, "of the\tmany");
+            }
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tempDir.resolve("2w-" + k + ".gz")))) {
+                out.write(String.join("\n", shard).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        Files.write(tempDir.resolve("README"), Collections.singletonList("not a shard"), StandardCharsets.UTF_8);
+
+        CorpusLexiconImpl sharded = (CorpusLexiconImpl) new LexiconFactory().createInstance(Lexicon.TYPE.NGRAMCORPUSLEXICON);
+        LoadErrorCollector errors = sharded.loadShards(tempDir.toString(), "*.gz", 3);
+        assertEquals(bigrams.getFrequencies(), sharded.getFrequencies());
+        assertEquals(bigrams.getCorpusSize(), sharded.getCorpusSize());
+        assertEquals(bigrams.getMinFrequency(), sharded.getMinFrequency());
+        assertEquals(bigrams.getMaxFrequency(), sharded.getMaxFrequency());
+        assertEquals(1, errors.getErrorCount());
+        assertEquals("WARN: There is a wrong formatted frequency: many at line: 1 of 2w-2.gz", errors.getErrors().get(0).toString());
+
+        //a truncated shard is reported, the others are loaded all the same
+        Path truncated = Files.createDirectory(tempDir.resolve("truncated"));
+        Files.copy(tempDir.resolve("2w-0.gz"), truncated.resolve("2w-0.gz"));
+        byte[] gzipped = Files.readAllBytes(tempDir.resolve("2w-1.gz"));
+        Files.write(truncated.resolve("2w-1.gz"), Arrays.copyOf(gzipped, gzipped.length / 2));
+        Files.copy(tempDir.resolve("2w-3.gz"), truncated.resolve("2w-3.gz"));
+        for (int parallelism : new int[]{1, 2}) {
+            CorpusLexiconImpl partial = (CorpusLexiconImpl) new LexiconFactory().createInstance(Lexicon.TYPE.NGRAMCORPUSLEXICON);
+            errors = partial.loadShards(truncated.toString(), "*.gz", parallelism);
+            assertEquals(1, errors.getErrorCount());
+            assertEquals(LoadErrorCollector.Kind.UNREADABLE_FILE, errors.getErrors().get(0).getKind());
+            assertEquals("2w-1.gz", errors.getErrors().get(0).getSource());
+            for (int k : new int[]{0, 3}) {
+                for (String line : lines.subList(k * lines.size() / shards, (k + 1) * lines.size() / shards)) {
+                    String[] entry = line.split("\t");
+                    assertEquals(Long.parseLong(entry[1]), partial.getFrequency(entry[0], -1), line);
+                }
+            }
+        }
+
+        //a single gzipped shard
+        CorpusLexicon shard = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.NGRAMCORPUSLEXICON);
+        shard.load(tempDir.resolve("2w-0.gz").toString());
+        assertEquals(lines.get(0).split("\t")[1], String.valueOf(shard.getFrequency(lines.get(0).split("\t")[0], -1)));
+        assertEquals(lines.size() / shards, shard.getVocabularySize().intValue());
+    }
+
+    @Test
+    public void testPruning(@TempDir Path tempDir) throws IOException {
+        String unigramFile = ClassLoader.getSystemResource("count_1w_excerpt.txt").getFile();
+        CorpusLexicon unigrams = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.CORPUSLEXICON);
+        unigrams.load(unigramFile);
+        Map<String, Long> all = unigrams.getFrequencies();
+
+        //min frequency, on one thread and on several
+        long minFrequency = 100000000L;
+        for (int parallelism : new int[]{1, 3}) {
+            PruningOptions pruning = new PruningOptions();
+            pruning.setMinFrequency(minFrequency);
+            CorpusLexiconImpl pruned = (CorpusLexiconImpl) new LexiconFactory().createInstance(Lexicon.TYPE.PRIMITIVECORPUSLEXICON);
+            pruned.setPruningOptions(pruning);
+            pruned.load(unigramFile, parallelism);
+            long kept = all.values().stream().filter(frequency -> frequency >= minFrequency).count();
+            assertEquals(kept, pruned.getVocabularySize().longValue());
+            assertEquals(all.size() - kept, pruned.getPrunedCount());
+            assertEquals(unigrams.getCorpusSize().longValue(), pruned.getCorpusSize() + pruned.getPrunedMass());
+            assertTrue(pruned.getFrequencies().values().stream().allMatch(frequency -> frequency >= minFrequency));
+        }
+
+        //vocabulary budget, the most frequent words whatever the order of the list
+        List<String> lines = new ArrayList<>(Files.readAllLines(Paths.get(unigramFile), StandardCharsets.UTF_8));
+        Collections.reverse(lines);
+        Path reversed = tempDir.resolve("reversed.txt");
+        Files.write(reversed, lines, StandardCharsets.UTF_8);
+        PruningOptions budget = new PruningOptions();
+        budget.setMaxVocabularySize(10);
+        CorpusLexiconImpl top = (CorpusLexiconImpl) new LexiconFactory().createInstance(Lexicon.TYPE.PRIMITIVECORPUSLEXICON);
+        top.setPruningOptions(budget);
+        top.load(reversed.toString());
+        assertEquals(10, top.getVocabularySize().intValue());
+        assertEquals(all.size() - 10, top.getPrunedCount());
+        assertEquals(unigrams.getCorpusSize().longValue(), top.getCorpusSize() + top.getPrunedMass());
+        for (String word : new String[]{"the", "of", "and", "to"}) {
+            assertTrue(top.containsWord(word), word);
+        }
+        assertEquals(all.get("the"), top.getFrequency("the"));
+
+        //the same on several threads, the chunks being merged within twice the budget
+        CorpusLexiconImpl parallelTop = (CorpusLexiconImpl) new LexiconFactory().createInstance(Lexicon.TYPE.PRIMITIVECORPUSLEXICON);
+        parallelTop.setPruningOptions(budget);
+        parallelTop.load(reversed.toString(), 4);
+        assertEquals(top.getFrequencies(), parallelTop.getFrequencies());
+        assertEquals(all.size() - 10, parallelTop.getPrunedCount());
+        assertEquals(unigrams.getCorpusSize().longValue(), parallelTop.getCorpusSize() + parallelTop.getPrunedMass());
+
+        //bigrams of the budgeted vocabulary only
+        String bigramFile = ClassLoader.getSystemResource("count_2w_excerpt.txt").getFile();
+        CorpusLexicon bigrams = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.NGRAMCORPUSLEXICON);
+        bigrams.load(bigramFile);
+        PruningOptions vocabulary = new PruningOptions();
+        vocabulary.setVocabulary(top);
+        CorpusLexiconImpl kept = (CorpusLexiconImpl) new LexiconFactory().createInstance(Lexicon.TYPE.NGRAMCORPUSLEXICON);
+        kept.setPruningOptions(vocabulary);
+        LoadErrorCollector errors = kept.load(bigramFile, 2);
+        assertEquals(0, errors.getErrorCount());
+        long expected = 0;
+        for (String bigram : bigrams.getFrequencies().keySet()) {
+            String[] words = bigram.split(" ");
+            //the start of a sentence is in any vocabulary
+            boolean inVocabulary = (words[0].equals("<S>") || top.containsWord(words[0])) && top.containsWord(words[1]);
+            assertEquals(inVocabulary, kept.containsWord(bigram), bigram);
+            expected += inVocabulary ? 1 : 0;
+        }
+        assertTrue(expected > 0);
+        assertTrue(kept.containsWord("<S> the"));
+        assertEquals(expected, kept.getVocabularySize().longValue());
+        assertEquals(bigrams.getVocabularySize() - expected, kept.getPrunedCount());
+        assertEquals(bigrams.getCorpusSize().longValue(), kept.getCorpusSize() + kept.getPrunedMass());
+    }
+
+    @Test
+    public void testBigramCorpusLexicon(@TempDir Path tempDir) throws IOException {
+        CorpusLexicon unigrams = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.PRIMITIVECORPUSLEXICON);
+        unigrams.load(ClassLoader.getSystemResource("count_1w_excerpt.txt").getFile());
+        String bigramFile = ClassLoader.getSystemResource("count_2w_excerpt.txt").getFile();
+        CorpusLexicon bigrams = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.NGRAMCORPUSLEXICON);
+        bigrams.load(bigramFile);
+
+        BigramCorpusLexiconImpl idBigrams = new BigramCorpusLexiconImpl(unigrams);
+        idBigrams.load(bigramFile);
+        assertEquals(Lexicon.TYPE.NGRAMCORPUSLEXICON, idBigrams.getType());
+        assertEquals(bigrams.getFrequencies(), idBigrams.getFrequencies());
+        assertEquals(bigrams.getCorpusSize(), idBigrams.getCorpusSize());
+        assertEquals(bigrams.getMinFrequency(), idBigrams.getMinFrequency());
+        assertEquals(bigrams.getMaxFrequency(), idBigrams.getMaxFrequency());
+
+        WordFrequencyTable vocabulary = idBigrams.getVocabulary();
+        for (String bigram : bigrams.getWords()) {
+            assertEquals(bigrams.getFrequency(bigram), idBigrams.getFrequency(bigram));
+            String text = "x" + bigram + "x";
+            assertEquals(bigrams.getFrequency(bigram).longValue(), idBigrams.getFrequency(text, 1, text.length() - 1, -1));
+            int space = bigram.indexOf(' ');
+            int first = idBigrams.getWordId(bigram, 0, space);
+            int second = idBigrams.getWordId(bigram, space + 1, bigram.length());
+            assertEquals(bigrams.getFrequency(bigram).longValue(), idBigrams.getFrequency(first, second, -1));
+            //the words of the bigrams which are not unigrams have a frequency of -1
+            assertEquals(unigrams.getFrequency(bigram.substring(0, space), -1), vocabulary.getFrequency(first));
+        }
+        for (String word : unigrams.getWords()) {
+            assertEquals(unigrams.getFrequency(word).longValue(), vocabulary.getFrequency(word, -2));
+        }
+        assertEquals(-1, idBigrams.getFrequency("sports", -1));
+        assertEquals(-1, idBigrams.getFrequency("sports xqzt", -1));
+        assertEquals(-1, idBigrams.getFrequency(-1, 0, -1));
+        assertEquals(false, idBigrams.containsWord("xqzt sports"));
+
+        //the table of the unigrams is extended rather than copied, and not added to by the words of the bigrams only
+        WordFrequencyTable unigramTable = ((PrimitiveCorpusLexiconImpl) unigrams).getTable();
+        assertEquals(unigramTable.indexOf("sports", 0, 6), vocabulary.indexOf("sports", 0, 6));
+        assertTrue(vocabulary.indexOf("<S>", 0, 3) >= unigramTable.size());
+        assertFalse(unigrams.containsWord("<S>"));
+        assertTrue(vocabulary.size() > unigramTable.size());
+
+        //lines which are not bigrams are reported and skipped, whatever the way the list is loaded
+        Path malformed = tempDir.resolve("malformed.txt");
+        Files.write(malformed, Arrays.asList("sports wear\t3", "sports\t12", "<S> sports\t5"), StandardCharsets.UTF_8);
+        for (int parallelism : new int[]{1, 2}) {
+            BigramCorpusLexiconImpl loaded = new BigramCorpusLexiconImpl(unigrams);
+            LoadErrorCollector errors = new LoadErrorCollector();
+            LexiconReader.readFrequencyList(malformed, loaded, StandardCharsets.UTF_8, parallelism, true, errors);
+            assertEquals(1, errors.getErrorCount());
+            assertEquals(LoadErrorCollector.Kind.WRONG_KEY, errors.getErrors().get(0).getKind());
+            assertEquals(1, errors.getErrors().get(0).getLine());
+            assertEquals("sports", errors.getErrors().get(0).getValue());
+            assertEquals(2, loaded.getVocabularySize().longValue());
+            assertEquals(5, loaded.getFrequency("<S> sports", -1));
+        }
+        BigramCorpusLexiconImpl loaded = new BigramCorpusLexiconImpl(unigrams);
+        loaded.load(malformed.toString());
+        assertEquals(3, loaded.getFrequency("sports wear", -1));
+        assertEquals(-1, loaded.getFrequency("sports", -1));
+    }
+
+    @Test
+    public void testSuccessorIndex(@TempDir Path tempDir) throws IOException {
+        CorpusLexicon unigrams = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.PRIMITIVECORPUSLEXICON);
+        unigrams.load(ClassLoader.getSystemResource("count_1w_excerpt.txt").getFile());
+        Path bigramFile = Paths.get(ClassLoader.getSystemResource("count_2w_excerpt.txt").getFile());
+        CorpusLexicon bigrams = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.NGRAMCORPUSLEXICON);
+        bigrams.load(bigramFile.toString());
+        BigramCorpusLexiconImpl idBigrams = new BigramCorpusLexiconImpl(unigrams);
+        idBigrams.load(bigramFile.toString());
+
+        SuccessorIndex index = idBigrams.getSuccessorIndex();
+        WordFrequencyTable vocabulary = idBigrams.getVocabulary();
+        assertEquals(bigrams.getVocabularySize().intValue(), index.size());
+        int total = 0;
+        for (int previous = 0; previous < vocabulary.size(); previous++) {
+            String word = vocabulary.getWord(previous);
+            int n = index.getNumberOfSuccessors(previous);
+            long last = Long.MAX_VALUE;
+            for (int rank = 0; rank < n; rank++) {
+                String bigram = word + ' ' + vocabulary.getWord(index.getSuccessor(previous, rank));
+                assertEquals(bigrams.getFrequency(bigram).longValue(), index.getSuccessorCount(previous, rank), bigram);
+                assertEquals(index.getSuccessorCount(previous, rank), index.getCount(previous, index.getSuccessor(previous, rank), -1));
+                //from the most frequent down
+                assertTrue(index.getSuccessorCount(previous, rank) <= last, bigram);
+                last = index.getSuccessorCount(previous, rank);
+            }
+            total += n;
+        }
+        assertEquals(index.size(), total);
+
+        //the top 2 successors of the start of a sentence
+        int start = idBigrams.getWordId("<S>", 0, 3);
+        assertTrue(index.getNumberOfSuccessors(start) > 2);
+        List<Long> counts = new ArrayList<>();
+        assertEquals(2, index.forEachSuccessor(start, 2, (successor, count) -> counts.add(count)));
+        assertEquals(Arrays.asList(index.getSuccessorCount(start, 0), index.getSuccessorCount(start, 1)), counts);
+        assertEquals(0, index.forEachSuccessor(-1, 2, (successor, count) -> counts.add(count)));
+        assertEquals(-1, index.getCount(start, -1, -1));
+
+        //loading more bigrams puts them back into a hash table, then indexes them all again
+        Path more = tempDir.resolve("more.txt");
+        Files.write(more, Arrays.asList("<S> xqzt\t7", "sports wear\t1"), StandardCharsets.UTF_8);
+        idBigrams.load(more.toString());
+        assertEquals(index.size() + 1, idBigrams.getSuccessorIndex().size());
+        assertEquals(7, idBigrams.getFrequency("<S> xqzt", -1));
+        assertEquals(1, idBigrams.getFrequency("sports wear", -1));
+        assertEquals(index.size() + 1, idBigrams.getFrequencies().size());
+    }
+
+
+    @Test
+    public void testLogProbabilityTable() {
+        WordFrequencyTable table = new WordFrequencyTable();
+        table.putFrequency("the", 23135851162L);
+        table.putFrequency("of", 13151942776L);
+        table.putFrequency("sportswear", 4125637);
+        table.putFrequency("zykadia", 12);
+        table.putFrequency("nought", 0);
+        table.putFrequency("bigramonly", -1);
+        LogProbabilityTable logProbabilities = new LogProbabilityTable(table, 1024908267229L);
+        assertEquals(table.size(), logProbabilities.size());
+        //16 bits over about 21 units of log-probability
+        assertTrue(logProbabilities.getMaxError() < 2e-4);
+        for (int entry = 0; entry < 4; entry++) {
+            double exact = Math.log(table.getFrequency(entry)) - Math.log(1024908267229L);
+            assertEquals(exact, logProbabilities.getLogProbability(entry, 0.0), logProbabilities.getMaxError() + 1e-12, table.getWord(entry));
+        }
+        //both ends are exact
+        assertEquals(Math.log(12) - Math.log(1024908267229L), logProbabilities.getLogProbability(3, 0.0), 1e-12);
+        assertEquals(Double.NEGATIVE_INFINITY, logProbabilities.getLogProbability(4, 0.0));
+        assertEquals(-42.0, logProbabilities.getLogProbability(5, -42.0));
+
+        PrimitiveCorpusLexiconImpl lexicon = (PrimitiveCorpusLexiconImpl) new LexiconFactory().createInstance(Lexicon.TYPE.PRIMITIVECORPUSLEXICON);
+        lexicon.setPrecomputeLogProbabilities(true);
+        lexicon.load(ClassLoader.getSystemResource("count_1w_excerpt.txt").getFile());
+        LogProbabilityTable precomputed = lexicon.getLogProbabilities();
+        assertEquals(lexicon.getCorpusSize().longValue(), precomputed.getNumberOfTokens());
+        double logCorpusSize = Math.log(lexicon.getCorpusSize());
+        for (Map.Entry<String, Long> entry : lexicon.getFrequencies().entrySet()) {
+            String text = "x" + entry.getKey() + "x";
+            assertEquals(Math.log(entry.getValue()) - logCorpusSize, lexicon.getLogProbability(text, 1, text.length() - 1, 0.0),
+                    precomputed.getMaxError() + 1e-12, entry.getKey());
+        }
+        assertEquals(1.0, lexicon.getLogProbability("xqzt", 0, 4, 1.0));
+    }
+
+    @Test
+    public void testBloomFilter() {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            words.add("word" + i);
+        }
+        BloomFilter filter = BloomFilter.of(words, 0.01);
+        for (String word : words) {
+            assertTrue(filter.mightContain("<" + word + ">", 1, word.length() + 1), word);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (filter.mightContain("other" + i, 0, ("other" + i).length())) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 1000, "false positives: " + falsePositives);
+        assertEquals(words.size() + falsePositives, filter.getHits());
+        assertEquals(100000 - falsePositives, filter.getMisses());
+        filter.resetCounters();
+        assertEquals(0, filter.getHits() + filter.getMisses());
+
+        //same lookups with the filter in front, most misses rejected by it
+        String unigramFile = ClassLoader.getSystemResource("count_1w_excerpt.txt").getFile();
+        for (Lexicon.TYPE type : new Lexicon.TYPE[]{Lexicon.TYPE.CORPUSLEXICON, Lexicon.TYPE.PRIMITIVECORPUSLEXICON}) {
+            CorpusLexiconImpl lexicon = (CorpusLexiconImpl) new LexiconFactory().createInstance(type);
+            lexicon.load(unigramFile);
+            CorpusLexiconImpl filtered = (CorpusLexiconImpl) new LexiconFactory().createInstance(type);
+            filtered.setBloomFilterFalsePositiveRate(0.01);
+            filtered.load(unigramFile);
+            assertEquals(0.01, filtered.getBloomFilter().getFalsePositiveRate());
+            for (String word : lexicon.getWords()) {
+                assertTrue(filtered.containsWord(word), word);
+                assertEquals(lexicon.getFrequency(word), filtered.getFrequency(word), word);
+            }
+            filtered.getBloomFilter().resetCounters();
+            String text = "sportswearxqztchoosespain";
+            int known = 0;
+            for (int start = 0; start < text.length(); start++) {
+                for (int end = start + 1; end <= text.length(); end++) {
+                    assertEquals(lexicon.containsWord(text, start, end), filtered.containsWord(text, start, end));
+                    assertEquals(lexicon.getFrequency(text, start, end, -1), filtered.getFrequency(text, start, end, -1));
+                    known += lexicon.containsWord(text, start, end) ? 1 : 0;
+                }
+            }
+            //two lookups a region, only the words (and the odd false positive) let through
+            BloomFilter front = filtered.getBloomFilter();
+            assertTrue(front.getHits() - 2 * known <= 10, front.getHits() + " hits, " + known + " words");
+            assertEquals(text.length() * (text.length() + 1), front.getHits() + front.getMisses());
+            assertFalse(filtered.containsWord("xqzt"));
+            assertEquals(lexicon.getMinFrequency(), filtered.getFrequency("xqzt"));
+            filtered.setBloomFilterFalsePositiveRate(0);
+            assertEquals(null, filtered.getBloomFilter());
+        }
+    }
+
+    @Test
+    public void testPerfectHashCorpusLexicon() {
+        Map<String, Long> frequencies = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            frequencies.put("word" + i, (long) i);
+        }
+        PerfectHashTable table = new PerfectHashTable(frequencies);
+        assertEquals(frequencies.size(), table.size());
+        for (Map.Entry<String, Long> entry : frequencies.entrySet()) {
+            String text = "<" + entry.getKey() + ">";
+            assertEquals(entry.getValue().longValue(), table.getFrequency(text, 1, text.length() - 1, -1), entry.getKey());
+        }
+        //a slot for each word
+        boolean[] slots = new boolean[table.size()];
+        for (String word : frequencies.keySet()) {
+            int slot = table.indexOf(word, 0, word.length());
+            assertFalse(slots[slot], word);
+            slots[slot] = true;
+        }
+        //about 1 in 65536 other words taken for one of the table
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            falsePositives += table.indexOf("other" + i, 0, ("other" + i).length()) >= 0 ? 1 : 0;
+        }
+        assertTrue(falsePositives <= 10, "false positives: " + falsePositives);
+        assertTrue(table.getBitsPerWord() < 4, table.getBitsPerWord() + " bits a word");
+        assertTrue(table.getSizeInBytes() < 11L * table.size());
+        assertEquals(-1, new PerfectHashTable(new HashMap<>()).indexOf("word", 0, 4));
+
+        String unigramFile = ClassLoader.getSystemResource("count_1w_excerpt.txt").getFile();
+        CorpusLexicon lexicon = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.CORPUSLEXICON);
+        lexicon.load(unigramFile);
+        CorpusLexicon perfectHash = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.PERFECTHASHCORPUSLEXICON);
+        perfectHash.load(unigramFile);
+        assertSameLexicon(lexicon, perfectHash);
+        //the words are not kept, only their fingerprints
+        assertTrue(perfectHash.getWords().isEmpty());
+
+        CorpusLexicon bigrams = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.NGRAMCORPUSLEXICON);
+        bigrams.load(ClassLoader.getSystemResource("count_2w_excerpt.txt").getFile());
+        assertSameLexicon(bigrams, new PerfectHashCorpusLexiconImpl(bigrams));
+    }
+
+    /**
+     * The automaton finds the same words and frequencies as the lexicon it is built from, walks the same prefixes as a
+     * trie, and is mapped back as saved.
+     *
+     * @param directory A temporary directory
+     * @throws IOException If the automaton cannot be saved
+     */
+    @Test
+    public void testDawgCorpusLexicon(@TempDir Path directory) throws IOException {
+        Map<String, Long> frequencies = new HashMap<>();
+        List<String> words = Arrays.asList("sport", "sports", "sportswear", "swear", "wear", "wears", "ear", "a", "tap", "taps", "top", "tops");
+        for (int i = 0; i < words.size(); i++) {
+            frequencies.put(words.get(i), (long) i + 1);
+        }
+        Dawg dawg = new Dawg(frequencies);
+        assertEquals(words.size(), dawg.size());
+        for (String word : words) {
+            String text = "<" + word + ">";
+            assertEquals(frequencies.get(word).longValue(), dawg.getFrequency(text, 1, text.length() - 1, -1), word);
+        }
+        for (String other : new String[]{"", "spo", "sportsw", "wearss", "tip", "taps "}) {
+            assertEquals(-1, dawg.indexOf(other, 0, other.length()), other);
+        }
+        //ranks in the order of the words
+        List<String> sorted = new ArrayList<>(words);
+        Collections.sort(sorted);
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(i, dawg.indexOf(sorted.get(i), 0, sorted.get(i).length()));
+        }
+        //-s, -ap/-op and -ear suffixes are shared
+        assertTrue(dawg.getNumberOfStates() < new CharTrie(words).size());
+        List<String> completions = new ArrayList<>();
+        assertEquals(3, dawg.forEachCompletion("sport", 10, (word, frequency) -> completions.add(word + ":" + frequency)));
+        assertEquals(Arrays.asList("sport:1", "sports:2", "sportswear:3"), completions);
+        completions.clear();
+        assertEquals(2, dawg.forEachCompletion("t", 2, (word, frequency) -> completions.add(word)));
+        assertEquals(Arrays.asList("tap", "taps"), completions);
+        assertEquals(0, dawg.forEachCompletion("x", 10, (word, frequency) -> completions.add(word)));
+
+        String unigramFile = ClassLoader.getSystemResource("count_1w_excerpt.txt").getFile();
+        CorpusLexicon lexicon = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.CORPUSLEXICON);
+        lexicon.load(unigramFile);
+        DawgCorpusLexiconImpl built = (DawgCorpusLexiconImpl) new LexiconFactory().createInstance(Lexicon.TYPE.DAWGCORPUSLEXICON);
+        built.load(unigramFile);
+        Path saved = directory.resolve("count_1w.dawg");
+        built.save(saved);
+        CorpusLexicon mapped = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.DAWGCORPUSLEXICON);
+        LexiconReader.loadLexicon(saved.toString(), mapped);
+        assertTrue(((Dawg) mapped.getBackBone()).isMapped());
+        CharTrie trie = new CharTrie(lexicon.getWords());
+        for (CorpusLexicon dawgLexicon : new CorpusLexicon[]{built, mapped}) {
+            assertSameLexicon(lexicon, dawgLexicon);
+            assertEquals(lexicon.getFrequencies(), dawgLexicon.getFrequencies());
+            //the same words start at each offset as in the trie
+            String text = "choosespainthisisatestsportswearexpertsexchange";
+            for (int start = 0; start < text.length(); start++) {
+                List<Integer> expected = new ArrayList<>();
+                trie.forEachPrefix(text, start, text.length(), expected::add);
+                List<Integer> ends = new ArrayList<>();
+                ((DawgCorpusLexiconImpl) dawgLexicon).forEachPrefix(text, start, text.length(), ends::add);
+                assertEquals(expected, ends, text.substring(start));
+            }
+        }
+        //several times smaller than a HashMap entry (>= 100 bytes) a word
+        Dawg unigrams = (Dawg) built.getBackBone();
+        assertTrue(unigrams.getSizeInBytes() < 30L * unigrams.size(), unigrams.getSizeInBytes() + " bytes");
+        assertEquals(Files.size(saved), unigrams.getSizeInBytes());
+
+        CorpusLexicon bigrams = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.NGRAMCORPUSLEXICON);
+        bigrams.load(ClassLoader.getSystemResource("count_2w_excerpt.txt").getFile());
+        assertSameLexicon(bigrams, new DawgCorpusLexiconImpl(bigrams));
+    }
+
+    /**
+     * Asserts that a lexicon answers exactly as the one it was built (or compiled, or mapped) from: the same stats, and
+     * the same frequency and log-likelihood of every word, looked up whole or as a region of a longer string, and of a
+     * word of neither.
+     *
+     * @param expected The lexicon read from the frequency list
+     * @param actual The lexicon of another backend
+     */
+    private static void assertSameLexicon(CorpusLexicon expected, CorpusLexicon actual) {
+        assertEquals(expected.getVocabularySize(), actual.getVocabularySize());
+        assertEquals(expected.getCorpusSize(), actual.getCorpusSize());
+        assertEquals(expected.getMinFrequency(), actual.getMinFrequency());
+        assertEquals(expected.getMaxFrequency(), actual.getMaxFrequency());
+        for (String word : expected.getWords()) {
+            assertTrue(actual.containsWord(word), word);
+            assertEquals(expected.getFrequency(word), actual.getFrequency(word), word);
+            assertEquals(expected.getLogLikelihood(word), actual.getLogLikelihood(word), word);
+            String text = "x" + word + "x";
+            assertEquals(expected.getFrequency(word).longValue(), actual.getFrequency(text, 1, text.length() - 1, -1), word);
+        }
+        assertFalse(actual.containsWord("xqzt"));
+        assertEquals(expected.getFrequency("xqzt"), actual.getFrequency("xqzt"));
+        assertEquals(-1L, actual.getFrequency("xqzt", -1));
+    }
+}
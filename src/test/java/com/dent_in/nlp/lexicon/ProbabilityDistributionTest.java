@@ -183,4 +183,67 @@ public class ProbabilityDistributionTest {
         assertEquals(674645.029, pTrigram, delta);
     }
 
+    /**
+     * Log-probabilities are sums of precomputed logs, equal to the log of the probabilities but without underflowing.
+     *
+     * @throws URISyntaxException If any of the resources are not found
+     */
+    @Test
+    public void computeLogProbabilitiesOfWords() throws URISyntaxException {
+        //Setup
+        URI uri = ClassLoader.getSystemResource("count_1w_excerpt.txt").toURI();
+        String unigramDataFileName = Paths.get(uri).toString();
+        uri = ClassLoader.getSystemResource("count_2w_excerpt.txt").toURI();
+        String bigramDataFileName = Paths.get(uri).toString();
+        ProbabilityDistribution pDistribution = new ProbabilityDistribution(unigramDataFileName, bigramDataFileName, 1024908267229L);
+        double delta = 1e-9;
+
+        //Tests
+        String[] words = {"sports", "wear", "xqzt"};
+        assertEquals(Math.log(pDistribution.getProbability(words)), pDistribution.getLogProbability(words), delta);
+        assertEquals(Math.log(pDistribution.getProbability2(words)), pDistribution.getLogProbability2(words), delta);
+        assertEquals(Math.log(pDistribution.getConditionalProbability("wear", "sports")), pDistribution.getLogConditionalProbability("wear", "sports"), delta);
+        assertEquals(Math.log(pDistribution.getProbabilityOfUnknownWord("xqzt", true)), pDistribution.getLogProbabilityOfUnknownWord("xqzt", true), delta);
+        assertEquals(Math.log(pDistribution.getProbabilityOfUnknownWord("xqzt", false)), pDistribution.getLogProbabilityOfUnknownWord("xqzt", false), delta);
+
+        //an unknown word of 400 letters
+        StringBuilder longWord = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            longWord.append("xqzt");
+        }
+        assertEquals(0.0, pDistribution.getProbabilityOfUnknownWord(longWord.toString(), true));
+        assertEquals(-399 * Math.log(10) - Math.log(1024908267229L), pDistribution.getLogProbabilityOfUnknownWord(longWord.toString(), true), delta);
+    }
+
+    /**
+     * Scores of words given by their ids are the very same as those of the words themselves.
+     *
+     * @throws URISyntaxException If any of the resources are not found
+     */
+    @Test
+    public void computeLogProbabilitiesOfWordIds() throws URISyntaxException {
+        //Setup
+        URI uri = ClassLoader.getSystemResource("count_1w_excerpt.txt").toURI();
+        String unigramDataFileName = Paths.get(uri).toString();
+        uri = ClassLoader.getSystemResource("count_2w_excerpt.txt").toURI();
+        String bigramDataFileName = Paths.get(uri).toString();
+        ProbabilityDistribution pDistribution = new ProbabilityDistribution(unigramDataFileName, bigramDataFileName, 1024908267229L);
+
+        //Tests
+        String[][] sequences = {{"sports", "wear"}, {"sit", "down", "on", "the"}, {"xqzt", "the", "xqztxqzt"}, {}};
+        for (String[] words : sequences) {
+            int[] ids = pDistribution.getWordIds(words);
+            assertEquals(pDistribution.getLogProbability(words), pDistribution.getLogProbability(ids));
+            assertEquals(pDistribution.getLogProbability2(words), pDistribution.getLogProbability2(ids));
+            for (int i = 0; i < words.length; i++) {
+                assertEquals(pDistribution.getLogProbability(words[i]), pDistribution.getLogProbability(ids[i]));
+                assertEquals(pDistribution.getLogConditionalProbability(words[i], i == 0 ? "<S>" : words[i - 1]),
+                        pDistribution.getLogConditionalProbability(ids[i], i == 0 ? pDistribution.getStartWordId() : ids[i - 1]));
+            }
+        }
+        //unknown words are given ~length
+        assertEquals(~4, pDistribution.getWordId("xqzt", 0, 4));
+        assertEquals(pDistribution.getWordId("sports", 0, 6), pDistribution.getWordId("sportswear", 0, 6));
+    }
+
 }
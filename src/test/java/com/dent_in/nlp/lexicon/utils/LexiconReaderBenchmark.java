@@ -0,0 +1,85 @@
+package com.dent_in.nlp.lexicon.utils;
+
+import com.dent_in.nlp.lexicon.Lexicon;
+import com.dent_in.nlp.lexicon.LexiconFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Load throughput (MB/s) of a frequency list with the regex-based parsing, the byte-level parser and the byte-level
+ * parser on all cores. Not a unit test, run it by hand:
+ *
+ * java -cp target/classes:target/test-classes com.dent_in.nlp.lexicon.utils.LexiconReaderBenchmark [sizeInMB] [file]
+ *
+ * where the file defaults to a synthetic word frequency list (Zipf-like counts) written to a temporary file.
+ */
+public class LexiconReaderBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int sizeInMB = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        Path path = args.length > 1 ? Paths.get(args[1]) : writeFrequencyList(sizeInMB);
+        double megabytes = Files.size(path) / (1024.0 * 1024.0);
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%s: %.1f MB, %d cores%n", path, megabytes, cores);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            //the first rounds are warm-up
+            long start = System.nanoTime();
+            Map<String, Long> frequencies = new HashMap<>();
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                LoadErrorCollector errors = new LoadErrorCollector();
+                FrequencyListParser parser = new FrequencyListParser(false, StandardCharsets.UTF_8, frequencies, errors,
+                        new FrequencyStatistics());
+                LexiconReader.readWithPattern(reader, parser, false, errors);
+            }
+            report("regex", round, megabytes, start, frequencies.size());
+
+            start = System.nanoTime();
+            Lexicon lexicon = new LexiconFactory().createInstance(Lexicon.TYPE.CORPUSLEXICON);
+            LexiconReader.readFrequencyList(path, lexicon, StandardCharsets.UTF_8, 1, false, new LoadErrorCollector());
+            report("bytes", round, megabytes, start, lexicon.getVocabularySize());
+
+            start = System.nanoTime();
+            lexicon = new LexiconFactory().createInstance(Lexicon.TYPE.CORPUSLEXICON);
+            LexiconReader.readFrequencyList(path, lexicon, StandardCharsets.UTF_8, cores, false, new LoadErrorCollector());
+            report("bytes x" + cores, round, megabytes, start, lexicon.getVocabularySize());
+        }
+    }
+
+    private static void report(String parser, int round, double megabytes, long start, long words) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("round %d %-10s %8.1f MB/s (%d words in %.2f s)%n", round, parser, megabytes / seconds, words, seconds);
+    }
+
+    private static Path writeFrequencyList(int sizeInMB) throws IOException {
+        Path path = Files.createTempFile("frequencies", ".txt");
+        path.toFile().deleteOnExit();
+        Random random = new Random(42);
+        long size = (long) sizeInMB << 20;
+        long written = 0;
+        char[] word = new char[16];
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (int i = 0; written < size; i++) {
+                int length = 3 + random.nextInt(10);
+                for (int k = 0; k < length; k++) {
+                    word[k] = (char) ('a' + random.nextInt(26));
+                }
+                String line = new String(word, 0, length) + '\t' + (1000000000L / (i + 1) + 1) + '\n';
+                writer.write(line);
+                written += line.length();
+            }
+        }
+        return path;
+    }
+}
@@ -1,15 +1,31 @@
 package com.dent_in.nlp.words.segmenter;
 
+import com.dent_in.nlp.lexicon.CorpusLexicon;
+import com.dent_in.nlp.lexicon.Lexicon;
+import com.dent_in.nlp.lexicon.LexiconFactory;
+import com.dent_in.nlp.lexicon.impl.SketchCorpusLexiconImpl;
+import com.dent_in.nlp.lexicon.pdist.LanguageModel;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 //import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 public class SegmenterTest {
@@ -240,4 +256,290 @@ public class SegmenterTest {
         logger.info("TIME ELAPSED SEGMENTING: " + (System.currentTimeMillis() - currentTime) + " ms.");
 
     }
+
+    /**
+     * The dynamic-programming segmenter must find the same best segmentation as the exhaustive recursion.
+     * Runs on an excerpt of the Google n-gram counts (see test resources).
+     *
+     * @throws URISyntaxException If any of the resources are not found
+     */
+    @Test
+    public void viterbiSegmentTerms() throws URISyntaxException {
+        URI uri = ClassLoader.getSystemResource("count_1w_excerpt.txt").toURI();
+        String unigramDataFileName = Paths.get(uri).toString();
+        uri = ClassLoader.getSystemResource("count_2w_excerpt.txt").toURI();
+        String bigramDataFileName = Paths.get(uri).toString();
+        String totalNumberOfTokens = "1024908267229";
+        Splitter splitter = new SegmenterFactory().createSplitter(Splitter.type.EXHAUSTIVE, null);
+        SegmentationScorer scorer = new SegmenterFactory().createSegmentationScorer(unigramDataFileName, bigramDataFileName, totalNumberOfTokens, SegmentationScorer.type.BAYES_UNIGRAM);
+        Segmenter norvig = new SegmenterFactory().createSegmenter(Segmenter.type.NORVIG, splitter, scorer);
+        Segmenter viterbi = new SegmenterFactory().createSegmenter(Segmenter.type.VITERBI, splitter, scorer);
+        SegmentationScorer scorer2 = new SegmenterFactory().createSegmentationScorer(unigramDataFileName, bigramDataFileName, totalNumberOfTokens, SegmentationScorer.type.BAYES_BIGRAM);
+        Segmenter norvig2 = new SegmenterFactory().createSegmenter(Segmenter.type.NORVIG, splitter, scorer2);
+        Segmenter viterbi2 = new SegmenterFactory().createSegmenter(Segmenter.type.VITERBI, splitter, scorer2);
+
+        String[] terms = {"choosespain", "thisisatest", "expertsexchange", "speedofart", "tositdownon", "smallunregardedsun",
+                "sportswear", "peakview", "roadpacer", "transworld", "firedog", "eversoft", "zykadia", "bolobulu", "nebusal"};
+        for (String term : terms) {
+            Segmentation expected = norvig.getBestSegmentation(term);
+            Segmentation segmentation = viterbi.getBestSegmentation(term);
+            assertEquals(expected.getLogProbability(), segmentation.getLogProbability(), 1e-9, term);
+            assertEquals(toString(expected), toString(segmentation), term);
+            //bigram model, exact thanks to the previous word being part of the state
+            expected = norvig2.getBestSegmentation(term);
+            segmentation = viterbi2.getBestSegmentation(term);
+            assertEquals(expected.getLogProbability(), segmentation.getLogProbability(), 1e-9, term);
+            assertEquals(toString(expected), toString(segmentation), term);
+        }
+
+        String term = "thisisatest"; //this is a test
+        Segmentation segmentation = viterbi.getBestSegmentation(term);
+        assertEquals(4, segmentation.getParts().size());
+        assertEquals("test", segmentation.getParts().get(3).getContent().getToken());
+        assertEquals(7, segmentation.getParts().get(3).getContent().getStartOffset());
+        //only boundaries are kept, parts are created lazily
+        assertTrue(segmentation instanceof CompactSegmentation);
+        assertArrayEquals(new int[]{4, 6, 7}, ((CompactSegmentation) segmentation).getBoundaries());
+        assertEquals("is", ((CompactSegmentation) segmentation).getWord(1));
+        CompactSegmentation empty = new CompactSegmentation("", new int[0], 0.0);
+        empty.setParts(new ArrayList<>());
+        assertEquals(0, empty.getBoundaries().length);
+        assertTrue(empty.getParts().isEmpty());
+
+        term = "tositdownon"; //bigram: to sit down on
+        segmentation = viterbi2.getBestSegmentation(term);
+        assertEquals(4, segmentation.getParts().size());
+        assertEquals("sit", segmentation.getParts().get(1).getContent().getToken());
+
+        //long terms do not underflow in log space, the product of probabilities would be 0.0
+        StringBuilder longTerm = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            longTerm.append("thisisatest");
+        }
+        segmentation = viterbi2.getBestSegmentation(longTerm.toString());
+        assertEquals(400, segmentation.getParts().size());
+        assertEquals(0.0, segmentation.getProbability());
+        assertTrue(segmentation.getLogProbability() > Double.NEGATIVE_INFINITY);
+
+        //single letters cannot be split, as in the recursion
+        assertEquals(null, viterbi.getBestSegmentation("a").getParts());
+    }
+
+    /**
+     * The k best segmentations extracted lazily from the lattice must be the top k of all candidates of the recursion.
+     *
+     * @throws URISyntaxException If any of the resources are not found
+     */
+    @Test
+    public void kBestSegmentTerms() throws URISyntaxException {
+        URI uri = ClassLoader.getSystemResource("count_1w_excerpt.txt").toURI();
+        String unigramDataFileName = Paths.get(uri).toString();
+        uri = ClassLoader.getSystemResource("count_2w_excerpt.txt").toURI();
+        String bigramDataFileName = Paths.get(uri).toString();
+        String totalNumberOfTokens = "1024908267229";
+        Splitter splitter = new SegmenterFactory().createSplitter(Splitter.type.EXHAUSTIVE, null);
+
+        for (SegmentationScorer.type type : new SegmentationScorer.type[]{SegmentationScorer.type.BAYES_UNIGRAM, SegmentationScorer.type.BAYES_BIGRAM}) {
+            SegmentationScorer scorer = new SegmenterFactory().createSegmentationScorer(unigramDataFileName, bigramDataFileName, totalNumberOfTokens, type);
+            Segmenter norvig = new SegmenterFactory().createSegmenter(Segmenter.type.NORVIG, splitter, scorer);
+            Segmenter viterbi = new SegmenterFactory().createSegmenter(Segmenter.type.VITERBI, splitter, scorer);
+
+            for (String term : new String[]{"sportswear", "peakview", "speedofart", "nebusal"}) {
+                List<Segmentation> expected = norvig.getBestSegmentations(term, 5);
+                List<Segmentation> segmentations = viterbi.getBestSegmentations(term, 5);
+                assertEquals(5, segmentations.size());
+                for (int i = 0; i < 5; i++) {
+                    assertEquals(expected.get(i).getLogProbability(), segmentations.get(i).getLogProbability(), 1e-9, term);
+                }
+                assertEquals(toString(viterbi.getBestSegmentation(term)), toString(segmentations.get(0)));
+            }
+
+            //the iterator runs through the whole candidate space
+            Iterator<Segmentation> segmentations = viterbi.getSegmentations("peakview");
+            int count = 0;
+            double previous = Double.POSITIVE_INFINITY;
+            while (segmentations.hasNext()) {
+                double logProbability = segmentations.next().getLogProbability();
+                assertTrue(logProbability <= previous + 1e-9);
+                previous = logProbability;
+                count++;
+            }
+            assertEquals(norvig.segment("peakview", 0).size(), count);
+        }
+    }
+
+    /**
+     * Batch segmentation on a fork-join pool must return the same segmentations as one term at a time, in input order.
+     *
+     * @throws URISyntaxException If any of the resources are not found
+     * @throws IOException If the trademark data cannot be read
+     */
+    @Test
+    public void segmentAllTerms() throws URISyntaxException, IOException {
+        URI uri = ClassLoader.getSystemResource("count_1w_excerpt.txt").toURI();
+        String unigramDataFileName = Paths.get(uri).toString();
+        uri = ClassLoader.getSystemResource("count_2w_excerpt.txt").toURI();
+        String bigramDataFileName = Paths.get(uri).toString();
+        String totalNumberOfTokens = "1024908267229";
+        CorpusLexicon lexicon = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.CORPUSLEXICON);
+        lexicon.load(unigramDataFileName);
+        Splitter splitter = new SegmenterFactory().createSplitter(Splitter.type.BOUNDARY_OVERLAP, lexicon);
+        SegmentationScorer scorer = new SegmenterFactory().createSegmentationScorer(unigramDataFileName, bigramDataFileName, totalNumberOfTokens, SegmentationScorer.type.BAYES_BIGRAM);
+        Segmenter segmenter = new SegmenterFactory().createSegmenter(Segmenter.type.VITERBI, splitter, scorer);
+
+        //trademarks glued into single terms, as they come in the nightly batches
+        List<String> terms = loadTrademarkTerms();
+
+        long currentTime = System.currentTimeMillis();
+        List<Segmentation> expected = new ArrayList<>();
+        for (String term : terms) {
+            expected.add(segmenter.getBestSegmentation(term));
+        }
+        logger.info("TIME ELAPSED SEGMENTING " + terms.size() + " TERMS ONE AT A TIME: " + (System.currentTimeMillis() - currentTime) + " ms.");
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            currentTime = System.currentTimeMillis();
+            List<Segmentation> segmentations = segmenter.segmentAll(terms, pool);
+            logger.info("TIME ELAPSED SEGMENTING " + terms.size() + " TERMS IN PARALLEL: " + (System.currentTimeMillis() - currentTime) + " ms.");
+            assertEquals(terms.size(), segmentations.size());
+            for (int i = 0; i < terms.size(); i++) {
+                assertEquals(toString(expected.get(i)), toString(segmentations.get(i)), terms.get(i));
+                assertEquals(expected.get(i).getLogProbability(), segmentations.get(i).getLogProbability(), 1e-9, terms.get(i));
+            }
+
+            Segmentation[] array = segmenter.segmentAll(terms.subList(0, 3).toArray(new String[0]), pool);
+            assertEquals(3, array.length);
+            assertEquals(toString(expected.get(2)), toString(array[2]));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Evaluation of bigram counts approximated by count-min sketches of a few sizes against the exact counts: the
+     * accuracy of the best segmentations of the usual test terms, how often the segmentations of the trademarks (glued
+     * into single terms) agree with those of the exact counts, and the memory taken by the bigram counts.
+     *
+     * @throws URISyntaxException If any of the resources are not found
+     * @throws IOException If the trademarks cannot be read
+     */
+    @Test
+    public void evaluateCountMinSketchBigrams() throws URISyntaxException, IOException {
+        URI uri = ClassLoader.getSystemResource("count_1w_excerpt.txt").toURI();
+        String unigramDataFileName = Paths.get(uri).toString();
+        uri = ClassLoader.getSystemResource("count_2w_excerpt.txt").toURI();
+        String bigramDataFileName = Paths.get(uri).toString();
+        CorpusLexicon unigrams = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.PRIMITIVECORPUSLEXICON);
+        unigrams.load(unigramDataFileName);
+        Splitter splitter = new SegmenterFactory().createSplitter(Splitter.type.BOUNDARY_OVERLAP, unigrams);
+
+        List<String> expected = Arrays.asList("choose spain", "this is a test", "experts exchange", "speed of art",
+                "to sit down on", "sports wear", "peak view", "road pacer", "trans world", "fire dog", "ever soft");
+        List<String> terms = new ArrayList<>();
+        for (String words : expected) {
+            terms.add(words.replace(" ", ""));
+        }
+        List<String> trademarks = loadTrademarkTerms();
+
+        CorpusLexicon exact = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.NGRAMCORPUSLEXICON);
+        exact.load(bigramDataFileName);
+        Segmenter exactSegmenter = createBigramSegmenter(new LanguageModel(unigrams, exact, 1024908267229L), splitter);
+        List<String> exactSegmentations = segmentAll(exactSegmenter, trademarks);
+        double exactAccuracy = agreement(segmentAll(exactSegmenter, terms), expected);
+        logger.info(String.format("EXACT BIGRAMS: %d bigrams in about %d bytes, accuracy %.3f",
+                exact.getVocabularySize(), estimateHashMapBytes(exact.getFrequencies()), exactAccuracy));
+        assertEquals(1.0, exactAccuracy);
+
+        long[] budgets = {256, 2048, 16384};
+        double[] accuracies = new double[budgets.length];
+        double[] agreements = new double[budgets.length];
+        for (int i = 0; i < budgets.length; i++) {
+            SketchCorpusLexiconImpl sketch = new SketchCorpusLexiconImpl(budgets[i]);
+            sketch.load(bigramDataFileName);
+            assertEquals(exact.getCorpusSize(), sketch.getCorpusSize());
+            assertEquals(budgets[i], sketch.getSketch().getSizeInBytes());
+            //never below the exact counts
+            for (String bigram : exact.getWords()) {
+                assertTrue(sketch.getFrequency(bigram, -1) >= exact.getFrequency(bigram, -1), bigram);
+            }
+            Segmenter segmenter = createBigramSegmenter(new LanguageModel(unigrams, sketch, 1024908267229L), splitter);
+            accuracies[i] = agreement(segmentAll(segmenter, terms), expected);
+            agreements[i] = agreement(segmentAll(segmenter, trademarks), exactSegmentations);
+            logger.info(String.format("COUNT-MIN SKETCH OF %d BYTES (%dx%d): error bound %.0f, accuracy %.3f, agreement with exact %.3f",
+                    budgets[i], sketch.getSketch().getDepth(), sketch.getSketch().getWidth(), sketch.getSketch().getErrorBound(),
+                    accuracies[i], agreements[i]));
+        }
+        //close to the exact counts once the sketch has several times more counters than there are bigrams, the odd
+        //difference coming from unseen bigrams taken for known ones
+        assertEquals(exactAccuracy, accuracies[2]);
+        assertTrue(agreements[2] >= 0.95, "agreement " + agreements[2]);
+
+        //unlike the exact lexicons, which keep the last frequency of an n-gram, the sketch sums them
+        SketchCorpusLexiconImpl twice = new SketchCorpusLexiconImpl(budgets[2]);
+        twice.load(bigramDataFileName);
+        twice.load(bigramDataFileName);
+        assertEquals(2 * exact.getCorpusSize(), twice.getCorpusSize().longValue());
+        assertTrue(twice.getFrequency("sports wear", -1) >= 2 * exact.getFrequency("sports wear", -1));
+    }
+
+    /**
+     * Reads the trademarks of the test data glued into single lower case terms, as they come in the nightly batches.
+     *
+     * @return The terms of more than one letter, in file order
+     * @throws URISyntaxException If the trademark data is not found
+     * @throws IOException If the trademark data cannot be read
+     */
+    static List<String> loadTrademarkTerms() throws URISyntaxException, IOException {
+        List<String> terms = new ArrayList<>();
+        URI uri = ClassLoader.getSystemResource("TrademarkDataTest.txt").toURI();
+        for (String line : Files.readAllLines(Paths.get(uri), StandardCharsets.UTF_8)) {
+            String term = line.toLowerCase().replaceAll("[^a-z]", "");
+            if (term.length() > 1) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    private static Segmenter createBigramSegmenter(LanguageModel languageModel, Splitter splitter) {
+        SegmentationScorer scorer = new SegmenterFactory().createSegmentationScorer(languageModel, SegmentationScorer.type.BAYES_BIGRAM);
+        return new SegmenterFactory().createSegmenter(Segmenter.type.VITERBI, splitter, scorer);
+    }
+
+    private static List<String> segmentAll(Segmenter segmenter, List<String> terms) {
+        List<String> result = new ArrayList<>();
+        for (String term : terms) {
+            result.add(toString(segmenter.getBestSegmentation(term)));
+        }
+        return result;
+    }
+
+    private static double agreement(List<String> segmentations, List<String> expected) {
+        int same = 0;
+        for (int i = 0; i < segmentations.size(); i++) {
+            same += segmentations.get(i).equals(expected.get(i)) ? 1 : 0;
+        }
+        return (double) same / segmentations.size();
+    }
+
+    /**
+     * Estimates the memory taken by a HashMap of frequencies on a 64-bit JVM with compressed pointers: a 32-byte node,
+     * a 24-byte String with its array of Latin-1 chars and a 16-byte Long per entry, plus a table at most 3/4 full.
+     */
+    private static long estimateHashMapBytes(Map<String, Long> frequencies) {
+        long bytes = 16 + 4L * Integer.highestOneBit(Math.max(1, frequencies.size() * 4 / 3) * 2);
+        for (String key : frequencies.keySet()) {
+            bytes += 32 + 24 + ((16 + key.length() + 7) / 8) * 8 + 16;
+        }
+        return bytes;
+    }
+
+    private static String toString(Segmentation segmentation) {
+        StringBuilder result = new StringBuilder();
+        for (AnnotatedTerm annotatedTerm : segmentation.getParts()) {
+            result.append(annotatedTerm.getContent().getToken()).append(' ');
+        }
+        return result.toString().trim();
+    }
 }
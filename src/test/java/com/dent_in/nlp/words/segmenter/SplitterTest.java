@@ -0,0 +1,256 @@
+package com.dent_in.nlp.words.segmenter;
+
+import com.dent_in.nlp.lexicon.CorpusLexicon;
+import com.dent_in.nlp.lexicon.Lexicon;
+import com.dent_in.nlp.lexicon.LexiconFactory;
+import com.dent_in.nlp.lexicon.index.AhoCorasickAutomaton;
+import com.dent_in.nlp.lexicon.index.CharTrie;
+import com.dent_in.nlp.words.tokenizer.Token;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SplitterTest {
+
+    @Test
+    public void testCharTrie() {
+        CharTrie trie = new CharTrie(Arrays.asList("sport", "sports", "sportswear", "swear", "wear", "sport", "a"));
+        assertTrue(trie.contains("sports"));
+        assertTrue(trie.contains("a"));
+        assertFalse(trie.contains("sportsw"));
+        assertFalse(trie.contains(""));
+        assertTrue(trie.contains("xxswearxx", 2, 7));
+        assertEquals(10, trie.getMaxLength());
+
+        List<Integer> ends = new ArrayList<>();
+        trie.forEachPrefix("xsportswear", 1, 11, ends::add);
+        assertEquals(Arrays.asList(6, 7, 11), ends);
+        ends.clear();
+        trie.forEachPrefix("sportswear", 0, 6, ends::add);
+        assertEquals(Arrays.asList(5, 6), ends);
+    }
+
+    /**
+     * The boundary driven splitter only proposes known words (and short unknown ones), yet the best segmentation of
+     * natural terms is the same as with the exhaustive splitter.
+     *
+     * @throws URISyntaxException If any of the resources are not found
+     */
+    @Test
+    public void boundaryDrivenSplitTerms() throws URISyntaxException {
+        URI uri = ClassLoader.getSystemResource("count_1w_excerpt.txt").toURI();
+        String unigramDataFileName = Paths.get(uri).toString();
+        uri = ClassLoader.getSystemResource("count_2w_excerpt.txt").toURI();
+        String bigramDataFileName = Paths.get(uri).toString();
+        String totalNumberOfTokens = "1024908267229";
+        CorpusLexicon lexicon = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.CORPUSLEXICON);
+        lexicon.load(unigramDataFileName);
+
+        Splitter splitter = new SegmenterFactory().createSplitter(Splitter.type.BOUNDARY_DRIVEN, lexicon);
+        List<Token> splits = splitter.split("sportswear", 0);
+        List<Integer> ends = new ArrayList<>();
+        for (Token token : splits) {
+            ends.add(token.getEndOffset());
+        }
+        //s, sp (unknown), spo (unknown), sport, sports
+        assertEquals(Arrays.asList(1, 2, 3, 5, 6), ends);
+        assertTrue(splitter.keepWhole("sportswear", 0));
+        assertFalse(splitter.keepWhole("portswear", 0));
+        //unknown words of more than a few chars are kept whole, unless a known word occurs in them
+        assertTrue(splitter.keepWhole("bolobulu", 0));
+        assertFalse(splitter.keepWhole("bolobuluswear", 0));
+
+        Splitter exhaustive = new SegmenterFactory().createSplitter(Splitter.type.EXHAUSTIVE, null);
+        for (SegmentationScorer.type type : new SegmentationScorer.type[]{SegmentationScorer.type.BAYES_UNIGRAM, SegmentationScorer.type.BAYES_BIGRAM}) {
+            SegmentationScorer scorer = new SegmenterFactory().createSegmentationScorer(unigramDataFileName, bigramDataFileName, totalNumberOfTokens, type);
+            Segmenter expected = new SegmenterFactory().createSegmenter(Segmenter.type.NORVIG, exhaustive, scorer);
+            Segmenter norvig = new SegmenterFactory().createSegmenter(Segmenter.type.NORVIG, splitter, scorer);
+            Segmenter viterbi = new SegmenterFactory().createSegmenter(Segmenter.type.VITERBI, splitter, scorer);
+
+            for (String term : new String[]{"choosespain", "thisisatest", "expertsexchange", "speedofart", "tositdownon",
+                    "sportswear", "peakview", "roadpacer", "transworld", "firedog", "eversoft"}) {
+                Segmentation segmentation = expected.getBestSegmentation(term);
+                assertEquals(segmentation.getLogProbability(), norvig.getBestSegmentation(term).getLogProbability(), 1e-9, term);
+                assertEquals(segmentation.getLogProbability(), viterbi.getBestSegmentation(term).getLogProbability(), 1e-9, term);
+                //far fewer candidates to look at
+                assertTrue(norvig.segment(term, 0).size() < expected.segment(term, 0).size(), term);
+            }
+            //unknown terms (or unknown remainders) are not shattered into pieces of a few chars
+            for (String term : new String[]{"bolobulu", "zykadia", "sportsbolobulu", "choosebolobulu"}) {
+                Segmentation segmentation = expected.getBestSegmentation(term);
+                assertEquals(segmentation.getLogProbability(), norvig.getBestSegmentation(term).getLogProbability(), 1e-9, term);
+                assertEquals(segmentation.getLogProbability(), viterbi.getBestSegmentation(term).getLogProbability(), 1e-9, term);
+            }
+            assertEquals(Arrays.asList("bolobulu"), getWords(norvig.getBestSegmentation("bolobulu")));
+            assertEquals(Arrays.asList("sports", "bolobulu"), getWords(viterbi.getBestSegmentation("sportsbolobulu")));
+        }
+    }
+
+    @Test
+    public void testAhoCorasickAutomaton() {
+        List<String> words = Arrays.asList("he", "she", "his", "hers", "sport", "sports", "swear", "wear", "ear", "s");
+        AhoCorasickAutomaton automaton = new AhoCorasickAutomaton(words);
+        for (String text : new String[]{"ushers", "sportswear", "hishershe", "xyz", ""}) {
+            //every occurrence of every word, as found by brute force
+            List<String> expected = new ArrayList<>();
+            for (int end = 1; end <= text.length(); end++) {
+                for (int start = 0; start < end; start++) {
+                    if (words.contains(text.substring(start, end))) {
+                        expected.add(start + ":" + end);
+                    }
+                }
+            }
+            List<String> matches = new ArrayList<>();
+            automaton.forEachMatch(text, (start, end) -> matches.add(start + ":" + end));
+            assertEquals(expected, matches, text);
+        }
+    }
+
+    /**
+     * The Aho-Corasick segmenter finds the same best segmentation of natural terms out of the dictionary matches.
+     *
+     * @throws URISyntaxException If any of the resources are not found
+     */
+    @Test
+    public void ahoCorasickSegmentTerms() throws URISyntaxException {
+        URI uri = ClassLoader.getSystemResource("count_1w_excerpt.txt").toURI();
+        String unigramDataFileName = Paths.get(uri).toString();
+        uri = ClassLoader.getSystemResource("count_2w_excerpt.txt").toURI();
+        String bigramDataFileName = Paths.get(uri).toString();
+        String totalNumberOfTokens = "1024908267229";
+        CorpusLexicon lexicon = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.CORPUSLEXICON);
+        lexicon.load(unigramDataFileName);
+
+        Splitter splitter = new SegmenterFactory().createSplitter(Splitter.type.AHOCORASICK, lexicon);
+        Splitter exhaustive = new SegmenterFactory().createSplitter(Splitter.type.EXHAUSTIVE, null);
+        for (SegmentationScorer.type type : new SegmentationScorer.type[]{SegmentationScorer.type.BAYES_UNIGRAM, SegmentationScorer.type.BAYES_BIGRAM}) {
+            SegmentationScorer scorer = new SegmenterFactory().createSegmentationScorer(unigramDataFileName, bigramDataFileName, totalNumberOfTokens, type);
+            Segmenter expected = new SegmenterFactory().createSegmenter(Segmenter.type.NORVIG, exhaustive, scorer);
+            Segmenter ahoc = new SegmenterFactory().createSegmenter(Segmenter.type.AHOCORASICK, splitter, scorer);
+
+            for (String term : new String[]{"choosespain", "thisisatest", "expertsexchange", "speedofart", "tositdownon",
+                    "sportswear", "peakview", "roadpacer", "transworld", "firedog", "eversoft"}) {
+                Segmentation segmentation = expected.getBestSegmentation(term);
+                assertEquals(segmentation.getLogProbability(), ahoc.getBestSegmentation(term).getLogProbability(), 1e-9, term);
+            }
+        }
+
+        SegmentationScorer scorer = new SegmenterFactory().createSegmentationScorer(unigramDataFileName, bigramDataFileName, totalNumberOfTokens, SegmentationScorer.type.BAYES_BIGRAM);
+        Segmenter ahoc = new SegmenterFactory().createSegmenter(Segmenter.type.AHOCORASICK, splitter, scorer);
+        //overlapping dictionary words, in ascending order of their end offset
+        List<String> words = new ArrayList<>();
+        int previousEnd = 0;
+        for (AnnotatedTerm annotatedTerm : ahoc.getAhocTermsSegmentation("sportswear").getParts()) {
+            Token token = annotatedTerm.getContent();
+            assertEquals(token.getToken(), "sportswear".substring(token.getStartOffset(), token.getEndOffset()));
+            assertTrue(token.getEndOffset() >= previousEnd);
+            previousEnd = token.getEndOffset();
+            words.add(token.getToken());
+        }
+        assertTrue(words.containsAll(Arrays.asList("sport", "sports", "swear", "wear", "sportswear")));
+        assertEquals(Arrays.asList("sportswear", "swear", "wear", "ear", "ar", "r"), words.subList(words.size() - 6, words.size()));
+        //unknown terms are still segmented
+        assertEquals("zykadia".length(), ahoc.getBestSegmentation("zykadia").getParts().stream()
+                .mapToInt(part -> part.getContent().getToken().length()).sum());
+    }
+
+    /**
+     * The Aho-Corasick segmenter keeps unknown remainders whole like the boundary driven splitters, so it finds the
+     * same best segmentations of trademarks (e.g., brand names glued to known words) as Viterbi over the overlap splitter.
+     *
+     * @throws URISyntaxException If any of the resources are not found
+     * @throws IOException If the trademark data cannot be read
+     */
+    @Test
+    public void ahoCorasickSegmentTrademarks() throws URISyntaxException, IOException {
+        URI uri = ClassLoader.getSystemResource("count_1w_excerpt.txt").toURI();
+        String unigramDataFileName = Paths.get(uri).toString();
+        uri = ClassLoader.getSystemResource("count_2w_excerpt.txt").toURI();
+        String bigramDataFileName = Paths.get(uri).toString();
+        CorpusLexicon lexicon = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.CORPUSLEXICON);
+        lexicon.load(unigramDataFileName);
+
+        SegmenterFactory factory = new SegmenterFactory();
+        SegmentationScorer scorer = factory.createSegmentationScorer(unigramDataFileName, bigramDataFileName,
+                "1024908267229", SegmentationScorer.type.BAYES_BIGRAM);
+        Segmenter ahoc = factory.createSegmenter(Segmenter.type.AHOCORASICK,
+                factory.createSplitter(Splitter.type.AHOCORASICK, lexicon), scorer);
+        Segmenter viterbi = factory.createSegmenter(Segmenter.type.VITERBI,
+                factory.createSplitter(Splitter.type.BOUNDARY_OVERLAP, lexicon), scorer);
+        List<String> terms = new ArrayList<>(SegmenterTest.loadTrademarkTerms());
+        terms.add("sportswearzqxjvk");
+        for (String term : terms) {
+            Segmentation expected = viterbi.getBestSegmentation(term);
+            Segmentation segmentation = ahoc.getBestSegmentation(term);
+            assertEquals(getWords(expected), getWords(segmentation), term);
+            assertEquals(expected.getLogProbability(), segmentation.getLogProbability(), 1e-9, term);
+        }
+        assertEquals(Arrays.asList("sports", "wear", "zqxjvk"), getWords(ahoc.getBestSegmentation("sportswearzqxjvk")));
+    }
+
+    /**
+     * The spans set by the overlap splitter lead to the very same candidate segmentations as the splits of the
+     * boundary driven splitter.
+     *
+     * @throws URISyntaxException If any of the resources are not found
+     */
+    @Test
+    public void boundaryOverlapSplitTerms() throws URISyntaxException {
+        URI uri = ClassLoader.getSystemResource("count_1w_excerpt.txt").toURI();
+        String unigramDataFileName = Paths.get(uri).toString();
+        uri = ClassLoader.getSystemResource("count_2w_excerpt.txt").toURI();
+        String bigramDataFileName = Paths.get(uri).toString();
+        String totalNumberOfTokens = "1024908267229";
+        CorpusLexicon lexicon = (CorpusLexicon) new LexiconFactory().createInstance(Lexicon.TYPE.CORPUSLEXICON);
+        lexicon.load(unigramDataFileName);
+
+        Splitter splitter = new SegmenterFactory().createSplitter(Splitter.type.BOUNDARY_OVERLAP, lexicon);
+        splitter.setBoundaries("sportswear");
+        List<String> spans = new ArrayList<>();
+        int[] boundaries = splitter.getBoundaries();
+        for (int i = 0; i < boundaries.length; i += 2) {
+            spans.add(boundaries[i] + ":" + boundaries[i + 1]);
+        }
+        //sports|wear, sport|swear and sportswear
+        assertTrue(spans.containsAll(Arrays.asList("0:5", "0:6", "5:10", "6:10", "0:10")));
+        splitter.setBoundaries("a");
+        assertEquals(0, splitter.getBoundaries().length);
+
+        Splitter boundaryDriven = new SegmenterFactory().createSplitter(Splitter.type.BOUNDARY_DRIVEN, lexicon);
+        for (SegmentationScorer.type type : new SegmentationScorer.type[]{SegmentationScorer.type.BAYES_UNIGRAM, SegmentationScorer.type.BAYES_BIGRAM}) {
+            SegmentationScorer scorer = new SegmenterFactory().createSegmentationScorer(unigramDataFileName, bigramDataFileName, totalNumberOfTokens, type);
+            Segmenter expected = new SegmenterFactory().createSegmenter(Segmenter.type.NORVIG, boundaryDriven, scorer);
+            Segmenter viterbi = new SegmenterFactory().createSegmenter(Segmenter.type.VITERBI, splitter, scorer);
+
+            for (String term : new String[]{"choosespain", "thisisatest", "expertsexchange", "speedofart", "tositdownon",
+                    "sportswear", "peakview", "roadpacer", "zykadia", "bolobulu", "a"}) {
+                Segmentation segmentation = expected.getBestSegmentation(term);
+                assertEquals(segmentation.getLogProbability(), viterbi.getBestSegmentation(term).getLogProbability(), 1e-9, term);
+                int count = 0;
+                for (Iterator<Segmentation> segmentations = viterbi.getSegmentations(term); segmentations.hasNext(); segmentations.next()) {
+                    count++;
+                }
+                assertEquals(expected.segment(term, 0).size(), count, term);
+            }
+        }
+    }
+
+    private static List<String> getWords(Segmentation segmentation) {
+        List<String> words = new ArrayList<>();
+        for (AnnotatedTerm part : segmentation.getParts()) {
+            words.add(part.getContent().getToken());
+        }
+        return words;
+    }
+}